@@ -0,0 +1,147 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of one decision:
+ *
+ * <pre>
+ * byte    format version
+ * long    epoch millis
+ * byte    product ordinal
+ * byte    flags (policy evaluated, policy approved, income adjusted, model scored)
+ * byte    feature count, then one double per request field in FeatureSchema
+ *         slot order (NaN = missing)
+ * double  prob_approved (NaN if not scored)
+ * double  predicted_amount (NaN if the product has no amount)
+ * string  label, policy message, approval model, borrow model
+ * </pre>
+ *
+ * Strings are an unsigned byte length followed by UTF-8, truncated to 255 bytes.
+ */
+public final class AuditCodec {
+
+    static final byte VERSION = 1;
+
+    private static final int POLICY_EVALUATED = 1;
+    private static final int POLICY_APPROVED = 1 << 1;
+    private static final int INCOME_ADJUSTED = 1 << 2;
+    private static final int MODEL_SCORED = 1 << 3;
+
+    private AuditCodec() {
+    }
+
+    public static void encode(ByteBuffer buf, long timestamp, Product product, Object request,
+                              PolicyRuleEngine.PolicyResult policy, Object response,
+                              String approvalModel, String borrowModel) {
+        ScoreResponse.ApprovalPart approval = null;
+        ScoreResponse.LoanPart amount = null;
+        String message = null;
+        if (response instanceof ScoreResponse r) {
+            approval = r.approval;
+            amount = r.loanAmount;
+            message = r.policy_message;
+        } else if (response instanceof SimpleScoreResponse r) {
+            approval = r.approval;
+            amount = r.loanAmount;
+            message = r.policy_message;
+        } else if (response instanceof ApprovalOnlyResponse r) {
+            approval = r.approval;
+            message = r.policy_message;
+        }
+
+        int flags = 0;
+        if (policy != null) {
+            flags |= POLICY_EVALUATED;
+            if (policy.approved) {
+                flags |= POLICY_APPROVED;
+                flags |= MODEL_SCORED;
+            } else if (message == null) {
+                message = policy.declineReason;
+            }
+            if (policy.incomeAdjusted) {
+                flags |= INCOME_ADJUSTED;
+            }
+        } else if (approval != null) {
+            flags |= MODEL_SCORED;
+        }
+
+        buf.put(VERSION);
+        buf.putLong(timestamp);
+        buf.put((byte) product.ordinal());
+        buf.put((byte) flags);
+        buf.put((byte) product.featureCount());
+        writeFeatures(buf, product, request);
+        buf.putDouble(approval == null ? Double.NaN : approval.prob_approved);
+        buf.putDouble(amount == null ? Double.NaN : amount.predicted_amount);
+        putString(buf, approval == null ? null : approval.label);
+        putString(buf, message);
+        putString(buf, approvalModel);
+        putString(buf, borrowModel);
+    }
+
+    private static void writeFeatures(ByteBuffer buf, Product product, Object request) {
+        FeatureSchema schema = FeatureSchema.of(product);
+        if (!schema.requestType().isInstance(request)) {
+            throw new IllegalArgumentException("Unsupported request type for " + product + ": " + request);
+        }
+        for (int s = 0; s < schema.requestFields(); s++) {
+            buf.putDouble(schema.value(request, s));
+        }
+    }
+
+    public static AuditRecord decode(ByteBuffer buf) {
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported audit record version: " + version);
+        }
+        AuditRecord rec = new AuditRecord();
+        rec.timestamp = buf.getLong();
+        rec.product = Product.values()[buf.get()];
+        int flags = buf.get();
+        rec.policyEvaluated = (flags & POLICY_EVALUATED) != 0;
+        rec.policyApproved = (flags & POLICY_APPROVED) != 0;
+        rec.incomeAdjusted = (flags & INCOME_ADJUSTED) != 0;
+        rec.modelScored = (flags & MODEL_SCORED) != 0;
+        rec.features = new double[buf.get()];
+        for (int i = 0; i < rec.features.length; i++) {
+            rec.features[i] = buf.getDouble();
+        }
+        rec.probApproved = buf.getDouble();
+        rec.predictedAmount = buf.getDouble();
+        rec.label = getString(buf);
+        rec.policyMessage = getString(buf);
+        rec.approvalModel = getString(buf);
+        rec.borrowModel = getString(buf);
+        return rec;
+    }
+
+    private static void putString(ByteBuffer buf, String s) {
+        if (s == null) {
+            buf.put((byte) 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        buf.put((byte) len);
+        buf.put(bytes, 0, len);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = buf.get() & 0xFF;
+        if (len == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
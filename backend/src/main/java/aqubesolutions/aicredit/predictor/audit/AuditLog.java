@@ -0,0 +1,87 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Records every credit decision made by the scoring services.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    static final int SLOT_SIZE = 1024;
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.dir:./audit}")
+    private String dir;
+
+    @Value("${audit.ring-size:8192}")
+    private int ringSize;
+
+    @Value("${audit.file-size-mb:64}")
+    private int fileSizeMb;
+
+    @Value("${audit.max-batch:512}")
+    private int maxBatch;
+
+    private AuditWriter writer;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Decision audit log disabled");
+            return;
+        }
+        log.info("Writing decision audit log to {}", Path.of(dir).toAbsolutePath());
+        writer = new AuditWriter(Path.of(dir), ringSize, SLOT_SIZE, fileSizeMb * 1024 * 1024, maxBatch);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Queues a decision for writing. Never blocks; if the writer has fallen a
+     * full ring behind the record is dropped and counted.
+     *
+     * @param policy   the policy outcome, or null for products without policy rules
+     * @param response the response returned to the client
+     */
+    public void record(Product product, Object request, PolicyRuleEngine.PolicyResult policy,
+                       Object response, String approvalModel, String borrowModel) {
+        if (writer == null) {
+            return;
+        }
+        long seq = writer.claim();
+        if (seq < 0) {
+            return;
+        }
+        int length = 0;
+        try {
+            ByteBuffer buf = writer.buffer(seq);
+            AuditCodec.encode(buf, System.currentTimeMillis(), product, request, policy, response,
+                    approvalModel, borrowModel);
+            length = buf.position();
+        } catch (RuntimeException e) {
+            log.warn("Could not encode audit record: {}", e.getMessage());
+        } finally {
+            writer.publish(seq, length);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads audit files written by {@link AuditWriter}.
+ *
+ * Command line use prints one JSON object per decision:
+ * <pre>
+ * java -cp app.jar -Dloader.main=aqubesolutions.aicredit.predictor.audit.AuditLogReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher ./audit
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Audit files under a directory in the order they were written, or the
+     * path itself if it is a single file.
+     */
+    public static List<Path> files(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> s = Files.list(path)) {
+            return s.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(AuditWriter.FILE_PREFIX) && name.endsWith(AuditWriter.FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static void forEach(Path path, Consumer<AuditRecord> consumer) throws IOException {
+        for (Path file : files(path)) {
+            forEachInFile(file, consumer);
+        }
+    }
+
+    private static void forEachInFile(Path file, Consumer<AuditRecord> consumer) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        while (buf.remaining() >= Integer.BYTES) {
+            int length = buf.getInt();
+            if (length <= 0 || length > buf.remaining()) {
+                break;
+            }
+            ByteBuffer record = buf.slice(buf.position(), length);
+            buf.position(buf.position() + length);
+            consumer.accept(AuditCodec.decode(record));
+        }
+    }
+
+    /**
+     * JSON view of a record. The {@code request} object uses the same field
+     * names as the scoring request DTOs.
+     */
+    public static Map<String, Object> toMap(AuditRecord rec) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        String[] names = rec.product.features();
+        for (int i = 0; i < names.length && i < rec.features.length; i++) {
+            if (!Double.isNaN(rec.features[i])) {
+                request.put(names[i], rec.features[i]);
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("timestamp", Instant.ofEpochMilli(rec.timestamp).toString());
+        out.put("product", rec.product.code());
+        out.put("request", request);
+        out.put("policy_evaluated", rec.policyEvaluated);
+        out.put("policy_approved", rec.policyApproved);
+        out.put("income_adjusted", rec.incomeAdjusted);
+        out.put("model_scored", rec.modelScored);
+        out.put("label", rec.label);
+        out.put("prob_approved", Double.isNaN(rec.probApproved) ? null : rec.probApproved);
+        out.put("predicted_amount", Double.isNaN(rec.predictedAmount) ? null : rec.predictedAmount);
+        out.put("policy_message", rec.policyMessage);
+        out.put("approval_model", rec.approvalModel);
+        out.put("borrow_model", rec.borrowModel);
+        return out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: AuditLogReader <audit dir or file>...");
+            System.exit(1);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        List<Path> paths = new ArrayList<>();
+        for (String a : args) {
+            paths.add(Path.of(a));
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            for (Path p : paths) {
+                forEach(p, rec -> {
+                    try {
+                        out.write(mapper.writeValueAsString(toMap(rec)));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+    }
+}
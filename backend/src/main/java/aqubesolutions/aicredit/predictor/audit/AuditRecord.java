@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+
+/**
+ * A decoded audit entry. Features follow {@link Product#features()} order,
+ * with NaN for fields the request did not supply.
+ */
+public class AuditRecord {
+    public long timestamp;
+    public Product product;
+    public double[] features;
+    public boolean policyEvaluated;
+    public boolean policyApproved;
+    public boolean incomeAdjusted;
+    public boolean modelScored;
+    public String label;
+    public double probApproved;
+    public double predictedAmount;
+    public String policyMessage;
+    public String approvalModel;
+    public String borrowModel;
+}
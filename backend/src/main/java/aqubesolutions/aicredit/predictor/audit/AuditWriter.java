@@ -0,0 +1,252 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer with many producers and a single writer thread that appends
+ * records to rolling memory-mapped files.
+ *
+ * Producers claim a slot, encode into it and publish it. If the writer is a
+ * full ring behind, the claim fails and the record is dropped and counted:
+ * request threads never wait for the disk. The writer drains whatever is
+ * published, copies it into the current file and forces the whole batch with
+ * a single msync (group commit).
+ *
+ * File layout: a sequence of {@code [int length][payload]} entries; a zero
+ * length marks the unused tail of a file.
+ */
+public class AuditWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditWriter.class);
+
+    static final String FILE_PREFIX = "audit-";
+    static final String FILE_SUFFIX = ".bin";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Path dir;
+    private final int fileSize;
+    private final int maxBatch;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder files = new LongAdder();
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private MappedByteBuffer current;
+    private long reportedDrops;
+    private long lastDropReport;
+
+    /**
+     * @param ringSize   number of slots, rounded up to a power of two
+     * @param slotSize   maximum encoded size of one record
+     * @param fileSize   size of each mapped file before rolling
+     * @param maxBatch   maximum records written per group commit
+     */
+    public AuditWriter(Path dir, int ringSize, int slotSize, int fileSize, int maxBatch) {
+        this.dir = dir;
+        this.fileSize = fileSize;
+        this.maxBatch = maxBatch;
+
+        int size = Integer.highestOneBit(Math.max(1, ringSize - 1)) << 1;
+        this.ring = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot(slotSize);
+        }
+
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Claims a slot for one record. Returns the sequence to pass to
+     * {@link #buffer(long)} and {@link #publish(long, int)}, or -1 when the
+     * ring is full and the record has been dropped.
+     */
+    public long claim() {
+        while (true) {
+            long seq = claimed.get();
+            if (seq - consumed >= ring.length) {
+                dropped.increment();
+                return -1;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                return seq;
+            }
+        }
+    }
+
+    /**
+     * The cleared buffer of a claimed slot.
+     */
+    public ByteBuffer buffer(long seq) {
+        ByteBuffer buf = ring[(int) (seq & mask)].buf;
+        buf.clear();
+        return buf;
+    }
+
+    /**
+     * Hands a claimed slot to the writer. Every claimed sequence must be
+     * published, with length 0 if encoding failed.
+     */
+    public void publish(long seq, int length) {
+        Slot slot = ring[(int) (seq & mask)];
+        slot.length = length;
+        slot.published = seq;
+    }
+
+    private void runWriter() {
+        while (running) {
+            try {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                reportDrops();
+            } catch (Exception e) {
+                log.error("Audit writer failed: {}", e.getMessage(), e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private int drain() throws IOException {
+        long next = consumed;
+        int n = 0;
+        try {
+            while (n < maxBatch) {
+                Slot slot = ring[(int) (next & mask)];
+                if (slot.published != next) {
+                    break;
+                }
+                if (slot.length > 0) {
+                    append(slot.buf, slot.length);
+                }
+                next++;
+                n++;
+            }
+        } finally {
+            // Slots are free once copied, also those before a record that failed,
+            // so a retry starts at the failed record; the msync below covers the batch.
+            if (n > 0) {
+                consumed = next;
+                written.add(n);
+            }
+        }
+        if (n > 0) {
+            if (current != null) {
+                current.force();
+            }
+            batches.increment();
+        }
+        return n;
+    }
+
+    private void append(ByteBuffer record, int length) throws IOException {
+        if (current == null || current.remaining() < Integer.BYTES + length) {
+            roll();
+        }
+        current.putInt(length);
+        current.put(record.duplicate().position(0).limit(length));
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            current.force();
+        }
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("%s%013d-%06d%s",
+                FILE_PREFIX, System.currentTimeMillis(), files.sum(), FILE_SUFFIX));
+        try (FileChannel ch = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = ch.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        files.increment();
+        log.info("Audit log rolled to {}", file);
+    }
+
+    private void reportDrops() {
+        long d = dropped.sum();
+        long now = System.nanoTime();
+        if (d != reportedDrops && now - lastDropReport >= DROP_REPORT_INTERVAL_NANOS) {
+            log.warn("Audit ring full: {} records dropped so far", d);
+            reportedDrops = d;
+            lastDropReport = now;
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long files() {
+        return files.sum();
+    }
+
+    /**
+     * Stops the writer after draining everything already published. If the
+     * writer thread does not stop in time the remainder is left to it rather
+     * than drained concurrently.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            if (writerThread.isAlive()) {
+                log.warn("Audit writer did not stop; {} published records may not be flushed",
+                        claimed.get() - consumed);
+                return;
+            }
+            while (drain() > 0) {
+                // flush the remainder
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Error flushing audit log: {}", e.getMessage(), e);
+        }
+    }
+
+    private static final class Slot {
+        final ByteBuffer buf;
+        int length;
+        volatile long published = -1;
+
+        Slot(int size) {
+            this.buf = ByteBuffer.allocate(size);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreResponse;
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.ApplicantScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code POST /api/score/applicant} scores one applicant for each product
+ * section in the body. The quota filter cannot tell the products from the
+ * path, so each requested product is charged here instead, all or none: if
+ * one product is over quota the tokens already taken for the others are
+ * given back.
+ */
+@RestController
+@RequestMapping("/api")
+public class ApplicantController {
+
+    private final ApplicantScoringService applicantService;
+    private final QuotaService quotas;
+
+    public ApplicantController(ApplicantScoringService applicantService, QuotaService quotas) {
+        this.applicantService = applicantService;
+        this.quotas = quotas;
+    }
+
+    @PostMapping("/score/applicant")
+    public ResponseEntity<?> scoreApplicant(@RequestBody ApplicantScoreRequest req,
+                                            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false)
+                                            String apiKey) {
+        if (quotas.isEnabled() && req != null) {
+            ResponseEntity<?> rejected = charge(apiKey, req);
+            if (rejected != null) {
+                return rejected;
+            }
+        }
+        try {
+            ApplicantScoreResponse res = applicantService.score(req);
+            return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", iae.getMessage()));
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> charge(String apiKey, ApplicantScoreRequest req) {
+        Product[] products = {Product.MORTGAGE, Product.CREDIT_CARD, Product.LOAN, Product.CURRENT_ACCOUNT};
+        Object[] sections = {req.mo, req.cc, req.ln, req.ca};
+        List<Product> charged = new ArrayList<>(products.length);
+        for (int i = 0; i < products.length; i++) {
+            if (sections[i] == null) {
+                continue;
+            }
+            ResponseEntity<?> rejected = QuotaResponses.charge(quotas, apiKey, products[i], 1);
+            if (rejected != null) {
+                for (Product p : charged) {
+                    quotas.release(apiKey, p, 1);
+                }
+                return rejected;
+            }
+            charged.add(products[i]);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.service.ApproximationTables;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/approx")
+public class ApproximationController {
+
+    private final ApproximationTables approximations;
+
+    public ApproximationController(ApproximationTables approximations) {
+        this.approximations = approximations;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(approximations.snapshot());
+    }
+}
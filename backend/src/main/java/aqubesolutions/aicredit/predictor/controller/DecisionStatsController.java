@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stats")
+public class DecisionStatsController {
+
+    private final DecisionStats decisionStats;
+
+    public DecisionStatsController(DecisionStats decisionStats) {
+        this.decisionStats = decisionStats;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(decisionStats.snapshot());
+    }
+}
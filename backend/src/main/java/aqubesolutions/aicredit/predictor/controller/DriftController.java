@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/drift")
+public class DriftController {
+
+    private final DriftMonitor driftMonitor;
+
+    public DriftController(DriftMonitor driftMonitor) {
+        this.driftMonitor = driftMonitor;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> drift() {
+        return ResponseEntity.ok(driftMonitor.snapshot());
+    }
+}
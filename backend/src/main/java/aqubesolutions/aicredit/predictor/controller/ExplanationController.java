@@ -0,0 +1,131 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Approval model contributions per feature. {@code /api/explain/<product>}
+ * takes one request like the scoring endpoint; {@code .../batch} takes an
+ * array and returns one explanation per item, in order. Each item is
+ * charged to the client's quota for the product, like a score.
+ */
+@RestController
+@RequestMapping("/api/explain")
+public class ExplanationController {
+
+    @FunctionalInterface
+    private interface Explain<T> {
+        List<?> apply(List<T> reqs) throws Exception;
+    }
+
+    private final MultiModelScoringService mortgageService;
+    private final CreditCardScoringService creditCardService;
+    private final LoanScoringService loanService;
+    private final CurrentAccountScoringService currentAccountService;
+    private final QuotaService quotas;
+
+    public ExplanationController(MultiModelScoringService mortgageService,
+                                 CreditCardScoringService creditCardService,
+                                 LoanScoringService loanService,
+                                 CurrentAccountScoringService currentAccountService,
+                                 QuotaService quotas) {
+        this.mortgageService = mortgageService;
+        this.creditCardService = creditCardService;
+        this.loanService = loanService;
+        this.currentAccountService = currentAccountService;
+        this.quotas = quotas;
+    }
+
+    @PostMapping("/mo")
+    public ResponseEntity<?> explainMortgage(
+            @RequestBody ScoreRequest req,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return single(Product.MORTGAGE, apiKey, req, mortgageService::explain);
+    }
+
+    @PostMapping("/mo/batch")
+    public ResponseEntity<?> explainMortgageBatch(
+            @RequestBody List<ScoreRequest> reqs,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return batch(Product.MORTGAGE, apiKey, reqs, mortgageService::explain);
+    }
+
+    @PostMapping("/cc")
+    public ResponseEntity<?> explainCreditCard(
+            @RequestBody CreditCardScoreRequest req,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return single(Product.CREDIT_CARD, apiKey, req, creditCardService::explain);
+    }
+
+    @PostMapping("/cc/batch")
+    public ResponseEntity<?> explainCreditCardBatch(
+            @RequestBody List<CreditCardScoreRequest> reqs,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return batch(Product.CREDIT_CARD, apiKey, reqs, creditCardService::explain);
+    }
+
+    @PostMapping("/ln")
+    public ResponseEntity<?> explainLoan(
+            @RequestBody LoanScoreRequest req,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return single(Product.LOAN, apiKey, req, loanService::explain);
+    }
+
+    @PostMapping("/ln/batch")
+    public ResponseEntity<?> explainLoanBatch(
+            @RequestBody List<LoanScoreRequest> reqs,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return batch(Product.LOAN, apiKey, reqs, loanService::explain);
+    }
+
+    @PostMapping("/ca")
+    public ResponseEntity<?> explainCurrentAccount(
+            @RequestBody CurrentAccountScoreRequest req,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return single(Product.CURRENT_ACCOUNT, apiKey, req, currentAccountService::explain);
+    }
+
+    @PostMapping("/ca/batch")
+    public ResponseEntity<?> explainCurrentAccountBatch(
+            @RequestBody List<CurrentAccountScoreRequest> reqs,
+            @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false) String apiKey) {
+        return batch(Product.CURRENT_ACCOUNT, apiKey, reqs, currentAccountService::explain);
+    }
+
+    private <T> ResponseEntity<?> single(Product product, String apiKey, T req, Explain<T> explain) {
+        ResponseEntity<?> res = batch(product, apiKey, List.of(req), explain);
+        return res.getBody() instanceof List<?> list ? ResponseEntity.ok(list.get(0)) : res;
+    }
+
+    /**
+     * Charges one request per item to the client's quota, then explains them.
+     */
+    private <T> ResponseEntity<?> batch(Product product, String apiKey, List<T> reqs, Explain<T> explain) {
+        ResponseEntity<?> rejected = QuotaResponses.charge(quotas, apiKey, product, reqs.size());
+        if (rejected != null) {
+            return rejected;
+        }
+        try {
+            return ResponseEntity.ok(explain.apply(reqs));
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+}
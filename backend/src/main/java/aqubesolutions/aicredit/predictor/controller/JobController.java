@@ -0,0 +1,89 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.service.ScoringJobService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Asynchronous scoring jobs. {@code POST /api/jobs/<product>} uploads a JSON
+ * array or NDJSON of requests and answers 202 with the job ID;
+ * {@code GET /api/jobs/<id>} reports progress and
+ * {@code GET /api/jobs/<id>/results} downloads the NDJSON results once the
+ * job has completed. Every request in an upload is charged to the client's
+ * quota for the product when the job is submitted.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final ScoringJobService jobs;
+    private final QuotaService quotas;
+
+    public JobController(ScoringJobService jobs, QuotaService quotas) {
+        this.jobs = jobs;
+        this.quotas = quotas;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(jobs.snapshot());
+    }
+
+    @PostMapping("/{product}")
+    public ResponseEntity<?> submit(@PathVariable String product, InputStream body,
+                                    @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false)
+                                    String apiKey) {
+        try {
+            return ResponseEntity.status(202).body(jobs.submit(product, body, (p, requests) ->
+                    quotas.isEnabled() ? quotas.acquire(apiKey, p, requests) : 0));
+        } catch (ScoringJobService.JobRejectedException jre) {
+            return QuotaResponses.rejected(quotas, apiKey, Product.fromCode(product), jre.code);
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", iae.getMessage()));
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(jobs.status(id));
+        } catch (ScoringJobService.NoSuchJobException nje) {
+            return ResponseEntity.status(404).body(java.util.Map.of("error", nje.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/results")
+    public ResponseEntity<?> results(@PathVariable String id) {
+        try {
+            Path file = jobs.results(id);
+            if (file == null) {
+                return ResponseEntity.status(409).body(jobs.status(id));
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".ndjson\"")
+                    .body(new FileSystemResource(file));
+        } catch (ScoringJobService.NoSuchJobException nje) {
+            return ResponseEntity.status(404).body(java.util.Map.of("error", nje.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable String id) {
+        return jobs.delete(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(404).body(java.util.Map.of("error", "No such job: " + id));
+    }
+}
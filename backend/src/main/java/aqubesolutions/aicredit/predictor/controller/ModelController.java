@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/models")
+public class ModelController {
+
+    private final ModelStore modelStore;
+
+    public ModelController(ModelStore modelStore) {
+        this.modelStore = modelStore;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> models() {
+        return ResponseEntity.ok(modelStore.stats());
+    }
+}
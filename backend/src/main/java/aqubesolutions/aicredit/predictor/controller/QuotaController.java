@@ -0,0 +1,37 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/quotas")
+public class QuotaController {
+
+    private final QuotaService quotas;
+
+    public QuotaController(QuotaService quotas) {
+        this.quotas = quotas;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> quotas() {
+        return ResponseEntity.ok(quotas.snapshot());
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload() {
+        if (!quotas.isEnabled()) {
+            return ResponseEntity.status(409).body(java.util.Map.of("error", "Quotas are disabled"));
+        }
+        try {
+            quotas.reload();
+            return ResponseEntity.ok(quotas.snapshot());
+        } catch (Exception e) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
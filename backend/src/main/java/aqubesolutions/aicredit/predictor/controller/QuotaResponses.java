@@ -0,0 +1,46 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Quota charging for endpoints the quota filter does not cover, because the
+ * product or the number of requests is only known once the body is read.
+ * Answers as the filter does: 401 for an unknown or missing key, 429 with
+ * {@code Retry-After} when over quota.
+ */
+final class QuotaResponses {
+
+    private QuotaResponses() {
+    }
+
+    /**
+     * Charges {@code n} requests to the client's quota for the product.
+     * Returns null if allowed or quotas are off, otherwise the response to
+     * send instead.
+     */
+    static ResponseEntity<?> charge(QuotaService quotas, String apiKey, Product product, long n) {
+        if (!quotas.isEnabled()) {
+            return null;
+        }
+        return rejected(quotas, apiKey, product, quotas.acquire(apiKey, product, n));
+    }
+
+    /**
+     * The response for a {@link QuotaService#acquire} result, or null if it
+     * allowed the request.
+     */
+    static ResponseEntity<?> rejected(QuotaService quotas, String apiKey, Product product, long wait) {
+        if (wait == 0) {
+            return null;
+        }
+        if (wait == QuotaService.UNKNOWN_CLIENT) {
+            return ResponseEntity.status(401).body(java.util.Map.of("error", "Unknown or missing API key"));
+        }
+        return ResponseEntity.status(429)
+                .header("Retry-After", String.valueOf(QuotaService.retryAfterSeconds(wait)))
+                .body(java.util.Map.of("error",
+                        "Quota exceeded for client " + quotas.clientName(apiKey) + " on product " + product.code()));
+    }
+}
@@ -11,6 +11,7 @@ import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
 import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
 import aqubesolutions.aicredit.predictor.service.LoanScoringService;
 import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -47,6 +48,8 @@ public class ScoringController {
         try {
             ScoreResponse res = mortgageService.score(req);
             return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
         } catch (IllegalStateException ise) {
             return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
         } catch (Exception e) {
@@ -59,6 +62,8 @@ public class ScoringController {
         try {
             SimpleScoreResponse res = creditCardService.score(req);
             return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
         } catch (IllegalStateException ise) {
             return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
         } catch (Exception e) {
@@ -71,6 +76,22 @@ public class ScoringController {
         try {
             SimpleScoreResponse res = loanService.score(req);
             return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/score/ln/approx")
+    public ResponseEntity<?> scoreLoanApproximate(@RequestBody LoanScoreRequest req) {
+        try {
+            ApprovalOnlyResponse res = loanService.scoreApproximate(req);
+            return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
         } catch (IllegalStateException ise) {
             return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
         } catch (Exception e) {
@@ -83,6 +104,22 @@ public class ScoringController {
         try {
             ApprovalOnlyResponse res = currentAccountService.score(req);
             return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/score/ca/approx")
+    public ResponseEntity<?> scoreCurrentAccountApproximate(@RequestBody CurrentAccountScoreRequest req) {
+        try {
+            ApprovalOnlyResponse res = currentAccountService.scoreApproximate(req);
+            return ResponseEntity.ok(res);
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
         } catch (IllegalStateException ise) {
             return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
         } catch (Exception e) {
@@ -0,0 +1,99 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.service.ScoringSessionService;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Incremental scoring. {@code POST /api/session/<product>} opens a session
+ * with a full request, {@code PATCH /api/session/<id>} sends only the fields
+ * that changed, and {@code GET /api/session/<id>/events} streams every new
+ * result as a server-sent event. Opening a session and each patch are
+ * charged to the client's quota for the session's product, like a score.
+ */
+@RestController
+@RequestMapping("/api/session")
+public class SessionController {
+
+    @FunctionalInterface
+    private interface Call {
+        Object apply() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface ProductOf {
+        Product get();
+    }
+
+    private final ScoringSessionService sessions;
+    private final QuotaService quotas;
+
+    public SessionController(ScoringSessionService sessions, QuotaService quotas) {
+        this.sessions = sessions;
+        this.quotas = quotas;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(sessions.snapshot());
+    }
+
+    @PostMapping("/{product}")
+    public ResponseEntity<?> open(@PathVariable String product, @RequestBody JsonNode body,
+                                  @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false)
+                                  String apiKey) {
+        return handle(201, apiKey, () -> Product.fromCode(product), () -> sessions.open(product, body));
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patch(@PathVariable String id, @RequestBody JsonNode body,
+                                   @RequestHeader(value = QuotaService.API_KEY_HEADER, required = false)
+                                   String apiKey) {
+        return handle(200, apiKey, () -> sessions.product(id), () -> sessions.patch(id, body));
+    }
+
+    @GetMapping("/{id}/events")
+    public ResponseEntity<?> events(@PathVariable String id) {
+        return handle(200, null, null, () -> sessions.subscribe(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> close(@PathVariable String id) {
+        return sessions.close(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(404).body(java.util.Map.of("error", "No such session: " + id));
+    }
+
+    /**
+     * Charges one request to {@code product}'s quota, unless it is null, then
+     * runs the call.
+     */
+    private ResponseEntity<?> handle(int status, String apiKey, ProductOf product, Call call) {
+        try {
+            ResponseEntity<?> rejected = product == null ? null
+                    : QuotaResponses.charge(quotas, apiKey, product.get(), 1);
+            if (rejected != null) {
+                return rejected;
+            }
+            return ResponseEntity.status(status).body(call.apply());
+        } catch (ScoringSessionService.NoSuchSessionException nse) {
+            return ResponseEntity.status(404).body(java.util.Map.of("error", nse.getMessage()));
+        } catch (ValidationException ve) {
+            return ResponseEntity.status(400).body(ve.body());
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", iae.getMessage()));
+        } catch (ScoringSessionService.SessionLimitException sle) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(sle.retryAfterSeconds))
+                    .body(java.util.Map.of("error", sle.getMessage()));
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
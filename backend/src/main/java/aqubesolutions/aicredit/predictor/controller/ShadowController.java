@@ -0,0 +1,23 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.service.ShadowScoringService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/shadow")
+public class ShadowController {
+
+    private final ShadowScoringService shadowService;
+
+    public ShadowController(ShadowScoringService shadowService) {
+        this.shadowService = shadowService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(shadowService.snapshot());
+    }
+}
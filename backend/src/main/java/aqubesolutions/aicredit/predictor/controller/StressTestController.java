@@ -0,0 +1,57 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.dto.StressScenario;
+import aqubesolutions.aicredit.predictor.service.PortfolioStressService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Portfolio stress tests. {@code POST /api/stress/portfolio} loads a mortgage
+ * book as CSV; {@code POST /api/stress} runs it under a JSON array of
+ * scenarios and returns the aggregates for the baseline and each scenario.
+ */
+@RestController
+@RequestMapping("/api/stress")
+public class StressTestController {
+
+    private final PortfolioStressService stress;
+
+    public StressTestController(PortfolioStressService stress) {
+        this.stress = stress;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> stats() {
+        return ResponseEntity.ok(stress.snapshot());
+    }
+
+    @PostMapping("/portfolio")
+    public ResponseEntity<?> load(InputStream body) {
+        try {
+            return ResponseEntity.ok(stress.load(body));
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", iae.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<?> run(@RequestBody(required = false) List<StressScenario> scenarios) {
+        try {
+            return ResponseEntity.ok(stress.run(scenarios));
+        } catch (IllegalArgumentException iae) {
+            return ResponseEntity.status(400).body(java.util.Map.of("error", iae.getMessage()));
+        } catch (IllegalStateException ise) {
+            return ResponseEntity.status(503).body(java.util.Map.of("error", ise.getMessage()));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(503).body(java.util.Map.of("error", "Interrupted"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(java.util.Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
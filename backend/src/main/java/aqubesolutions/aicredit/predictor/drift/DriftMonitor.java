@@ -0,0 +1,274 @@
+package aqubesolutions.aicredit.predictor.drift;
+
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.service.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the distribution of every request feature and model output against
+ * the training data.
+ *
+ * Request threads only increment a bucket counter in one of a few striped
+ * arrays. A background task periodically drains the stripes into a ring of
+ * per-interval counts; the live distribution is the sum of the ring, i.e. the
+ * last {@code window-intervals} merge intervals. Baselines are built once at
+ * startup from the training CSVs.
+ */
+@Component
+public class DriftMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(DriftMonitor.class);
+
+    static final String PROB_APPROVED = "prob_approved";
+    static final String PREDICTED_AMOUNT = "predicted_amount";
+
+    private static final int PSI_BINS = 10;
+
+    // Training column holding the target that predicted_amount is trained on
+    private static final Map<Product, String> AMOUNT_COLUMNS = Map.of(
+            Product.MORTGAGE, "max_borrow_amount",
+            Product.CREDIT_CARD, "predicted_limit",
+            Product.LOAN, "max_loan");
+
+    @Value("${drift.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${drift.baseline-dir:./model-training/data}")
+    private String baselineDir;
+
+    @Value("${drift.merge-interval-seconds:60}")
+    private int mergeIntervalSeconds = 60;
+
+    @Value("${drift.window-intervals:30}")
+    private int windowIntervals = 30;
+
+    private final Map<Product, String[]> columns = new EnumMap<>(Product.class);
+    private final int[] offsets = new int[Product.values().length];
+    private final int size;
+
+    private final AtomicLongArray[] stripes;
+    private final ThreadLocal<double[]> scratch = ThreadLocal.withInitial(() -> new double[16]);
+
+    private final Map<Product, Map<String, QuantileSketch>> baselines = new EnumMap<>(Product.class);
+
+    private final Object windowLock = new Object();
+    private int[][] window;
+    private int windowPos;
+    private long lastMerge;
+
+    private ScheduledExecutorService merger;
+
+    public DriftMonitor() {
+        int offset = 0;
+        for (Product p : Product.values()) {
+            String[] cols = columnsFor(p);
+            columns.put(p, cols);
+            offsets[p.ordinal()] = offset;
+            offset += cols.length * QuantileSketch.BUCKETS;
+        }
+        size = offset;
+
+        int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        stripes = new AtomicLongArray[Math.min(n, 16)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLongArray(size);
+        }
+    }
+
+    private static String[] columnsFor(Product p) {
+        // Every schema slot, derived ones included, then the outputs
+        List<String> cols = new ArrayList<>(List.of(FeatureSchema.of(p).names()));
+        cols.add(PROB_APPROVED);
+        cols.add(PREDICTED_AMOUNT);
+        return cols.toArray(new String[0]);
+    }
+
+    @PostConstruct
+    public void init() {
+        lastMerge = System.currentTimeMillis();
+        if (!enabled) {
+            window = new int[1][size];
+            return;
+        }
+        window = new int[windowIntervals][size];
+        loadBaselines(Path.of(baselineDir));
+
+        merger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "drift-merger");
+            t.setDaemon(true);
+            return t;
+        });
+        merger.scheduleAtFixedRate(this::merge, mergeIntervalSeconds, mergeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (merger != null) {
+            merger.shutdownNow();
+        }
+    }
+
+    /**
+     * Counts one scored request. Outputs may be NaN when no model ran.
+     */
+    public void observe(Product product, Object request, double probApproved, double predictedAmount) {
+        if (!enabled) {
+            return;
+        }
+        double[] x = scratch.get();
+        FeatureSchema schema = FeatureSchema.of(product);
+        schema.fill(request, x);
+
+        int c = schema.size();
+        x[c++] = probApproved;
+        x[c++] = predictedAmount;
+
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        int base = offsets[product.ordinal()];
+        for (int i = 0; i < c; i++) {
+            double v = x[i];
+            if (!Double.isNaN(v) && !Double.isInfinite(v)) {
+                stripe.getAndIncrement(base + i * QuantileSketch.BUCKETS + QuantileSketch.bucket(v));
+            }
+        }
+    }
+
+    /**
+     * Drains the stripes into the next window interval.
+     */
+    void merge() {
+        synchronized (windowLock) {
+            windowPos = (windowPos + 1) % window.length;
+            int[] interval = window[windowPos];
+            Arrays.fill(interval, 0);
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < size; i++) {
+                    if (stripe.get(i) != 0) {
+                        interval[i] += (int) stripe.getAndSet(i, 0);
+                    }
+                }
+            }
+            lastMerge = System.currentTimeMillis();
+        }
+    }
+
+    QuantileSketch live(Product product, int column) {
+        QuantileSketch s = new QuantileSketch();
+        int start = offsets[product.ordinal()] + column * QuantileSketch.BUCKETS;
+        synchronized (windowLock) {
+            for (int[] interval : window) {
+                for (int b = 0; b < QuantileSketch.BUCKETS; b++) {
+                    if (interval[start + b] != 0) {
+                        s.addToBucket(b, interval[start + b]);
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    void loadBaselines(Path dir) {
+        for (Product p : Product.values()) {
+            Path file = dir.resolve(p.trainingFile());
+            if (!Files.exists(file)) {
+                log.warn("No drift baseline for {}: {} not found", p, file);
+                continue;
+            }
+            try {
+                baselines.put(p, readBaseline(p, file));
+                log.info("Loaded {} drift baseline from {}", p, file);
+            } catch (Exception e) {
+                log.error("Error reading drift baseline {}: {}", file, e.getMessage(), e);
+            }
+        }
+    }
+
+    private Map<String, QuantileSketch> readBaseline(Product product, Path file) throws IOException {
+        String[] cols = columns.get(product);
+        Map<String, QuantileSketch> sketches = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> header = List.of(reader.readLine().trim().split(","));
+            int[] index = new int[cols.length];
+            for (int i = 0; i < cols.length; i++) {
+                String name = PREDICTED_AMOUNT.equals(cols[i]) ? AMOUNT_COLUMNS.get(product) : cols[i];
+                index[i] = name == null ? -1 : header.indexOf(name);
+                if (index[i] >= 0) {
+                    sketches.put(cols[i], new QuantileSketch());
+                }
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                for (int i = 0; i < cols.length; i++) {
+                    if (index[i] >= 0 && index[i] < values.length) {
+                        try {
+                            sketches.get(cols[i]).add(Double.parseDouble(values[index[i]]));
+                        } catch (NumberFormatException ignored) {
+                            // non-numeric cell, skip
+                        }
+                    }
+                }
+            }
+        }
+        return sketches;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("window_seconds", (long) mergeIntervalSeconds * windowIntervals);
+        out.put("last_merge", Instant.ofEpochMilli(lastMerge).toString());
+
+        Map<String, Object> products = new LinkedHashMap<>();
+        for (Product p : Product.values()) {
+            String[] cols = columns.get(p);
+            Map<String, QuantileSketch> base = baselines.getOrDefault(p, Map.of());
+            Map<String, Object> features = new LinkedHashMap<>();
+            for (int i = 0; i < cols.length; i++) {
+                QuantileSketch live = live(p, i);
+                QuantileSketch expected = base.get(cols[i]);
+                Map<String, Object> f = new LinkedHashMap<>();
+                f.put("count", live.count());
+                f.put("p50", nullIfNaN(live.quantile(0.5)));
+                f.put("p90", nullIfNaN(live.quantile(0.9)));
+                if (expected != null) {
+                    f.put("baseline_p50", nullIfNaN(expected.quantile(0.5)));
+                    f.put("baseline_p90", nullIfNaN(expected.quantile(0.9)));
+                    f.put("psi", nullIfNaN(live.psi(expected, PSI_BINS)));
+                    f.put("ks", nullIfNaN(live.ks(expected)));
+                }
+                features.put(cols[i], f);
+            }
+            products.put(p.code(), features);
+        }
+        out.put("products", products);
+        return out;
+    }
+
+    private static Double nullIfNaN(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
+}
@@ -0,0 +1,174 @@
+package aqubesolutions.aicredit.predictor.drift;
+
+/**
+ * Log-bucketed quantile sketch (in the style of DDSketch).
+ *
+ * Every instance shares the same fixed bucket grid, so sketches merge by
+ * adding counts and two sketches can be compared bucket by bucket. Quantiles
+ * are accurate to about 2% relative error for values between
+ * {@link #MIN_VALUE} and {@link #MAX_VALUE}; smaller values (including zero
+ * and negatives) share the first bucket and larger ones the last.
+ */
+public class QuantileSketch {
+
+    static final double RELATIVE_ACCURACY = 0.02;
+    static final double MIN_VALUE = 1e-4;
+    static final double MAX_VALUE = 1e9;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MIN_KEY = (int) Math.ceil(Math.log(MIN_VALUE) / LOG_GAMMA);
+    private static final int MAX_KEY = (int) Math.ceil(Math.log(MAX_VALUE) / LOG_GAMMA);
+
+    /**
+     * Buckets per sketch: one for values at or below MIN_VALUE plus the log range.
+     */
+    public static final int BUCKETS = MAX_KEY - MIN_KEY + 2;
+
+    private final long[] counts;
+    private long count;
+
+    public QuantileSketch() {
+        this.counts = new long[BUCKETS];
+    }
+
+    /**
+     * Bucket holding {@code value}. Callers must skip NaN.
+     */
+    public static int bucket(double value) {
+        if (value <= MIN_VALUE) {
+            return 0;
+        }
+        if (value >= MAX_VALUE) {
+            return BUCKETS - 1;
+        }
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA) - MIN_KEY + 1;
+    }
+
+    /**
+     * Representative value of a bucket, within the relative accuracy of
+     * everything counted in it.
+     */
+    public static double value(int bucket) {
+        if (bucket == 0) {
+            return 0.0;
+        }
+        return 2 * Math.pow(GAMMA, bucket + MIN_KEY - 1) / (GAMMA + 1);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        counts[bucket(value)]++;
+        count++;
+    }
+
+    void addToBucket(int bucket, long n) {
+        counts[bucket] += n;
+        count += n;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return value(i);
+            }
+        }
+        return value(BUCKETS - 1);
+    }
+
+    /**
+     * Fraction of values at or below {@code x}, resolved to bucket precision.
+     */
+    public double cdf(double x) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        int last = bucket(x);
+        long n = 0;
+        for (int i = 0; i <= last; i++) {
+            n += counts[i];
+        }
+        return (double) n / count;
+    }
+
+    /**
+     * Kolmogorov-Smirnov statistic: the largest gap between the two
+     * cumulative distributions over the shared bucket grid.
+     */
+    public double ks(QuantileSketch other) {
+        if (count == 0 || other.count == 0) {
+            return Double.NaN;
+        }
+        long a = 0;
+        long b = 0;
+        double max = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            a += counts[i];
+            b += other.counts[i];
+            max = Math.max(max, Math.abs((double) a / count - (double) b / other.count));
+        }
+        return max;
+    }
+
+    /**
+     * Population stability index of this sketch against {@code expected},
+     * using {@code bins} quantile bins of the expected distribution plus one
+     * for values below its minimum.
+     */
+    public double psi(QuantileSketch expected, int bins) {
+        if (count == 0 || expected.count == 0) {
+            return Double.NaN;
+        }
+        final double eps = 1e-4;
+        double psi = 0;
+        double prevE = 0;
+        double prevA = 0;
+        int prevBucket = -1;
+        // Bin 0 holds whatever falls below the smallest expected value.
+        for (int b = 0; b <= bins; b++) {
+            int edge = b == 0 ? bucket(expected.quantile(0)) - 1
+                    : b == bins ? BUCKETS - 1
+                    : bucket(expected.quantile((double) b / bins));
+            if (edge <= prevBucket) {
+                // Several quantiles fell into the same bucket; merge those bins.
+                continue;
+            }
+            double e = cumulative(expected, edge);
+            double a = cumulative(this, edge);
+            double pe = Math.max(e - prevE, eps);
+            double pa = Math.max(a - prevA, eps);
+            psi += (pa - pe) * Math.log(pa / pe);
+            prevE = e;
+            prevA = a;
+            prevBucket = edge;
+        }
+        return psi;
+    }
+
+    private static double cumulative(QuantileSketch s, int lastBucket) {
+        long n = 0;
+        for (int i = 0; i <= lastBucket; i++) {
+            n += s.counts[i];
+        }
+        return (double) n / s.count;
+    }
+}
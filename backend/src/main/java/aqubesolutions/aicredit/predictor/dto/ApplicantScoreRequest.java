@@ -0,0 +1,40 @@
+package aqubesolutions.aicredit.predictor.dto;
+
+/**
+ * One applicant scored for several products at once. The applicant fields
+ * are shared by every product; only the products with a section are scored.
+ */
+public class ApplicantScoreRequest {
+    public Integer age;
+    public Double annual_income;
+    public Double monthly_debt;
+
+    public MortgageSection mo;
+    public CreditCardSection cc;
+    public LoanSection ln;
+    public CurrentAccountSection ca;
+
+    public static class MortgageSection {
+        public Double property_price;
+        public Double deposit_amount;
+        public Double requested_loan;
+        public Integer mortgage_term_years;
+        public Integer mortgage_term_months;
+    }
+
+    public static class CreditCardSection {
+        public Double existing_cc_balance;
+        public Double total_cc_limit;
+        public Double requested_limit;
+    }
+
+    public static class LoanSection {
+        public Double requested_loan;
+        public Integer loan_term_months;
+    }
+
+    public static class CurrentAccountSection {
+        public Double avg_monthly_balance;
+        public Double overdraft_usage;
+    }
+}
@@ -0,0 +1,15 @@
+package aqubesolutions.aicredit.predictor.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ApplicantScoreResponse {
+    // Null when the product was not requested or failed
+    public ScoreResponse mo;
+    public SimpleScoreResponse cc;
+    public SimpleScoreResponse ln;
+    public ApprovalOnlyResponse ca;
+
+    // Product code to the error body its own endpoint would have returned
+    public Map<String, Object> errors = new LinkedHashMap<>();
+}
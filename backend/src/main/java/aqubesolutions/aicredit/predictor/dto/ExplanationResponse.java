@@ -0,0 +1,31 @@
+package aqubesolutions.aicredit.predictor.dto;
+
+import java.util.List;
+
+/**
+ * Why the approval model scored an applicant as it did. Contributions are
+ * TreeSHAP values in log-odds of approval: they sum with {@code bias} to the
+ * model's raw score, and negative values push towards decline. For a stacked
+ * ensemble (the mortgage model) they are its GBM base model's.
+ */
+public class ExplanationResponse {
+    // Final decision, as returned by the scoring endpoint
+    public String label;
+    public double prob_approved;
+
+    // Approval model output, also when a policy rule declined first
+    public double model_prob_approved;
+
+    public String policy_decline_reason;
+    public double bias;
+    public List<Contribution> contributions;
+
+    // Policy decline reason if any, then the features that lowered the score most
+    public List<String> decline_reasons;
+
+    public static class Contribution {
+        public String feature;
+        public String value;
+        public double contribution;
+    }
+}
@@ -0,0 +1,10 @@
+package aqubesolutions.aicredit.predictor.dto;
+
+public class StressScenario {
+    public String name;
+
+    // Relative shocks, e.g. -0.1 for a 10% fall; a missing shock is no change
+    public Double income_change;
+    public Double property_price_change;
+    public Double debt_change;
+}
@@ -0,0 +1,259 @@
+package aqubesolutions.aicredit.predictor.model;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackend;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Keeps several versions of each model resident, sharing identical MOJO
+ * content between them.
+ *
+ * h2o-genmodel parses the text entries (model.ini, domains) into the model
+ * and keeps the binary tree blobs it reads as they are. Models are loaded
+ * through a reader that stores each binary entry once in a pool keyed by its
+ * SHA-256 digest and hands genmodel the pooled array, so two versions that
+ * share trees share the same {@code byte[]} instances on the heap. Text
+ * entries and entries genmodel never asks for, such as
+ * {@code experimental/modelDetails.json}, are dropped once the model has
+ * loaded. Retraining that changes a few trees therefore costs only the
+ * changed trees.
+ */
+@Component
+public class ModelStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelStore.class);
+
+    public static final String DEFAULT_VERSION = "default";
+
+    /**
+     * Extra versions to load at startup, as {@code name@version=path} pairs
+     * separated by commas, e.g. {@code mo-approval@v2=/opt/models/mo_approval_v2.zip}.
+     */
+    @Value("${model-store.versions:}")
+    private String extraVersions = "";
+
+    private final Map<String, Map<String, StoredModel>> models = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> blobs = new HashMap<>();
+    private final Map<String, Integer> refs = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String spec : extraVersions.split(",")) {
+            if (spec.isBlank()) {
+                continue;
+            }
+            int at = spec.indexOf('@');
+            int eq = spec.indexOf('=');
+            if (at < 0 || eq < at) {
+                log.error("Ignoring model-store.versions entry '{}': expected name@version=path", spec);
+                continue;
+            }
+            String name = spec.substring(0, at).trim();
+            String version = spec.substring(at + 1, eq).trim();
+            String path = spec.substring(eq + 1).trim();
+            try {
+                load(name, version, path);
+            } catch (Exception e) {
+                log.error("Error loading {}@{} from {}: {}", name, version, path, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Loads a MOJO as {@code name@version}, replacing any model already
+     * resident under that name and version.
+     */
+    public synchronized StoredModel load(String name, String version, String path) throws IOException {
+        Map<String, byte[]> archive = new HashMap<>();
+        long archiveBytes = 0;
+        PooledReaderBackend reader = new PooledReaderBackend(archive);
+        boolean loaded = false;
+        try {
+            try (InputStream in = Files.newInputStream(Path.of(path));
+                 ZipInputStream zip = new ZipInputStream(in)) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    byte[] data = zip.readAllBytes();
+                    archive.put(entry.getName(), data);
+                    archiveBytes += data.length;
+                }
+            }
+
+            MojoModel model = MojoModel.load(reader);
+
+            StoredModel stored = new StoredModel(name, version, path, model, reader.retained,
+                    reader.retainedBytes, archiveBytes);
+            StoredModel previous = models.computeIfAbsent(name, n -> new ConcurrentHashMap<>()).put(version, stored);
+            if (previous != null) {
+                release(previous.entries);
+            }
+            loaded = true;
+            log.info("Model store holds {}@{} ({} of {} archive bytes retained, {} bytes resident in pool)",
+                    name, version, reader.retainedBytes, archiveBytes, poolBytes());
+            return stored;
+        } finally {
+            if (!loaded) {
+                release(reader.retained);
+            }
+        }
+    }
+
+    public StoredModel get(String name, String version) {
+        Map<String, StoredModel> versions = models.get(name);
+        return versions == null ? null : versions.get(version);
+    }
+
+    public List<String> versions(String name) {
+        Map<String, StoredModel> versions = models.get(name);
+        return versions == null ? List.of() : List.copyOf(versions.keySet());
+    }
+
+    public synchronized boolean unload(String name, String version) {
+        Map<String, StoredModel> versions = models.get(name);
+        StoredModel removed = versions == null ? null : versions.remove(version);
+        if (removed == null) {
+            return false;
+        }
+        release(removed.entries);
+        return true;
+    }
+
+    private void release(Map<String, String> entries) {
+        for (String digest : entries.values()) {
+            if (refs.merge(digest, -1, Integer::sum) <= 0) {
+                refs.remove(digest);
+                blobs.remove(digest);
+            }
+        }
+    }
+
+    private long poolBytes() {
+        long n = 0;
+        for (byte[] b : blobs.values()) {
+            n += b.length;
+        }
+        return n;
+    }
+
+    /**
+     * Per-model footprint: {@code bytes} is the pooled content the model
+     * retains on the heap (its tree blobs), {@code unique_bytes} the part no
+     * other resident model shares, and {@code archive_bytes} the size of its
+     * MOJO entries for comparison. The totals compare the pool with loading
+     * every version separately.
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> byModel = new TreeMap<>();
+        long naive = 0;
+        for (Map<String, StoredModel> versions : models.values()) {
+            for (StoredModel m : versions.values()) {
+                long unique = 0;
+                for (String digest : m.entries.values()) {
+                    if (refs.getOrDefault(digest, 0) == 1) {
+                        unique += blobs.get(digest).length;
+                    }
+                }
+                Map<String, Object> s = new LinkedHashMap<>();
+                s.put("path", m.path);
+                s.put("bytes", m.bytes);
+                s.put("unique_bytes", unique);
+                s.put("shared_bytes", m.bytes - unique);
+                s.put("archive_bytes", m.archiveBytes);
+                byModel.put(m.name + "@" + m.version, s);
+                naive += m.bytes;
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("models", byModel);
+        out.put("resident_bytes", poolBytes());
+        out.put("unshared_bytes", naive);
+        out.put("blobs", blobs.size());
+        return out;
+    }
+
+    private static String digest(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serves MOJO entries from the archive as read. Binary entries, which
+     * genmodel keeps, are interned into the blob pool and returned as the
+     * pooled array itself, not a copy, which is what lets versions share
+     * tree blobs; genmodel only reads them. {@code retained} records each
+     * interned entry's digest so its reference can be released.
+     */
+    private final class PooledReaderBackend implements MojoReaderBackend {
+        private final Map<String, byte[]> archive;
+        final Map<String, String> retained = new LinkedHashMap<>();
+        long retainedBytes;
+
+        PooledReaderBackend(Map<String, byte[]> archive) {
+            this.archive = archive;
+        }
+
+        @Override
+        public BufferedReader getTextFile(String filename) throws IOException {
+            return new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(entry(filename)), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public byte[] getBinaryFile(String filename) throws IOException {
+            byte[] data = entry(filename);
+            String digest = retained.get(filename);
+            if (digest == null) {
+                digest = digest(data);
+                blobs.putIfAbsent(digest, data);
+                refs.merge(digest, 1, Integer::sum);
+                retained.put(filename, digest);
+                retainedBytes += data.length;
+            }
+            return blobs.get(digest);
+        }
+
+        @Override
+        public boolean exists(String filename) {
+            return archive.containsKey(filename);
+        }
+
+        private byte[] entry(String filename) throws IOException {
+            byte[] data = archive.get(filename);
+            if (data == null) {
+                throw new IOException("MOJO entry not found: " + filename);
+            }
+            return data;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package aqubesolutions.aicredit.predictor.model;
+
+import hex.genmodel.MojoModel;
+
+import java.util.Map;
+
+/**
+ * One resident version of a model. {@code entries} maps each MOJO archive
+ * entry the model retains to its content digest in the store's blob pool;
+ * {@code bytes} is their total size.
+ */
+public class StoredModel {
+    public final String name;
+    public final String version;
+    public final String path;
+    public final MojoModel model;
+    final Map<String, String> entries;
+    final long bytes;
+    final long archiveBytes;
+
+    StoredModel(String name, String version, String path, MojoModel model, Map<String, String> entries, long bytes,
+                long archiveBytes) {
+        this.name = name;
+        this.version = version;
+        this.path = path;
+        this.model = model;
+        this.entries = entries;
+        this.bytes = bytes;
+        this.archiveBytes = archiveBytes;
+    }
+}
@@ -0,0 +1,15 @@
+package aqubesolutions.aicredit.predictor.quota;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QuotaConfig {
+    @Bean
+    public FilterRegistrationBean<QuotaFilter> quotaFilter(QuotaService quotas) {
+        FilterRegistrationBean<QuotaFilter> registration = new FilterRegistrationBean<>(new QuotaFilter(quotas));
+        registration.addUrlPatterns("/api/score/*");
+        return registration;
+    }
+}
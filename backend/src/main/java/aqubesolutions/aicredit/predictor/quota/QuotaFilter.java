@@ -0,0 +1,61 @@
+package aqubesolutions.aicredit.predictor.quota;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Applies {@link QuotaService} to the servlet scoring endpoints. Rejected
+ * requests get 401 (unknown or missing key) or 429 with {@code Retry-After}
+ * and never reach the controller.
+ */
+public class QuotaFilter extends OncePerRequestFilter {
+
+    private final QuotaService quotas;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public QuotaFilter(QuotaService quotas) {
+        this.quotas = quotas;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !quotas.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Product product = QuotaService.productOf(request.getRequestURI());
+        if (product == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String apiKey = request.getHeader(QuotaService.API_KEY_HEADER);
+        long wait = quotas.acquire(apiKey, product);
+        if (wait == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (wait == QuotaService.UNKNOWN_CLIENT) {
+            response.setStatus(401);
+            mapper.writeValue(response.getOutputStream(), Map.of("error", "Unknown or missing API key"));
+        } else {
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(QuotaService.retryAfterSeconds(wait)));
+            mapper.writeValue(response.getOutputStream(), Map.of("error",
+                    "Quota exceeded for client " + quotas.clientName(apiKey) + " on product " + product.code()));
+        }
+    }
+}
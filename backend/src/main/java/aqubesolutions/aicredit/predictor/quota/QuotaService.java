@@ -0,0 +1,352 @@
+package aqubesolutions.aicredit.predictor.quota;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client, per-product request quotas for the scoring endpoints.
+ *
+ * Clients identify themselves with an {@code X-API-Key} header. Limits come
+ * from a JSON file that is re-read when it changes:
+ *
+ * <pre>
+ * {
+ *   "default": { "*": { "rate": 20, "burst": 40 } },
+ *   "clients": {
+ *     "broker-a": { "key": "...", "limits": { "*": { "rate": 50, "burst": 100 },
+ *                                             "mo": { "rate": 10, "burst": 20 } } }
+ *   }
+ * }
+ * </pre>
+ *
+ * {@code rate} is requests per second and {@code burst} the bucket size;
+ * {@code "*"} applies to products without their own entry, and a product
+ * with no limit at all is unlimited. {@code default} applies to requests
+ * without a key unless {@code quota.require-key} is set.
+ *
+ * If the file cannot be loaded at startup, every request is let through
+ * unlimited, with or without a key, until it loads; with
+ * {@code quota.require-key} startup fails instead.
+ *
+ * The request path reads one immutable table through a volatile field and
+ * takes a token with a single CAS; reloads build a new table, keeping the
+ * bucket state of limits that did not change.
+ */
+@Component
+public class QuotaService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaService.class);
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final long UNKNOWN_CLIENT = -1;
+
+    static final String ANONYMOUS = "anonymous";
+
+    private static final Product[] PRODUCTS = Product.values();
+    private static final String SCORE_PREFIX = "/api/score/";
+    private static final String STREAM_SUFFIX = "/stream";
+    private static final String APPROX_SUFFIX = "/approx";
+
+    @Value("${quota.enabled:false}")
+    private boolean enabled;
+
+    @Value("${quota.config-file:./quotas.json}")
+    private String configFile;
+
+    @Value("${quota.require-key:false}")
+    private boolean requireKey;
+
+    @Value("${quota.reload-interval-seconds:10}")
+    private int reloadIntervalSeconds = 10;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Usage> usage = new ConcurrentHashMap<>();
+
+    private volatile Table table = new Table(Map.of(), null, List.of(), false);
+    private long loadedModified;
+    private volatile String lastReload;
+    private volatile String lastError;
+
+    private ScheduledExecutorService reloader;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            if (requireKey) {
+                throw new IllegalStateException("Error loading quota config " + configFile
+                        + " with quota.require-key set: " + e.getMessage(), e);
+            }
+            log.error("Error loading quota config {}, requests are unlimited until it loads: {}",
+                    configFile, e.getMessage(), e);
+            Client unlimited = new Client(ANONYMOUS, new TokenBucket[PRODUCTS.length],
+                    usage.computeIfAbsent(ANONYMOUS, n -> new Usage()));
+            table = new Table(Map.of(), unlimited, List.of(unlimited), true);
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "quota-reloader");
+            t.setDaemon(true);
+            return t;
+        });
+        reloader.scheduleWithFixedDelay(this::reloadIfChanged,
+                reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes one request from the client's quota for the product. Returns 0 if
+     * allowed, {@link #UNKNOWN_CLIENT} if the key is missing or not
+     * configured, otherwise the nanoseconds until the next request would be
+     * allowed.
+     */
+    public long acquire(String apiKey, Product product) {
+        return acquire(apiKey, product, 1);
+    }
+
+    /**
+     * Takes {@code n} requests at once, for a batch or job; see
+     * {@link TokenBucket#tryAcquire(long, long)}. Returns as
+     * {@link #acquire(String, Product)} does.
+     */
+    public long acquire(String apiKey, Product product, long n) {
+        Client client = table.client(apiKey);
+        if (client == null) {
+            return UNKNOWN_CLIENT;
+        }
+        int i = product.ordinal();
+        TokenBucket bucket = client.buckets[i];
+        long wait = bucket == null ? 0 : bucket.tryAcquire(System.nanoTime(), n);
+        if (wait == 0) {
+            client.usage.allowed[i].add(n);
+        } else {
+            client.usage.rejected[i].add(n);
+        }
+        return wait;
+    }
+
+    /**
+     * Gives back {@code n} requests taken by a successful
+     * {@link #acquire(String, Product, long)}, when the call was refused for
+     * another product; they are counted as rejected instead.
+     */
+    public void release(String apiKey, Product product, long n) {
+        Client client = table.client(apiKey);
+        if (client == null) {
+            return;
+        }
+        int i = product.ordinal();
+        TokenBucket bucket = client.buckets[i];
+        if (bucket != null) {
+            bucket.refund(n);
+        }
+        client.usage.allowed[i].add(-n);
+        client.usage.rejected[i].add(n);
+    }
+
+    public String clientName(String apiKey) {
+        Client client = table.client(apiKey);
+        return client == null ? null : client.name;
+    }
+
+    /**
+     * Product of a {@code /api/score/<code>} or {@code /api/score/<code>/stream}
+     * path, or null for any other path.
+     */
+    public static Product productOf(String path) {
+        int end = path.endsWith(STREAM_SUFFIX) ? path.length() - STREAM_SUFFIX.length()
+                : path.endsWith(APPROX_SUFFIX) ? path.length() - APPROX_SUFFIX.length()
+                : path.length();
+        int slash = path.lastIndexOf('/', end - 1);
+        if (slash < 0 || !path.startsWith(SCORE_PREFIX, slash - SCORE_PREFIX.length() + 1)) {
+            return null;
+        }
+        for (Product p : PRODUCTS) {
+            String code = p.code();
+            if (end - slash - 1 == code.length() && path.startsWith(code, slash + 1)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    void reloadIfChanged() {
+        try {
+            Path path = Path.of(configFile);
+            if (Files.exists(path) && Files.getLastModifiedTime(path).toMillis() != loadedModified) {
+                reload();
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.error("Error reloading quota config {}, keeping previous limits: {}", configFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the config file. On error the current limits stay in place.
+     */
+    public synchronized void reload() throws IOException {
+        Path path = Path.of(configFile);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        JsonNode root = mapper.readTree(path.toFile());
+        if (root == null || !root.isObject()) {
+            throw new IOException("Quota config must be a JSON object");
+        }
+
+        Table previous = table;
+        Map<String, Client> byKey = new HashMap<>();
+        List<Client> clients = new ArrayList<>();
+
+        JsonNode clientsNode = root.path("clients");
+        for (Map.Entry<String, JsonNode> e : clientsNode.properties()) {
+            String key = e.getValue().path("key").asText("");
+            if (key.isBlank()) {
+                throw new IOException("Client '" + e.getKey() + "' has no key");
+            }
+            Client client = client(e.getKey(), e.getValue().path("limits"), previous.find(e.getKey()));
+            if (byKey.put(key, client) != null) {
+                throw new IOException("Duplicate key for client '" + e.getKey() + "'");
+            }
+            clients.add(client);
+        }
+
+        Client anonymous = null;
+        if (!requireKey) {
+            anonymous = client(ANONYMOUS, root.path("default"), previous.anonymous);
+            clients.add(anonymous);
+        }
+
+        table = new Table(byKey, anonymous, clients, false);
+        loadedModified = modified;
+        lastReload = Instant.now().toString();
+        lastError = null;
+        log.info("Loaded quotas for {} clients from {}", byKey.size(), configFile);
+    }
+
+    private Client client(String name, JsonNode limits, Client previous) throws IOException {
+        TokenBucket[] buckets = new TokenBucket[PRODUCTS.length];
+        JsonNode fallback = limits.path("*");
+        for (Product p : PRODUCTS) {
+            JsonNode limit = limits.has(p.code()) ? limits.get(p.code()) : fallback;
+            if (limit.isMissingNode() || limit.isNull()) {
+                continue;
+            }
+            if (!limit.has("rate")) {
+                throw new IOException("Limit for client '" + name + "', product " + p.code() + " has no rate");
+            }
+            double rate = limit.get("rate").asDouble();
+            int burst = limit.path("burst").asInt((int) Math.max(1, Math.ceil(rate)));
+            TokenBucket old = previous == null ? null : previous.buckets[p.ordinal()];
+            buckets[p.ordinal()] = old != null && old.sameLimit(rate, burst) ? old : new TokenBucket(rate, burst);
+        }
+        return new Client(name, buckets, usage.computeIfAbsent(name, n -> new Usage()));
+    }
+
+    public Map<String, Object> snapshot() {
+        Table t = table;
+        Map<String, Object> clients = new LinkedHashMap<>();
+        for (Client c : t.clients) {
+            Map<String, Object> products = new LinkedHashMap<>();
+            for (Product p : PRODUCTS) {
+                int i = p.ordinal();
+                TokenBucket b = c.buckets[i];
+                Map<String, Object> s = new LinkedHashMap<>();
+                s.put("rate", b == null ? null : b.ratePerSecond);
+                s.put("burst", b == null ? null : b.burst);
+                s.put("allowed", c.usage.allowed[i].sum());
+                s.put("rejected", c.usage.rejected[i].sum());
+                products.put(p.code(), s);
+            }
+            clients.put(c.name, products);
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("config_file", configFile);
+        out.put("require_key", requireKey);
+        out.put("last_reload", lastReload);
+        out.put("last_error", lastError);
+        out.put("clients", clients);
+        return out;
+    }
+
+    /**
+     * {@code open} is the fallback before a config has loaded: every key is
+     * taken as the anonymous client.
+     */
+    private record Table(Map<String, Client> byKey, Client anonymous, List<Client> clients, boolean open) {
+        Client client(String apiKey) {
+            if (apiKey == null || open) {
+                return anonymous;
+            }
+            return byKey.get(apiKey);
+        }
+
+        Client find(String name) {
+            for (Client c : clients) {
+                if (c.name.equals(name)) {
+                    return c;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record Client(String name, TokenBucket[] buckets, Usage usage) {
+    }
+
+    /**
+     * Counters per client name, kept across reloads.
+     */
+    private static final class Usage {
+        final LongAdder[] allowed = new LongAdder[PRODUCTS.length];
+        final LongAdder[] rejected = new LongAdder[PRODUCTS.length];
+
+        Usage() {
+            for (int i = 0; i < PRODUCTS.length; i++) {
+                allowed[i] = new LongAdder();
+                rejected[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package aqubesolutions.aicredit.predictor.quota;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket held in a single word, using the GCRA formulation: instead
+ * of a token count and a refill timestamp, the bucket stores the
+ * theoretical arrival time of the next request. Taking a token is one CAS,
+ * with no lock and no allocation.
+ */
+final class TokenBucket {
+
+    private static final long MAX_COST = Long.MAX_VALUE / 4;
+
+    final double ratePerSecond;
+    final int burst;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong tat;
+
+    TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.intervalNanos = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+        this.burstNanos = intervalNanos * this.burst;
+        this.tat = new AtomicLong(System.nanoTime());
+    }
+
+    boolean sameLimit(double rate, int burst) {
+        return ratePerSecond == rate && this.burst == Math.max(1, burst);
+    }
+
+    /**
+     * Takes one token. Returns 0 on success, otherwise the nanoseconds until
+     * a token will be available.
+     */
+    long tryAcquire(long now) {
+        return tryAcquire(now, 1);
+    }
+
+    /**
+     * Takes {@code n} tokens. Succeeds whenever one token is available, so a
+     * batch larger than the burst is still allowed: the bucket goes into
+     * debt and later requests wait until the rate has paid it back.
+     */
+    long tryAcquire(long now, long n) {
+        if (intervalNanos == 0) {
+            return TimeUnit.SECONDS.toNanos(1);
+        }
+        // Capped well below overflow; a debt of decades is as good as forever
+        long cost = n > MAX_COST / intervalNanos ? MAX_COST : intervalNanos * n;
+        for (;;) {
+            long t = tat.get();
+            long start = t - now > 0 ? t : now;
+            long wait = start + intervalNanos - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(t, start + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back {@code n} tokens taken by {@link #tryAcquire(long, long)}
+     * for a request that was then refused for another reason.
+     */
+    void refund(long n) {
+        if (intervalNanos == 0) {
+            return;
+        }
+        tat.addAndGet(-(n > MAX_COST / intervalNanos ? MAX_COST : intervalNanos * n));
+    }
+}
@@ -0,0 +1,175 @@
+package aqubesolutions.aicredit.predictor.reactive;
+
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking mirror of {@code ScoringController}.
+ *
+ * Bodies are decoded on the event loop as bytes arrive, so a slow upload
+ * holds no thread. Only the decoded request is handed to the scoring
+ * scheduler, which is bounded in threads and queued tasks; when it is full
+ * the request fails fast with 503.
+ *
+ * Each product also has a {@code /stream} variant that accepts a JSON array
+ * or NDJSON and streams one NDJSON result per item, in input order, as each
+ * is scored. A failing item yields an {@code {"error": ...}} line instead of
+ * ending the stream. With quotas on, each item takes a token as it is
+ * decoded; once the client is out of tokens the stream ends with a
+ * {@code {"status": 429, ...}} line and the rest of the body is not read.
+ */
+public class ReactiveScoringRoutes {
+
+    @FunctionalInterface
+    interface Scorer<T> {
+        Object score(T request) throws Exception;
+    }
+
+    private final MultiModelScoringService mortgageService;
+    private final CreditCardScoringService creditCardService;
+    private final LoanScoringService loanService;
+    private final CurrentAccountScoringService currentAccountService;
+    private final QuotaService quotas;
+    private final Scheduler scheduler;
+    private final int streamConcurrency;
+
+    public ReactiveScoringRoutes(MultiModelScoringService mortgageService,
+                                 CreditCardScoringService creditCardService,
+                                 LoanScoringService loanService,
+                                 CurrentAccountScoringService currentAccountService,
+                                 QuotaService quotas,
+                                 Scheduler scheduler,
+                                 int streamConcurrency) {
+        this.mortgageService = mortgageService;
+        this.creditCardService = creditCardService;
+        this.loanService = loanService;
+        this.currentAccountService = currentAccountService;
+        this.quotas = quotas;
+        this.scheduler = scheduler;
+        this.streamConcurrency = streamConcurrency;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/health", r -> ServerResponse.ok().bodyValue(mortgageService.isReady()
+                        ? Map.of("status", "UP")
+                        : Map.of("status", "DOWN", "reason", "Models not loaded")))
+                .POST("/api/score/mo", r -> single(r, ScoreRequest.class, mortgageService::score))
+                .POST("/api/score/cc", r -> single(r, CreditCardScoreRequest.class, creditCardService::score))
+                .POST("/api/score/ln", r -> single(r, LoanScoreRequest.class, loanService::score))
+                .POST("/api/score/ca", r -> single(r, CurrentAccountScoreRequest.class, currentAccountService::score))
+                .POST("/api/score/mo/stream", r -> stream(r, Product.MORTGAGE, ScoreRequest.class,
+                        mortgageService::score))
+                .POST("/api/score/cc/stream", r -> stream(r, Product.CREDIT_CARD, CreditCardScoreRequest.class,
+                        creditCardService::score))
+                .POST("/api/score/ln/stream", r -> stream(r, Product.LOAN, LoanScoreRequest.class,
+                        loanService::score))
+                .POST("/api/score/ca/stream", r -> stream(r, Product.CURRENT_ACCOUNT, CurrentAccountScoreRequest.class,
+                        currentAccountService::score))
+                .build();
+    }
+
+    private <T> Mono<ServerResponse> single(ServerRequest request, Class<T> type, Scorer<T> scorer) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(new ServerWebInputException("Request body is missing")))
+                .flatMap(req -> score(req, scorer))
+                .flatMap(res -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(res))
+                .onErrorResume(e -> ServerResponse.status(status(e))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(error(e)));
+    }
+
+    private <T> Mono<ServerResponse> stream(ServerRequest request, Product product, Class<T> type,
+                                            Scorer<T> scorer) {
+        String apiKey = request.headers().firstHeader(QuotaService.API_KEY_HEADER);
+        Flux<T> items = request.bodyToFlux(type);
+        if (quotas.isEnabled()) {
+            items = items.concatMap(req -> {
+                long wait = quotas.acquire(apiKey, product);
+                return wait == 0 ? Mono.just(req) : Mono.error(new QuotaExceeded(apiKey, product, wait));
+            });
+        }
+        // Items already admitted are still scored and written before the quota line
+        Flux<Object> results = items
+                .flatMapSequentialDelayError(req -> score(req, scorer)
+                        .onErrorResume(e -> Mono.just(error(e))), streamConcurrency, 32)
+                .onErrorResume(QuotaExceeded.class, e -> Mono.just(e.body()));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(results, Object.class);
+    }
+
+    private <T> Mono<Object> score(T request, Scorer<T> scorer) {
+        return Mono.fromCallable(() -> scorer.score(request)).subscribeOn(scheduler);
+    }
+
+    static int status(Throwable e) {
+        if (e instanceof ServerWebInputException || e instanceof DecodingException
+                || e instanceof ValidationException) {
+            return 400;
+        }
+        if (e instanceof IllegalStateException || e instanceof RejectedExecutionException) {
+            return 503;
+        }
+        return 500;
+    }
+
+    static Object error(Throwable e) {
+        return e instanceof ValidationException ve ? ve.body() : Map.of("error", message(e));
+    }
+
+    private final class QuotaExceeded extends RuntimeException {
+        private final String apiKey;
+        private final Product product;
+        private final long waitNanos;
+
+        QuotaExceeded(String apiKey, Product product, long waitNanos) {
+            super(null, null, false, false);
+            this.apiKey = apiKey;
+            this.product = product;
+            this.waitNanos = waitNanos;
+        }
+
+        Map<String, Object> body() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            if (waitNanos == QuotaService.UNKNOWN_CLIENT) {
+                out.put("status", 401);
+                out.put("error", "Unknown or missing API key");
+            } else {
+                out.put("status", 429);
+                out.put("error", "Quota exceeded for client " + quotas.clientName(apiKey)
+                        + " on product " + product.code());
+                out.put("retry_after", QuotaService.retryAfterSeconds(waitNanos));
+            }
+            return out;
+        }
+    }
+
+    static String message(Throwable e) {
+        if (e instanceof RejectedExecutionException) {
+            return "Scoring queue full";
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
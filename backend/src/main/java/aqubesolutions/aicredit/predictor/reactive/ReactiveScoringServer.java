@@ -0,0 +1,148 @@
+package aqubesolutions.aicredit.predictor.reactive;
+
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.Map;
+
+/**
+ * Runs {@link ReactiveScoringRoutes} on its own Netty server next to the
+ * servlet one, so the blocking MVC API and the UI are unchanged. Off unless
+ * {@code reactive.enabled=true}.
+ */
+@Component
+public class ReactiveScoringServer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveScoringServer.class);
+
+    private static final String STREAM_SUFFIX = "/stream";
+
+    @Value("${reactive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${reactive.port:8081}")
+    private int port = 8081;
+
+    // 0 = one per core
+    @Value("${reactive.scoring-threads:0}")
+    private int scoringThreads;
+
+    @Value("${reactive.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    // Items of one streamed request scored concurrently; 0 = scoring-threads
+    @Value("${reactive.stream-concurrency:0}")
+    private int streamConcurrency;
+
+    private final MultiModelScoringService mortgageService;
+    private final CreditCardScoringService creditCardService;
+    private final LoanScoringService loanService;
+    private final CurrentAccountScoringService currentAccountService;
+    private final ObjectMapper objectMapper;
+    private final QuotaService quotas;
+
+    private Scheduler scheduler;
+    private DisposableServer server;
+
+    public ReactiveScoringServer(MultiModelScoringService mortgageService,
+                                 CreditCardScoringService creditCardService,
+                                 LoanScoringService loanService,
+                                 CurrentAccountScoringService currentAccountService,
+                                 ObjectMapper objectMapper,
+                                 QuotaService quotas) {
+        this.mortgageService = mortgageService;
+        this.creditCardService = creditCardService;
+        this.loanService = loanService;
+        this.currentAccountService = currentAccountService;
+        this.objectMapper = objectMapper;
+        this.quotas = quotas;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int threads = scoringThreads > 0 ? scoringThreads : Runtime.getRuntime().availableProcessors();
+        scheduler = Schedulers.newBoundedElastic(threads, queueCapacity, "reactive-scorer", 60, true);
+
+        ReactiveScoringRoutes routes = new ReactiveScoringRoutes(mortgageService, creditCardService,
+                loanService, currentAccountService, quotas, scheduler,
+                streamConcurrency > 0 ? streamConcurrency : threads);
+
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(c -> {
+                    c.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    c.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                })
+                .build();
+
+        server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(withQuotas(routes.routes()), strategies)))
+                .bindNow();
+        log.info("Reactive scoring API listening on port {} ({} scoring threads, queue {})",
+                server.port(), threads, queueCapacity);
+    }
+
+    /**
+     * Same checks as the servlet {@code QuotaFilter}. A streamed request only
+     * has its key checked here; the routes charge each of its items.
+     */
+    private RouterFunction<ServerResponse> withQuotas(RouterFunction<ServerResponse> routes) {
+        return routes.filter((request, next) -> {
+            Product product = quotas.isEnabled() ? QuotaService.productOf(request.path()) : null;
+            if (product == null) {
+                return next.handle(request);
+            }
+            String apiKey = request.headers().firstHeader(QuotaService.API_KEY_HEADER);
+            long wait = request.path().endsWith(STREAM_SUFFIX)
+                    ? (quotas.clientName(apiKey) == null ? QuotaService.UNKNOWN_CLIENT : 0)
+                    : quotas.acquire(apiKey, product);
+            if (wait == 0) {
+                return next.handle(request);
+            }
+            if (wait == QuotaService.UNKNOWN_CLIENT) {
+                return ServerResponse.status(401).contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("error", "Unknown or missing API key"));
+            }
+            return ServerResponse.status(429).contentType(MediaType.APPLICATION_JSON)
+                    .header("Retry-After", String.valueOf(QuotaService.retryAfterSeconds(wait)))
+                    .bodyValue(Map.of("error", "Quota exceeded for client " + quotas.clientName(apiKey)
+                            + " on product " + product.code()));
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+}
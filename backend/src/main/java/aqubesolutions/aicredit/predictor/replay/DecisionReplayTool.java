@@ -0,0 +1,120 @@
+package aqubesolutions.aicredit.predictor.replay;
+
+import aqubesolutions.aicredit.predictor.audit.AuditLog;
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import aqubesolutions.aicredit.predictor.service.ApproximationTables;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.ShadowScoringService;
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replays a decision history through the models configured for this build
+ * and prints a per-product summary of what changed.
+ *
+ * <pre>
+ * java -cp app.jar -Dloader.main=aqubesolutions.aicredit.predictor.replay.DecisionReplayTool \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --input history.ndjson [--audit] [--diffs diffs.ndjson] \
+ *     [--prob-tolerance 0.01] [--amount-tolerance 1] [--threads 8]
+ * </pre>
+ *
+ * {@code --audit} reads {@code --input} as an audit log directory instead of
+ * NDJSON. Model paths come from the usual {@code MODEL_*} variables.
+ *
+ * The tool starts only the scoring services and what they depend on, with
+ * audit, drift, shadow, decision statistics and approximation tables
+ * switched off; no web server, jobs, sessions, reactive server or stress
+ * book. It can run next to a live server sharing its directories.
+ */
+public final class DecisionReplayTool {
+
+    private DecisionReplayTool() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        if (!opts.containsKey("input")) {
+            System.err.println("usage: DecisionReplayTool --input <file|dir> [--audit] [--diffs <file>] "
+                    + "[--prob-tolerance p] [--amount-tolerance a] [--threads n]");
+            System.exit(1);
+        }
+
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ScoringOnly.class)
+                .web(WebApplicationType.NONE)
+                .properties("audit.enabled=false", "drift.enabled=false", "decision-stats.enabled=false",
+                        "approx.enabled=false", "model-store.versions=", "shadow.mo-approval-path=",
+                        "shadow.cc-approval-path=", "shadow.ln-approval-path=", "shadow.ca-approval-path=")
+                .run();
+
+        try (ctx) {
+            DecisionReplayer replayer = new DecisionReplayer(
+                    ctx.getBean(MultiModelScoringService.class),
+                    ctx.getBean(CreditCardScoringService.class),
+                    ctx.getBean(LoanScoringService.class),
+                    ctx.getBean(CurrentAccountScoringService.class))
+                    .probTolerance(Double.parseDouble(opts.getOrDefault("prob-tolerance", "0.01")))
+                    .amountTolerance(Double.parseDouble(opts.getOrDefault("amount-tolerance", "1")))
+                    .threads(Integer.parseInt(opts.getOrDefault("threads",
+                            String.valueOf(Runtime.getRuntime().availableProcessors()))));
+
+            Path input = Path.of(opts.get("input"));
+            String diffsPath = opts.get("diffs");
+            try (Writer diffs = diffsPath == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(Path.of(diffsPath), StandardCharsets.UTF_8)) {
+
+                DecisionReplayer.Summary summary = opts.containsKey("audit")
+                        ? replayer.replayAuditLog(input, diffs)
+                        : replayer.replayNdjson(input, diffs);
+
+                System.err.println(new ObjectMapper()
+                        .enable(SerializationFeature.INDENT_OUTPUT)
+                        .writeValueAsString(summary.toMap()));
+            }
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @Import({MultiModelScoringService.class, CreditCardScoringService.class, LoanScoringService.class,
+            CurrentAccountScoringService.class, PolicyRuleEngine.class, ModelStore.class, ShadowScoringService.class,
+            AuditLog.class, DriftMonitor.class, DecisionStats.class, ApproximationTables.class})
+    static class ScoringOnly {
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                continue;
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                opts.put(key, args[++i]);
+            } else {
+                opts.put(key, "true");
+            }
+        }
+        return opts;
+    }
+}
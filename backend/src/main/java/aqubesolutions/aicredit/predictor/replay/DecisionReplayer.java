@@ -0,0 +1,330 @@
+package aqubesolutions.aicredit.predictor.replay;
+
+import aqubesolutions.aicredit.predictor.audit.AuditLogReader;
+import aqubesolutions.aicredit.predictor.audit.AuditRecord;
+import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Streams past decisions through the current scoring services and reports
+ * those whose outcome changed. Requests are validated as the scoring
+ * endpoints would, then scored without side effects, so a replay never
+ * reaches the audit log, drift, shadow or decision statistics.
+ *
+ * Records are parsed and scored on a fixed pool fed through a bounded queue;
+ * when the queue is full the reading thread scores the record itself, so
+ * memory stays bounded however long the history is. Only differences are
+ * written out, one JSON object per line.
+ */
+public class DecisionReplayer {
+
+    private final MultiModelScoringService mortgageService;
+    private final CreditCardScoringService creditCardService;
+    private final LoanScoringService loanService;
+    private final CurrentAccountScoringService currentAccountService;
+
+    // Flat records carry the outcome next to the request fields; like the
+    // scoring API, ignore fields the request type does not have
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private double probTolerance = 0.01;
+    private double amountTolerance = 1.0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public DecisionReplayer(MultiModelScoringService mortgageService,
+                            CreditCardScoringService creditCardService,
+                            LoanScoringService loanService,
+                            CurrentAccountScoringService currentAccountService) {
+        this.mortgageService = mortgageService;
+        this.creditCardService = creditCardService;
+        this.loanService = loanService;
+        this.currentAccountService = currentAccountService;
+    }
+
+    public DecisionReplayer probTolerance(double probTolerance) {
+        this.probTolerance = probTolerance;
+        return this;
+    }
+
+    public DecisionReplayer amountTolerance(double amountTolerance) {
+        this.amountTolerance = amountTolerance;
+        return this;
+    }
+
+    public DecisionReplayer threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Replays an NDJSON history. Each line holds {@code product} and a
+     * {@code request} object (or the request fields at top level), plus the
+     * recorded {@code label}, {@code prob_approved} and
+     * {@code predicted_amount} if known; this is the format written by
+     * {@link AuditLogReader}.
+     */
+    public Summary replayNdjson(Path input, Writer diffs) throws IOException {
+        return run(diffs, submit -> {
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        String l = line;
+                        submit.accept(() -> fromJson(l));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Replays an audit log directory or file written by the audit subsystem.
+     */
+    public Summary replayAuditLog(Path input, Writer diffs) throws IOException {
+        return run(diffs, submit -> AuditLogReader.forEach(input, rec -> submit.accept(() -> fromAudit(rec))));
+    }
+
+    private Summary run(Writer diffs, Source source) throws IOException {
+        Summary summary = new Summary();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 256), new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        try {
+            source.forEach(parse -> pool.execute(() -> replayOne(parse, summary, diffs)));
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        diffs.flush();
+        return summary;
+    }
+
+    private void replayOne(Supplier<HistoricalDecision> parse, Summary summary, Writer diffs) {
+        HistoricalDecision past;
+        try {
+            past = parse.get();
+        } catch (RuntimeException e) {
+            summary.unreadable.increment();
+            return;
+        }
+
+        ProductDiff stats = summary.products.get(past.product());
+        stats.records.increment();
+
+        Outcome now;
+        try {
+            now = score(past.product(), past.request());
+        } catch (Exception e) {
+            stats.errors.increment();
+            return;
+        }
+
+        if (past.label() == null && Double.isNaN(past.probApproved())) {
+            return;
+        }
+        stats.compared.increment();
+
+        boolean flipped = past.label() != null && !past.label().equals(now.label);
+        double probDelta = Double.isNaN(past.probApproved()) ? 0.0 : now.probApproved - past.probApproved();
+        double amountDelta = Double.isNaN(past.predictedAmount()) || Double.isNaN(now.predictedAmount)
+                ? 0.0 : now.predictedAmount - past.predictedAmount();
+
+        if (flipped) {
+            stats.flips.increment();
+        }
+        stats.sumAbsAmountDrift.add(Math.abs(amountDelta));
+        stats.sumAmountDrift.add(amountDelta);
+
+        if (flipped || Math.abs(probDelta) > probTolerance || Math.abs(amountDelta) > amountTolerance) {
+            stats.differences.increment();
+            writeDiff(diffs, past, now, probDelta, amountDelta);
+        }
+    }
+
+    private void writeDiff(Writer diffs, HistoricalDecision past, Outcome now, double probDelta, double amountDelta) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("product", past.product().code());
+        out.put("request", past.request());
+        out.put("label_before", past.label());
+        out.put("label_after", now.label);
+        out.put("prob_approved_before", Double.isNaN(past.probApproved()) ? null : past.probApproved());
+        out.put("prob_approved_after", now.probApproved);
+        out.put("prob_delta", probDelta);
+        out.put("predicted_amount_before", Double.isNaN(past.predictedAmount()) ? null : past.predictedAmount());
+        out.put("predicted_amount_after", Double.isNaN(now.predictedAmount) ? null : now.predictedAmount);
+        out.put("amount_delta", amountDelta);
+        try {
+            String line = mapper.writeValueAsString(out);
+            synchronized (diffs) {
+                diffs.write(line);
+                diffs.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Outcome score(Product product, Object request) throws Exception {
+        RequestValidator.of(product).validate(request);
+        switch (product) {
+            case MORTGAGE: {
+                ScoreResponse r = mortgageService.predict((ScoreRequest) request);
+                return new Outcome(r.approval.label, r.approval.prob_approved, r.loanAmount.predicted_amount);
+            }
+            case CREDIT_CARD: {
+                SimpleScoreResponse r = creditCardService.predict((CreditCardScoreRequest) request);
+                return new Outcome(r.approval.label, r.approval.prob_approved, r.loanAmount.predicted_amount);
+            }
+            case LOAN: {
+                SimpleScoreResponse r = loanService.predict((LoanScoreRequest) request);
+                return new Outcome(r.approval.label, r.approval.prob_approved, r.loanAmount.predicted_amount);
+            }
+            default: {
+                ApprovalOnlyResponse r = currentAccountService.predict((CurrentAccountScoreRequest) request);
+                return new Outcome(r.approval.label, r.approval.prob_approved, Double.NaN);
+            }
+        }
+    }
+
+    HistoricalDecision fromJson(String line) {
+        try {
+            JsonNode node = mapper.readTree(line);
+            Product product = Product.fromCode(node.path("product").asText());
+            JsonNode request = node.has("request") ? node.get("request") : node;
+            return new HistoricalDecision(product,
+                    mapper.treeToValue(request, FeatureSchema.of(product).requestType()),
+                    node.hasNonNull("label") ? node.get("label").asText() : null,
+                    number(node, "prob_approved"),
+                    number(node, "predicted_amount"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HistoricalDecision fromAudit(AuditRecord rec) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        String[] names = rec.product.features();
+        for (int i = 0; i < names.length; i++) {
+            if (!Double.isNaN(rec.features[i])) {
+                fields.put(names[i], rec.features[i]);
+            }
+        }
+        return new HistoricalDecision(rec.product,
+                mapper.convertValue(fields, FeatureSchema.of(rec.product).requestType()),
+                rec.label, rec.probApproved, rec.predictedAmount);
+    }
+
+    private static double number(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asDouble() : Double.NaN;
+    }
+
+    private record Outcome(String label, double probApproved, double predictedAmount) {
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        void forEach(Consumer<Supplier<HistoricalDecision>> submit) throws IOException;
+    }
+
+    static class ProductDiff {
+        final LongAdder records = new LongAdder();
+        final LongAdder compared = new LongAdder();
+        final LongAdder flips = new LongAdder();
+        final LongAdder differences = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final DoubleAdder sumAmountDrift = new DoubleAdder();
+        final DoubleAdder sumAbsAmountDrift = new DoubleAdder();
+    }
+
+    public static class Summary {
+        final Map<Product, ProductDiff> products = new EnumMap<>(Product.class);
+        final LongAdder unreadable = new LongAdder();
+        long elapsedNanos;
+
+        Summary() {
+            for (Product p : Product.values()) {
+                products.put(p, new ProductDiff());
+            }
+        }
+
+        public long records() {
+            long n = 0;
+            for (ProductDiff d : products.values()) {
+                n += d.records.sum();
+            }
+            return n + unreadable.sum();
+        }
+
+        public double recordsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : records() / (elapsedNanos / 1e9);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("records", records());
+            out.put("unreadable", unreadable.sum());
+            out.put("elapsed_seconds", elapsedNanos / 1e9);
+            out.put("records_per_second", recordsPerSecond());
+
+            Map<String, Object> byProduct = new LinkedHashMap<>();
+            for (Map.Entry<Product, ProductDiff> e : products.entrySet()) {
+                ProductDiff d = e.getValue();
+                long compared = d.compared.sum();
+                if (d.records.sum() == 0) {
+                    continue;
+                }
+                Map<String, Object> p = new LinkedHashMap<>();
+                p.put("records", d.records.sum());
+                p.put("compared", compared);
+                p.put("errors", d.errors.sum());
+                p.put("differences", d.differences.sum());
+                p.put("flips", d.flips.sum());
+                p.put("flip_rate", compared == 0 ? 0.0 : (double) d.flips.sum() / compared);
+                p.put("mean_amount_drift", compared == 0 ? 0.0 : d.sumAmountDrift.sum() / compared);
+                p.put("mean_abs_amount_drift", compared == 0 ? 0.0 : d.sumAbsAmountDrift.sum() / compared);
+                byProduct.put(e.getKey().code(), p);
+            }
+            out.put("products", byProduct);
+            return out;
+        }
+    }
+}
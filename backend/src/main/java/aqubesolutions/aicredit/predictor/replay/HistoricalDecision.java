@@ -0,0 +1,11 @@
+package aqubesolutions.aicredit.predictor.replay;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+
+/**
+ * A past decision to replay: the request as sent and what was answered then.
+ * Missing outputs are null/NaN and are not compared.
+ */
+record HistoricalDecision(Product product, Object request, String label, double probApproved,
+                          double predictedAmount) {
+}
@@ -0,0 +1,272 @@
+package aqubesolutions.aicredit.predictor.schema;
+
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.service.Product;
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.RowData;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The feature vector of a product: a fixed integer slot for each request
+ * field, in {@link Product#features()} order, followed by the features
+ * derived from them (the mortgage loan-to-value).
+ *
+ * Request slots are bound to the request DTO's public fields when the class
+ * loads, and a model is bound to slots when it loads. A model column that
+ * does not match fails that load rather than scoring NaN: the service logs
+ * the error and its product answers "Models not loaded" (and, for
+ * mortgages, {@code /api/health} reports DOWN) while the application keeps
+ * running. After that every path (scoring, validation, audit, drift, the
+ * training and portfolio CSVs) fills and reads vectors by slot index; names
+ * are only used again to build the RowData the explanation and challenger
+ * wrappers need.
+ */
+public final class FeatureSchema {
+
+    // requested_loan / property_price, in percent like the training data
+    public static final String LTV = "ltv";
+
+    private static final FeatureSchema[] SCHEMAS = new FeatureSchema[Product.values().length];
+
+    static {
+        for (Product p : Product.values()) {
+            SCHEMAS[p.ordinal()] = switch (p) {
+                case MORTGAGE -> new FeatureSchema(p, ScoreRequest.class,
+                        new Ratio(LTV, "requested_loan", "property_price", 100.0));
+                case CREDIT_CARD -> new FeatureSchema(p, CreditCardScoreRequest.class);
+                case LOAN -> new FeatureSchema(p, LoanScoreRequest.class);
+                case CURRENT_ACCOUNT -> new FeatureSchema(p, CurrentAccountScoreRequest.class);
+            };
+        }
+    }
+
+    private final Product product;
+    private final Class<?> requestType;
+    private final String[] names;
+    private final Field[] fields;
+    private final boolean[] integral;
+    private final int[] numerators;
+    private final int[] denominators;
+    private final double[] scales;
+
+    private FeatureSchema(Product product, Class<?> requestType, Ratio... derived) {
+        this.product = product;
+        this.requestType = requestType;
+        String[] features = product.features();
+        this.fields = new Field[features.length];
+        this.names = new String[features.length + derived.length];
+        this.integral = new boolean[names.length];
+        for (int s = 0; s < features.length; s++) {
+            fields[s] = field(requestType, features[s]);
+            names[s] = features[s];
+            integral[s] = fields[s].getType() == Integer.class;
+        }
+
+        this.numerators = new int[derived.length];
+        this.denominators = new int[derived.length];
+        this.scales = new double[derived.length];
+        for (int d = 0; d < derived.length; d++) {
+            names[features.length + d] = derived[d].name;
+            numerators[d] = requestSlot(derived[d].numerator);
+            denominators[d] = requestSlot(derived[d].denominator);
+            scales[d] = derived[d].scale;
+        }
+    }
+
+    private static Field field(Class<?> type, String name) {
+        try {
+            Field f = type.getField(name);
+            if (Modifier.isStatic(f.getModifiers()) || !Number.class.isAssignableFrom(f.getType())) {
+                throw new IllegalStateException(type.getSimpleName() + "." + name + " is not a numeric field");
+            }
+            return f;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(type.getSimpleName() + " has no field " + name, e);
+        }
+    }
+
+    private int requestSlot(String name) {
+        for (int s = 0; s < fields.length; s++) {
+            if (names[s].equals(name)) {
+                return s;
+            }
+        }
+        throw new IllegalStateException(product + " has no feature " + name);
+    }
+
+    public static FeatureSchema of(Product product) {
+        return SCHEMAS[product.ordinal()];
+    }
+
+    public Product product() {
+        return product;
+    }
+
+    public Class<?> requestType() {
+        return requestType;
+    }
+
+    /**
+     * Number of slots, request and derived.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Number of request slots, which come first.
+     */
+    public int requestFields() {
+        return fields.length;
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * Slot of a feature, or -1. A linear scan, for binding only.
+     */
+    public int slot(String name) {
+        for (int s = 0; s < names.length; s++) {
+            if (names[s].equals(name)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fills every slot from a request: its fields, NaN where missing, then
+     * the derived features. {@code x} needs {@link #size()} elements.
+     */
+    public void fill(Object request, double[] x) {
+        fillRequest(request, x);
+        derive(x);
+    }
+
+    /**
+     * Fills the request slots only; {@code x} needs {@link #requestFields()}
+     * elements.
+     */
+    public void fillRequest(Object request, double[] x) {
+        for (int s = 0; s < fields.length; s++) {
+            x[s] = value(request, s);
+        }
+    }
+
+    /**
+     * One request field, NaN if missing.
+     */
+    public double value(Object request, int slot) {
+        try {
+            Number n = (Number) fields[slot].get(request);
+            return n == null ? Double.NaN : n.doubleValue();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the derived slots from the request slots already in {@code x}.
+     */
+    public void derive(double[] x) {
+        for (int d = 0; d < scales.length; d++) {
+            x[fields.length + d] = x[numerators[d]] / x[denominators[d]] * scales[d];
+        }
+    }
+
+    /**
+     * Binds a model's input columns to slots. Throws IllegalArgumentException
+     * if the model reads a column this schema does not have, or reads one as
+     * categorical.
+     */
+    public int[] bind(GenModel model) {
+        String[] columns = model.getNames();
+        int[] slots = new int[model.getNumCols()];
+        List<String> problems = new ArrayList<>();
+        for (int c = 0; c < slots.length; c++) {
+            slots[c] = slot(columns[c]);
+            if (slots[c] < 0) {
+                problems.add(columns[c] + " is not a " + product.code() + " feature");
+            } else if (model.getDomainValues(c) != null) {
+                problems.add(columns[c] + " is categorical in the model");
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Model does not match the " + product.code() + " schema: "
+                    + String.join("; ", problems));
+        }
+        return slots;
+    }
+
+    /**
+     * For each slot, its index in a CSV header, or -1 if the header does not
+     * have it.
+     */
+    public int[] columns(List<String> header) {
+        int[] index = new int[names.length];
+        for (int s = 0; s < names.length; s++) {
+            index[s] = header.indexOf(names[s]);
+        }
+        return index;
+    }
+
+    /**
+     * Fills the request slots from CSV cells found with {@link #columns}, NaN
+     * for an absent or empty cell, then derives the rest. Returns false if a
+     * cell is not a number.
+     */
+    public boolean parse(String[] cells, int[] columns, double[] x) {
+        for (int s = 0; s < fields.length; s++) {
+            int c = columns[s];
+            String v = c < 0 || c >= cells.length ? "" : cells[c].trim();
+            if (v.isEmpty()) {
+                x[s] = Double.NaN;
+                continue;
+            }
+            try {
+                x[s] = Double.parseDouble(v);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        derive(x);
+        return true;
+    }
+
+    /**
+     * {@link #rowData(double[])} for a request.
+     */
+    public RowData rowData(Object request) {
+        double[] x = new double[names.length];
+        fill(request, x);
+        return rowData(x);
+    }
+
+    /**
+     * A RowData holding every present slot, for the H2O wrappers. Request
+     * fields keep the format their DTO type gives them.
+     */
+    public RowData rowData(double[] x) {
+        RowData row = new RowData();
+        for (int s = 0; s < names.length; s++) {
+            double v = x[s];
+            if (Double.isNaN(v)) {
+                continue;
+            }
+            row.put(names[s], integral[s] ? String.valueOf((int) v) : String.valueOf(v));
+        }
+        return row;
+    }
+
+    private record Ratio(String name, String numerator, String denominator, double scale) {
+    }
+}
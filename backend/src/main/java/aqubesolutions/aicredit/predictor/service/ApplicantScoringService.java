@@ -0,0 +1,246 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores one applicant for every product they asked about in a single call.
+ *
+ * The applicant fields (age, income, debt) are read from the body once and
+ * copied into each product's request DTO; each product service then
+ * validates it and fills its own model's feature vector as its endpoint
+ * would. Sharing stops at the DTO on purpose: the vectors are buffers owned
+ * by each model's scorer, the shared part is three numbers, and every
+ * service needs the DTO anyway for its policy rules, audit and drift.
+ *
+ * Each product is validated on the request thread, then all but one are
+ * handed to a small pool and the remaining one is scored on the request
+ * thread, so the call takes about as long as the slowest product. When the
+ * pool's queue is full, or the pool has shut down, the request thread
+ * scores the product itself.
+ *
+ * A product that fails does not fail the others: its error is reported
+ * under its code with the status its own endpoint would have returned.
+ */
+@Service
+public class ApplicantScoringService {
+
+    @Autowired
+    private MultiModelScoringService mortgageService;
+
+    @Autowired
+    private CreditCardScoringService creditCardService;
+
+    @Autowired
+    private LoanScoringService loanService;
+
+    @Autowired
+    private CurrentAccountScoringService currentAccountService;
+
+    @Value("${applicant.threads:4}")
+    private int threads = 4;
+
+    @Value("${applicant.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "applicant-scorer-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Throws ValidationException when every requested product is invalid,
+     * and IllegalArgumentException when no product is requested.
+     */
+    public ApplicantScoreResponse score(ApplicantScoreRequest req) {
+        if (req == null || (req.mo == null && req.cc == null && req.ln == null && req.ca == null)) {
+            throw new IllegalArgumentException("At least one of mo, cc, ln or ca is required");
+        }
+        List<Part> parts = new ArrayList<>(4);
+        if (req.mo != null) {
+            ScoreRequest mo = mortgage(req);
+            parts.add(new Part(Product.MORTGAGE, mo, () -> mortgageService.score(mo)));
+        }
+        if (req.cc != null) {
+            CreditCardScoreRequest cc = creditCard(req);
+            parts.add(new Part(Product.CREDIT_CARD, cc, () -> creditCardService.score(cc)));
+        }
+        if (req.ln != null) {
+            LoanScoreRequest ln = loan(req);
+            parts.add(new Part(Product.LOAN, ln, () -> loanService.score(ln)));
+        }
+        if (req.ca != null) {
+            CurrentAccountScoreRequest ca = currentAccount(req);
+            parts.add(new Part(Product.CURRENT_ACCOUNT, ca, () -> currentAccountService.score(ca)));
+        }
+
+        // Invalid products are never handed off; the services check again
+        ValidationException firstInvalid = null;
+        List<Part> valid = new ArrayList<>(parts.size());
+        for (Part part : parts) {
+            try {
+                RequestValidator.of(part.product).validate(part.request);
+                valid.add(part);
+            } catch (ValidationException ve) {
+                part.error = ve;
+                if (firstInvalid == null) {
+                    firstInvalid = ve;
+                }
+            }
+        }
+        if (valid.isEmpty()) {
+            throw firstInvalid;
+        }
+
+        // Parts the pool rejects, when its queue is full or it has shut down, are scored here
+        List<Future<Object>> futures = new ArrayList<>(valid.size() - 1);
+        for (int i = 1; i < valid.size(); i++) {
+            try {
+                futures.add(pool.submit(valid.get(i).task));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+        run(valid.get(0));
+        for (int i = 1; i < valid.size(); i++) {
+            if (futures.get(i - 1) == null) {
+                run(valid.get(i));
+            }
+        }
+        for (int i = 1; i < valid.size(); i++) {
+            Part part = valid.get(i);
+            if (futures.get(i - 1) == null) {
+                continue;
+            }
+            try {
+                part.result = futures.get(i - 1).get();
+            } catch (ExecutionException e) {
+                part.error = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                part.error = new IllegalStateException("Interrupted while scoring");
+            }
+        }
+
+        ApplicantScoreResponse res = new ApplicantScoreResponse();
+        for (Part part : parts) {
+            if (part.error != null) {
+                res.errors.put(part.product.code(), ScoringErrors.body(part.error));
+                continue;
+            }
+            switch (part.product) {
+                case MORTGAGE -> res.mo = (ScoreResponse) part.result;
+                case CREDIT_CARD -> res.cc = (SimpleScoreResponse) part.result;
+                case LOAN -> res.ln = (SimpleScoreResponse) part.result;
+                case CURRENT_ACCOUNT -> res.ca = (ApprovalOnlyResponse) part.result;
+            }
+        }
+        return res;
+    }
+
+    private static void run(Part part) {
+        try {
+            part.result = part.task.call();
+        } catch (Exception e) {
+            part.error = e;
+        }
+    }
+
+    private static ScoreRequest mortgage(ApplicantScoreRequest req) {
+        ScoreRequest out = new ScoreRequest();
+        out.age = req.age;
+        out.annual_income = req.annual_income;
+        out.monthly_debt = req.monthly_debt;
+        out.property_price = req.mo.property_price;
+        out.deposit_amount = req.mo.deposit_amount;
+        out.requested_loan = req.mo.requested_loan;
+        out.mortgage_term_years = req.mo.mortgage_term_years;
+        out.mortgage_term_months = req.mo.mortgage_term_months;
+        return out;
+    }
+
+    private static CreditCardScoreRequest creditCard(ApplicantScoreRequest req) {
+        CreditCardScoreRequest out = new CreditCardScoreRequest();
+        out.age = req.age;
+        out.annual_income = req.annual_income;
+        out.monthly_debt = req.monthly_debt;
+        out.existing_cc_balance = req.cc.existing_cc_balance;
+        out.total_cc_limit = req.cc.total_cc_limit;
+        out.requested_limit = req.cc.requested_limit;
+        return out;
+    }
+
+    private static LoanScoreRequest loan(ApplicantScoreRequest req) {
+        LoanScoreRequest out = new LoanScoreRequest();
+        out.age = req.age;
+        out.annual_income = req.annual_income;
+        out.monthly_debt = req.monthly_debt;
+        out.requested_loan = req.ln.requested_loan;
+        out.loan_term_months = req.ln.loan_term_months;
+        return out;
+    }
+
+    private static CurrentAccountScoreRequest currentAccount(ApplicantScoreRequest req) {
+        CurrentAccountScoreRequest out = new CurrentAccountScoreRequest();
+        out.age = req.age;
+        out.annual_income = req.annual_income;
+        out.monthly_debt = req.monthly_debt;
+        out.avg_monthly_balance = req.ca.avg_monthly_balance;
+        out.overdraft_usage = req.ca.overdraft_usage;
+        return out;
+    }
+
+    private static final class Part {
+        final Product product;
+        final Object request;
+        final Callable<Object> task;
+        Object result;
+        Throwable error;
+
+        Part(Product product, Object request, Callable<Object> task) {
+            this.product = product;
+            this.request = request;
+            this.task = task;
+        }
+    }
+}
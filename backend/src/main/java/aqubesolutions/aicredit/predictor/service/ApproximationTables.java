@@ -0,0 +1,246 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import hex.genmodel.GenModel;
+import hex.genmodel.MojoModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Approximate approval scoring from precomputed tables, for products whose
+ * approval model has few numeric inputs.
+ *
+ * When enabled, a product's table is built as its model loads: knots are
+ * taken at quantiles of each feature in the training CSV, the model is
+ * scored at every grid point, and the table is then checked against the
+ * exact model on every training row. A product whose worst-case error is
+ * above {@code approx.max-error} refuses approximate requests.
+ */
+@Component
+public class ApproximationTables {
+
+    private static final Logger log = LoggerFactory.getLogger(ApproximationTables.class);
+
+    @Value("${approx.enabled:false}")
+    private boolean enabled;
+
+    @Value("${approx.grid-points:10}")
+    private int gridPoints = 10;
+
+    @Value("${approx.max-error:0.05}")
+    private double maxError = 0.05;
+
+    @Value("${approx.training-dir:./model-training/data}")
+    private String trainingDir;
+
+    // Copied on write; read on every approximate request
+    private volatile Map<Product, Entry> entries = new EnumMap<>(Product.class);
+
+    /**
+     * Builds and validates the table for a product's approval model. Errors
+     * are logged and leave the product without approximate scoring.
+     */
+    void build(Product product, GenModel mojo, ScorerPool model) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            FeatureSchema schema = FeatureSchema.of(product);
+            double[][] rows = readTrainingRows(product, Path.of(trainingDir).resolve(product.trainingFile()));
+
+            // The grid spans the request fields; derived features follow from them
+            double[][] knots = new double[schema.requestFields()][];
+            double[] column = new double[rows.length];
+            for (int d = 0; d < knots.length; d++) {
+                for (int i = 0; i < rows.length; i++) {
+                    column[i] = rows[i][d];
+                }
+                knots[d] = InterpolationTable.knots(column, Math.max(2, gridPoints));
+            }
+
+            // Grid cells are scored in parallel, so each thread uses its own scorer
+            ToDoubleFunction<double[]> exact = x -> {
+                ScorerPool.Scorer scorer = model.get();
+                double[] f = scorer.features();
+                System.arraycopy(x, 0, f, 0, knots.length);
+                schema.derive(f);
+                return scorer.score(f)[2];
+            };
+            InterpolationTable table = InterpolationTable.build(knots, exact);
+            long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+            String[] labels = mojo.getDomainValues(mojo.getResponseIdx());
+            // The threshold genmodel labels with; 0.5 is its own fallback
+            double threshold = mojo instanceof MojoModel m ? m._defaultThreshold : 0.5;
+            Entry e = new Entry(table, threshold, labels[0], labels[1], buildMillis);
+            e.validate(rows, exact, maxError);
+            put(product, e);
+
+            if (e.refusal != null) {
+                log.warn("{} approximate scoring disabled: {}", product, e.refusal);
+            } else {
+                log.info("{} approximation table: {} cells, {} bytes, max error {} over {} training rows",
+                        product, table.cells(), table.bytes(), e.maxError, e.validated);
+            }
+        } catch (Exception e) {
+            log.error("Error building {} approximation table: {}", product, e.getMessage(), e);
+        }
+    }
+
+    synchronized void put(Product product, Entry e) {
+        Map<Product, Entry> next = new EnumMap<>(entries);
+        next.put(product, e);
+        entries = next;
+    }
+
+    /**
+     * Interpolated approval for a feature vector laid out by the product's
+     * {@link FeatureSchema}, or null when a value is missing or outside the training range.
+     * Throws IllegalStateException when the product has no usable table.
+     */
+    public ScoreResponse.ApprovalPart approval(Product product, double[] x) {
+        Entry e = entries.get(product);
+        if (e == null) {
+            throw new IllegalStateException("Approximate scoring not available for " + product.code());
+        }
+        if (e.refusal != null) {
+            throw new IllegalStateException("Approximate scoring disabled: " + e.refusal);
+        }
+        double p = e.table.interpolate(x);
+        if (Double.isNaN(p)) {
+            return null;
+        }
+        ScoreResponse.ApprovalPart part = new ScoreResponse.ApprovalPart();
+        part.label = p >= e.threshold ? e.positive : e.negative;
+        part.prob_approved = p;
+        part.prob_declined = 1 - p;
+        return part;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("grid_points", gridPoints);
+        out.put("max_error_allowed", maxError);
+        Map<String, Object> products = new LinkedHashMap<>();
+        for (Map.Entry<Product, Entry> e : entries.entrySet()) {
+            products.put(e.getKey().code(), e.getValue().snapshot());
+        }
+        out.put("products", products);
+        return out;
+    }
+
+    /**
+     * Training rows with every request field present, laid out by the
+     * product's {@link FeatureSchema} with the derived features filled in.
+     */
+    static double[][] readTrainingRows(Product product, Path file) throws IOException {
+        FeatureSchema schema = FeatureSchema.of(product);
+        String[] names = schema.names();
+        List<double[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int[] columns = schema.columns(List.of(reader.readLine().trim().split(",")));
+            for (int s = 0; s < schema.requestFields(); s++) {
+                if (columns[s] < 0) {
+                    throw new IOException(file + " has no column " + names[s]);
+                }
+            }
+            String line;
+            rows:
+            while ((line = reader.readLine()) != null) {
+                double[] row = new double[schema.size()];
+                if (!schema.parse(line.split(","), columns, row)) {
+                    continue;
+                }
+                for (int s = 0; s < schema.requestFields(); s++) {
+                    if (Double.isNaN(row[s])) {
+                        continue rows;
+                    }
+                }
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IOException(file + " has no complete rows");
+        }
+        return rows.toArray(new double[0][]);
+    }
+
+    static final class Entry {
+        final InterpolationTable table;
+        final double threshold;
+        final String negative;
+        final String positive;
+        final long buildMillis;
+
+        int validated;
+        double maxError;
+        double meanError;
+        double labelAgreement;
+        String refusal;
+
+        Entry(InterpolationTable table, double threshold, String negative, String positive, long buildMillis) {
+            this.table = table;
+            this.threshold = threshold;
+            this.negative = negative;
+            this.positive = positive;
+            this.buildMillis = buildMillis;
+        }
+
+        void validate(double[][] rows, ToDoubleFunction<double[]> exact, double allowed) {
+            double sum = 0;
+            double max = 0;
+            int agree = 0;
+            for (double[] row : rows) {
+                double p = exact.applyAsDouble(row);
+                double q = table.interpolate(row);
+                double err = Math.abs(p - q);
+                sum += err;
+                max = Math.max(max, err);
+                if ((p >= threshold) == (q >= threshold)) {
+                    agree++;
+                }
+            }
+            validated = rows.length;
+            maxError = max;
+            meanError = sum / rows.length;
+            labelAgreement = (double) agree / rows.length;
+            if (!(max <= allowed)) {
+                refusal = "max error " + max + " over " + rows.length + " training rows exceeds " + allowed;
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("active", refusal == null);
+            out.put("shape", table.shape());
+            out.put("cells", table.cells());
+            out.put("bytes", table.bytes());
+            out.put("build_ms", buildMillis);
+            out.put("validated_rows", validated);
+            out.put("max_error", maxError);
+            out.put("mean_error", meanError);
+            out.put("label_agreement", labelAgreement);
+            if (refusal != null) {
+                out.put("refusal", refusal);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ExplanationResponse;
+import hex.genmodel.MojoModel;
+import hex.genmodel.MojoReaderBackend;
+import hex.genmodel.MojoReaderBackendFactory;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.exception.PredictException;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-feature contributions for an approval model.
+ *
+ * Uses a second wrapper over the same MOJO with contributions enabled, so
+ * the scoring path never pays for them; one call gives both the prediction
+ * and its contributions. Results are cached together, keyed by the model
+ * row, and batches score their cache misses in parallel.
+ *
+ * Stacked ensembles cannot compute contributions, so for one (the mortgage
+ * approval model is) the contributions come from its GBM base model, or a
+ * DRF one if it has no GBM, loaded from the same archive. The decision and
+ * probability still come from the ensemble, so they match the scoring
+ * endpoint.
+ */
+final class ContributionExplainer {
+
+    private static final Logger log = LoggerFactory.getLogger(ContributionExplainer.class);
+
+    private static final String BIAS = "BiasTerm";
+    private static final int PARALLEL_THRESHOLD = 8;
+    private static final int TOP_REASONS = 3;
+
+    private static final String ENSEMBLE = "stackedensemble";
+    // Base model directories in an ensemble archive, in order of preference
+    private static final String[] TREE_MODEL_DIRS = {"models/GBM/", "models/DRF/"};
+
+    private final EasyPredictModelWrapper model;
+    private final EasyPredictModelWrapper decision;
+    private final String[] names;
+    private final Map<RowData, Explained> cache;
+
+    record Explained(String label, double probApproved, float[] contributions) {
+    }
+
+    /**
+     * Returns null, logging why, if neither the model nor, for a stacked
+     * ensemble, one of its tree base models can compute contributions.
+     * {@code path} is the MOJO archive {@code mojo} was loaded from.
+     */
+    static ContributionExplainer create(String name, String path, MojoModel mojo, int cacheSize) {
+        try {
+            MojoReaderBackend archive = MojoReaderBackendFactory.createReaderBackend(path);
+            String baseDir = ENSEMBLE.equals(info(archive, "algo")) ? treeBaseModel(archive) : null;
+            if (baseDir == null) {
+                return new ContributionExplainer(contributions(mojo), null, cacheSize);
+            }
+            MojoModel base = MojoModel.load(new NestedReaderBackend(archive, baseDir));
+            log.info("Explaining {} with its base model {}", name, baseDir);
+            return new ContributionExplainer(contributions(base), new EasyPredictModelWrapper(mojo), cacheSize);
+        } catch (Exception e) {
+            log.warn("Explanations unavailable for {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private static EasyPredictModelWrapper contributions(MojoModel mojo) throws IOException {
+        return new EasyPredictModelWrapper(new EasyPredictModelWrapper.Config()
+                .setModel(mojo)
+                .setEnableContributions(true));
+    }
+
+    /**
+     * The directory of an ensemble's first tree base model, by
+     * {@link #TREE_MODEL_DIRS} preference. Throws IllegalArgumentException
+     * if it has none.
+     */
+    static String treeBaseModel(MojoReaderBackend archive) throws IOException {
+        int count = Integer.parseInt(info(archive, "base_models_num"));
+        List<String> dirs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = info(archive, "base_model" + i);
+            for (int j = 0; info(archive, "submodel_key_" + j) != null; j++) {
+                if (key.equals(info(archive, "submodel_key_" + j))) {
+                    dirs.add(info(archive, "submodel_dir_" + j));
+                }
+            }
+        }
+        for (String prefix : TREE_MODEL_DIRS) {
+            for (String dir : dirs) {
+                if (dir.startsWith(prefix)) {
+                    return dir;
+                }
+            }
+        }
+        throw new IllegalArgumentException("stacked ensemble has no GBM or DRF base model");
+    }
+
+    /**
+     * A value from the {@code [info]} section of the archive's model.ini, or
+     * null.
+     */
+    private static String info(MojoReaderBackend archive, String key) throws IOException {
+        try (BufferedReader in = archive.getTextFile("model.ini")) {
+            boolean inInfo = false;
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("[")) {
+                    inInfo = line.equals("[info]");
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (inInfo && eq > 0 && line.substring(0, eq).trim().equals(key)) {
+                    return line.substring(eq + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    ContributionExplainer(EasyPredictModelWrapper model, int cacheSize) {
+        this(model, null, cacheSize);
+    }
+
+    /**
+     * {@code decision}, if not null, gives the label and probability and
+     * {@code model} only the contributions.
+     */
+    ContributionExplainer(EasyPredictModelWrapper model, EasyPredictModelWrapper decision, int cacheSize) {
+        this.model = model;
+        this.decision = decision;
+        this.names = model.getContributionNames();
+        this.cache = cacheSize <= 0 ? null : Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RowData, Explained> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Explains each row. Rows must not be modified afterwards, they are
+     * used as cache keys.
+     */
+    Explained[] explain(RowData[] rows) throws PredictException {
+        Explained[] out = new Explained[rows.length];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            out[i] = cache == null ? null : cache.get(rows[i]);
+            if (out[i] == null) {
+                misses.add(i);
+            }
+        }
+
+        if (misses.size() >= PARALLEL_THRESHOLD) {
+            try {
+                misses.parallelStream().forEach(i -> out[i] = computeUnchecked(rows[i]));
+            } catch (IllegalStateException e) {
+                if (e.getCause() instanceof PredictException pe) {
+                    throw pe;
+                }
+                throw e;
+            }
+        } else {
+            for (int i : misses) {
+                out[i] = compute(rows[i]);
+            }
+        }
+        return out;
+    }
+
+    private Explained compute(RowData row) throws PredictException {
+        BinomialModelPrediction p = model.predictBinomial(row);
+        BinomialModelPrediction d = decision == null ? p : decision.predictBinomial(row);
+        Explained e = new Explained(d.label, d.classProbabilities[1], p.contributions);
+        if (cache != null) {
+            cache.put(row, e);
+        }
+        return e;
+    }
+
+    private Explained computeUnchecked(RowData row) {
+        try {
+            return compute(row);
+        } catch (PredictException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds the response for a row the model approved or declined on its
+     * own, or, with a policy reason, one a policy rule declined first.
+     */
+    ExplanationResponse toResponse(RowData row, Explained e, String policyDeclineReason) {
+        ExplanationResponse res = new ExplanationResponse();
+        res.model_prob_approved = e.probApproved;
+        if (policyDeclineReason != null) {
+            res.label = "Declined";
+            res.prob_approved = 0.0;
+            res.policy_decline_reason = policyDeclineReason;
+        } else {
+            res.label = e.label;
+            res.prob_approved = e.probApproved;
+        }
+
+        List<ExplanationResponse.Contribution> contributions = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            if (BIAS.equals(names[i])) {
+                res.bias = e.contributions[i];
+                continue;
+            }
+            ExplanationResponse.Contribution c = new ExplanationResponse.Contribution();
+            c.feature = names[i];
+            Object value = row.get(names[i]);
+            c.value = value == null ? null : value.toString();
+            c.contribution = e.contributions[i];
+            contributions.add(c);
+        }
+        contributions.sort(Comparator.comparingDouble((ExplanationResponse.Contribution c) -> -Math.abs(c.contribution)));
+        res.contributions = contributions;
+
+        List<String> reasons = new ArrayList<>();
+        if (policyDeclineReason != null) {
+            reasons.add(policyDeclineReason);
+        }
+        contributions.stream()
+                .filter(c -> c.contribution < 0)
+                .sorted(Comparator.comparingDouble(c -> c.contribution))
+                .limit(TOP_REASONS)
+                .forEach(c -> reasons.add(c.feature));
+        res.decline_reasons = reasons;
+        return res;
+    }
+
+    /**
+     * Reads a base model's entries from its directory in an ensemble
+     * archive.
+     */
+    private static final class NestedReaderBackend implements MojoReaderBackend {
+        private final MojoReaderBackend archive;
+        private final String dir;
+
+        NestedReaderBackend(MojoReaderBackend archive, String dir) {
+            this.archive = archive;
+            this.dir = dir;
+        }
+
+        @Override
+        public BufferedReader getTextFile(String filename) throws IOException {
+            return archive.getTextFile(dir + filename);
+        }
+
+        @Override
+        public byte[] getBinaryFile(String filename) throws IOException {
+            return archive.getBinaryFile(dir + filename);
+        }
+
+        @Override
+        public boolean exists(String filename) {
+            return archive.exists(dir + filename);
+        }
+    }
+}
@@ -1,33 +1,74 @@
 package aqubesolutions.aicredit.predictor.service;
 
+import aqubesolutions.aicredit.predictor.audit.AuditLog;
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
 import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.ExplanationResponse;
 import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
 import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
 import hex.genmodel.MojoModel;
-import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
-import hex.genmodel.easy.prediction.BinomialModelPrediction;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class CurrentAccountScoringService {
 
     private static final Logger log = LoggerFactory.getLogger(CurrentAccountScoringService.class);
 
+    private static final RequestValidator VALIDATOR = RequestValidator.of(Product.CURRENT_ACCOUNT);
+
+    private static final FeatureSchema SCHEMA = FeatureSchema.of(Product.CURRENT_ACCOUNT);
+
     @Value("${model.current-approval-path}")
     private String approvalPath;
 
-    private EasyPredictModelWrapper approvalModel;
+    @Autowired
+    private ShadowScoringService shadow;
+
+    @Autowired
+    private AuditLog audit;
+
+    @Autowired
+    private DriftMonitor drift;
+
+    @Autowired
+    private DecisionStats stats;
+
+    @Autowired
+    private ModelStore modelStore;
+
+    @Autowired
+    private ApproximationTables approximations;
+
+    @Value("${explain.cache-size:10000}")
+    private int explainCacheSize = 10000;
+
+    private ScorerPool approvalModel;
+    private String approvalVersion;
+    private ContributionExplainer explainer;
 
     @PostConstruct
     public void init() {
         try {
             log.info("Loading current account approval model from {}", approvalPath);
-            approvalModel = new EasyPredictModelWrapper(MojoModel.load(approvalPath));
+            MojoModel approvalMojo = modelStore.load("ca-approval", ModelStore.DEFAULT_VERSION, approvalPath).model;
+            approvalModel = new ScorerPool(Product.CURRENT_ACCOUNT, approvalMojo);
+            approvalVersion = ModelVersions.of(approvalPath, approvalMojo);
+            explainer = ContributionExplainer.create("current account approval model", approvalPath, approvalMojo,
+                    explainCacheSize);
+            approximations.build(Product.CURRENT_ACCOUNT, approvalMojo, approvalModel);
         } catch (Exception e) {
             log.error("Error loading current account MOJO model: {}", e.getMessage(), e);
         }
@@ -41,29 +82,90 @@ public class CurrentAccountScoringService {
         if (!isReady()) {
             throw new IllegalStateException("Models not loaded");
         }
+        VALIDATOR.validate(req);
 
-        RowData row = new RowData();
-        put(row, "age", req.age);
-        put(row, "annual_income", req.annual_income);
-        put(row, "monthly_debt", req.monthly_debt);
-        put(row, "avg_monthly_balance", req.avg_monthly_balance);
-        put(row, "overdraft_usage", req.overdraft_usage);
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = approval.features();
+        SCHEMA.fill(req, x);
 
-        BinomialModelPrediction approvalPred = approvalModel.predictBinomial(row);
+        ApprovalOnlyResponse res = response(approval, x);
+        shadow.submit(Product.CURRENT_ACCOUNT, x, res.approval.label, res.approval.prob_approved);
+        drift.observe(Product.CURRENT_ACCOUNT, req, res.approval.prob_approved, Double.NaN);
+        stats.scored(Product.CURRENT_ACCOUNT, approvalModel.positiveLabel().equals(res.approval.label),
+                Double.NaN);
+        audit.record(Product.CURRENT_ACCOUNT, req, null, res, approvalVersion, null);
+        return res;
+    }
 
+    /**
+     * Pre-qualification score from the interpolated approval table, see
+     * {@link ApproximationTables}. Requests outside the table's range are
+     * scored exactly. Nothing is audited.
+     */
+    public ApprovalOnlyResponse scoreApproximate(CurrentAccountScoreRequest req) throws Exception {
+        if (!isReady()) {
+            throw new IllegalStateException("Models not loaded");
+        }
+        VALIDATOR.validate(req);
+        ScorerPool.Scorer scorer = approvalModel.get();
+        double[] x = scorer.features();
+        SCHEMA.fill(req, x);
+
+        ScoreResponse.ApprovalPart approval = approximations.approval(Product.CURRENT_ACCOUNT, x);
+        if (approval == null) {
+            ApprovalOnlyResponse res = response(scorer, x);
+            res.policy_message = "Exact score: outside the approximation range";
+            return res;
+        }
+        ApprovalOnlyResponse res = new ApprovalOnlyResponse();
+        res.approval = approval;
+        res.policy_message = "Approximate score";
+        return res;
+    }
+
+    /**
+     * Scores a request without the audit, drift and shadow side effects of
+     * {@link #score}. The request is not validated.
+     */
+    public ApprovalOnlyResponse predict(CurrentAccountScoreRequest req) throws Exception {
+        if (!isReady()) {
+            throw new IllegalStateException("Models not loaded");
+        }
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = approval.features();
+        SCHEMA.fill(req, x);
+        return response(approval, x);
+    }
+
+    private ApprovalOnlyResponse response(ScorerPool.Scorer approval, double[] x) {
+        double[] p = approval.score(x);
         ApprovalOnlyResponse res = new ApprovalOnlyResponse();
         ScoreResponse.ApprovalPart approvalPart = new ScoreResponse.ApprovalPart();
-        approvalPart.label = approvalPred.label;
-        approvalPart.prob_approved = approvalPred.classProbabilities[1];
-        approvalPart.prob_declined = approvalPred.classProbabilities[0];
+        approvalPart.label = approval.label();
+        approvalPart.prob_approved = p[2];
+        approvalPart.prob_declined = p[1];
         res.approval = approvalPart;
-
         return res;
     }
 
-    private void put(RowData row, String key, Object val) {
-        if (val != null) {
-            row.put(key, String.valueOf(val));
+    /**
+     * Approval model contributions for each request, in order. Nothing is
+     * computed on the scoring path; see {@link ContributionExplainer}.
+     */
+    public List<ExplanationResponse> explain(List<CurrentAccountScoreRequest> reqs) throws Exception {
+        if (explainer == null) {
+            throw new IllegalStateException(isReady() ? "Explanations not available" : "Models not loaded");
+        }
+        RowData[] rows = new RowData[reqs.size()];
+        for (int i = 0; i < rows.length; i++) {
+            VALIDATOR.validate(reqs.get(i), i);
+            rows[i] = SCHEMA.rowData(reqs.get(i));
+        }
+        ContributionExplainer.Explained[] explained = explainer.explain(rows);
+        List<ExplanationResponse> out = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            out.add(explainer.toResponse(rows[i], explained[i], null));
         }
+        return out;
     }
 }
@@ -0,0 +1,146 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A model's output sampled on a grid over its inputs, and evaluated by
+ * multilinear interpolation between the surrounding grid points.
+ *
+ * Each dimension has its own increasing knots. The values are stored in one
+ * {@code float[]} in row-major order, so a lookup is a short scan of the
+ * knots per dimension and 2^dims - 1 linear interpolations between the
+ * corners of the cell, with no model call. Inputs outside the knots, or NaN,
+ * give NaN.
+ */
+final class InterpolationTable {
+
+    private final double[][] knots;
+    private final int[] strides;
+    private final int[] corners;
+    private final float[] values;
+
+    InterpolationTable(double[][] knots, float[] values) {
+        this.knots = knots;
+        this.strides = new int[knots.length];
+        int stride = 1;
+        for (int d = knots.length - 1; d >= 0; d--) {
+            strides[d] = stride;
+            stride *= knots[d].length;
+        }
+        if (values.length != stride) {
+            throw new IllegalArgumentException("Expected " + stride + " values, got " + values.length);
+        }
+        this.values = values;
+
+        // Offset of each corner of a cell from its lowest corner; bit d of the
+        // corner number is the upper knot in dimension d
+        this.corners = new int[1 << knots.length];
+        for (int c = 0; c < corners.length; c++) {
+            for (int d = 0; d < knots.length; d++) {
+                if ((c & (1 << d)) != 0 && knots[d].length > 1) {
+                    corners[c] += strides[d];
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates {@code model} at every grid point, in parallel. The function
+     * must be thread-safe and must not keep the array it is given.
+     */
+    static InterpolationTable build(double[][] knots, ToDoubleFunction<double[]> model) {
+        int cells = 1;
+        for (double[] k : knots) {
+            cells = Math.multiplyExact(cells, k.length);
+        }
+        float[] values = new float[cells];
+        IntStream.range(0, cells).parallel().forEach(i -> {
+            double[] x = new double[knots.length];
+            int rest = i;
+            for (int d = knots.length - 1; d >= 0; d--) {
+                x[d] = knots[d][rest % knots[d].length];
+                rest /= knots[d].length;
+            }
+            values[i] = (float) model.applyAsDouble(x);
+        });
+        return new InterpolationTable(knots, values);
+    }
+
+    /**
+     * Up to {@code points} knots at evenly spaced quantiles of {@code column},
+     * always including its minimum and maximum. Columns with few distinct
+     * values get one knot per value.
+     */
+    static double[] knots(double[] column, int points) {
+        double[] sorted = column.clone();
+        Arrays.sort(sorted);
+        double[] out = new double[points];
+        int n = 0;
+        for (int k = 0; k < points; k++) {
+            double v = sorted[(int) Math.round((double) k * (sorted.length - 1) / (points - 1))];
+            if (n == 0 || v > out[n - 1]) {
+                out[n++] = v;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    double interpolate(double[] x) {
+        int dims = knots.length;
+        double[] t = new double[dims];
+        int base = 0;
+        for (int d = 0; d < dims; d++) {
+            double[] k = knots[d];
+            double v = x[d];
+            if (!(v >= k[0] && v <= k[k.length - 1])) {
+                return Double.NaN;
+            }
+            int j = 0;
+            while (j < k.length - 2 && v >= k[j + 1]) {
+                j++;
+            }
+            if (k.length > 1) {
+                t[d] = (v - k[j]) / (k[j + 1] - k[j]);
+            }
+            base += j * strides[d];
+        }
+
+        // Values at the cell's corners, then halved one dimension at a time
+        double[] c = new double[corners.length];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = values[base + corners[i]];
+        }
+        int n = c.length;
+        for (int d = 0; d < dims; d++) {
+            n >>= 1;
+            double td = t[d];
+            for (int i = 0; i < n; i++) {
+                double lo = c[2 * i];
+                c[i] = lo + (c[2 * i + 1] - lo) * td;
+            }
+        }
+        return c[0];
+    }
+
+    int cells() {
+        return values.length;
+    }
+
+    long bytes() {
+        long n = (long) values.length * Float.BYTES;
+        for (double[] k : knots) {
+            n += (long) k.length * Double.BYTES;
+        }
+        return n;
+    }
+
+    int[] shape() {
+        int[] shape = new int[knots.length];
+        for (int d = 0; d < shape.length; d++) {
+            shape[d] = knots[d].length;
+        }
+        return shape;
+    }
+}
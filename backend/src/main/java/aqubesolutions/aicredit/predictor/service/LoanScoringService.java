@@ -1,40 +1,84 @@
 package aqubesolutions.aicredit.predictor.service;
 
+import aqubesolutions.aicredit.predictor.audit.AuditLog;
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.ExplanationResponse;
 import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
 import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
 import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
 import hex.genmodel.MojoModel;
-import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
-import hex.genmodel.easy.prediction.BinomialModelPrediction;
-import hex.genmodel.easy.prediction.RegressionModelPrediction;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class LoanScoringService {
 
     private static final Logger log = LoggerFactory.getLogger(LoanScoringService.class);
 
+    private static final RequestValidator VALIDATOR = RequestValidator.of(Product.LOAN);
+
+    private static final FeatureSchema SCHEMA = FeatureSchema.of(Product.LOAN);
+
     @Value("${model.loan-approval-path}")
     private String approvalPath;
 
     @Value("${model.loan-borrow-path}")
     private String borrowPath;
 
-    private EasyPredictModelWrapper approvalModel;
-    private EasyPredictModelWrapper borrowModel;
+    @Autowired
+    private ShadowScoringService shadow;
+
+    @Autowired
+    private AuditLog audit;
+
+    @Autowired
+    private DriftMonitor drift;
+
+    @Autowired
+    private DecisionStats stats;
+
+    @Autowired
+    private ModelStore modelStore;
+
+    @Autowired
+    private ApproximationTables approximations;
+
+    @Value("${explain.cache-size:10000}")
+    private int explainCacheSize = 10000;
+
+    private ScorerPool approvalModel;
+    private String approvalVersion;
+    private ContributionExplainer explainer;
+    private ScorerPool borrowModel;
+    private String borrowVersion;
 
     @PostConstruct
     public void init() {
         try {
             log.info("Loading loan approval model from {}", approvalPath);
-            approvalModel = new EasyPredictModelWrapper(MojoModel.load(approvalPath));
+            MojoModel approvalMojo = modelStore.load("ln-approval", ModelStore.DEFAULT_VERSION, approvalPath).model;
+            approvalModel = new ScorerPool(Product.LOAN, approvalMojo);
+            approvalVersion = ModelVersions.of(approvalPath, approvalMojo);
+            explainer = ContributionExplainer.create("loan approval model", approvalPath, approvalMojo,
+                    explainCacheSize);
+            approximations.build(Product.LOAN, approvalMojo, approvalModel);
             log.info("Loading loan borrow model from {}", borrowPath);
-            borrowModel = new EasyPredictModelWrapper(MojoModel.load(borrowPath));
+            MojoModel borrowMojo = modelStore.load("ln-borrow", ModelStore.DEFAULT_VERSION, borrowPath).model;
+            borrowModel = new ScorerPool(Product.LOAN, borrowMojo);
+            borrowVersion = ModelVersions.of(borrowPath, borrowMojo);
         } catch (Exception e) {
             log.error("Error loading loan MOJO models: {}", e.getMessage(), e);
         }
@@ -48,34 +92,96 @@ public class LoanScoringService {
         if (!isReady()) {
             throw new IllegalStateException("Models not loaded");
         }
+        VALIDATOR.validate(req);
+
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = approval.features();
+        SCHEMA.fill(req, x);
+
+        SimpleScoreResponse res = response(approval, x);
+        shadow.submit(Product.LOAN, x, res.approval.label, res.approval.prob_approved);
+        drift.observe(Product.LOAN, req, res.approval.prob_approved, res.loanAmount.predicted_amount);
+        stats.scored(Product.LOAN, approvalModel.positiveLabel().equals(res.approval.label),
+                res.loanAmount.predicted_amount);
+        audit.record(Product.LOAN, req, null, res, approvalVersion, borrowVersion);
+        return res;
+    }
+
+    /**
+     * Pre-qualification score from the interpolated approval table, see
+     * {@link ApproximationTables}. Requests outside the table's range are
+     * scored exactly. Nothing is audited.
+     */
+    public ApprovalOnlyResponse scoreApproximate(LoanScoreRequest req) throws Exception {
+        if (!isReady()) {
+            throw new IllegalStateException("Models not loaded");
+        }
+        VALIDATOR.validate(req);
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = approval.features();
+        SCHEMA.fill(req, x);
 
-        RowData row = new RowData();
-        put(row, "age", req.age);
-        put(row, "annual_income", req.annual_income);
-        put(row, "monthly_debt", req.monthly_debt);
-        put(row, "requested_loan", req.requested_loan);
-        put(row, "loan_term_months", req.loan_term_months);
+        ApprovalOnlyResponse res = new ApprovalOnlyResponse();
+        res.approval = approximations.approval(Product.LOAN, x);
+        res.policy_message = "Approximate score";
+        if (res.approval == null) {
+            res.approval = approvalPart(approval, x);
+            res.policy_message = "Exact score: outside the approximation range";
+        }
+        return res;
+    }
 
-        BinomialModelPrediction approvalPred = approvalModel.predictBinomial(row);
-        RegressionModelPrediction borrowPred = borrowModel.predictRegression(row);
+    /**
+     * Scores a request without the audit, drift and shadow side effects of
+     * {@link #score}. The request is not validated.
+     */
+    public SimpleScoreResponse predict(LoanScoreRequest req) throws Exception {
+        if (!isReady()) {
+            throw new IllegalStateException("Models not loaded");
+        }
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = approval.features();
+        SCHEMA.fill(req, x);
+        return response(approval, x);
+    }
 
+    private SimpleScoreResponse response(ScorerPool.Scorer approval, double[] x) {
         SimpleScoreResponse res = new SimpleScoreResponse();
-        ScoreResponse.ApprovalPart approvalPart = new ScoreResponse.ApprovalPart();
-        approvalPart.label = approvalPred.label;
-        approvalPart.prob_approved = approvalPred.classProbabilities[1];
-        approvalPart.prob_declined = approvalPred.classProbabilities[0];
-        res.approval = approvalPart;
+        res.approval = approvalPart(approval, x);
 
         ScoreResponse.LoanPart loanPart = new ScoreResponse.LoanPart();
-        loanPart.predicted_amount = borrowPred.value;
+        loanPart.predicted_amount = borrowModel.get().score(x)[0];
         res.loanAmount = loanPart;
-
         return res;
     }
 
-    private void put(RowData row, String key, Object val) {
-        if (val != null) {
-            row.put(key, String.valueOf(val));
+    private static ScoreResponse.ApprovalPart approvalPart(ScorerPool.Scorer approval, double[] x) {
+        double[] p = approval.score(x);
+        ScoreResponse.ApprovalPart approvalPart = new ScoreResponse.ApprovalPart();
+        approvalPart.label = approval.label();
+        approvalPart.prob_approved = p[2];
+        approvalPart.prob_declined = p[1];
+        return approvalPart;
+    }
+
+    /**
+     * Approval model contributions for each request, in order. Nothing is
+     * computed on the scoring path; see {@link ContributionExplainer}.
+     */
+    public List<ExplanationResponse> explain(List<LoanScoreRequest> reqs) throws Exception {
+        if (explainer == null) {
+            throw new IllegalStateException(isReady() ? "Explanations not available" : "Models not loaded");
+        }
+        RowData[] rows = new RowData[reqs.size()];
+        for (int i = 0; i < rows.length; i++) {
+            VALIDATOR.validate(reqs.get(i), i);
+            rows[i] = SCHEMA.rowData(reqs.get(i));
+        }
+        ContributionExplainer.Explained[] explained = explainer.explain(rows);
+        List<ExplanationResponse> out = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            out.add(explainer.toResponse(rows[i], explained[i], null));
         }
+        return out;
     }
 }
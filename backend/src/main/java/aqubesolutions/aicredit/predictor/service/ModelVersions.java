@@ -0,0 +1,20 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.GenModel;
+
+import java.nio.file.Path;
+
+final class ModelVersions {
+
+    private ModelVersions() {
+    }
+
+    /**
+     * Identifies a loaded MOJO as {@code <file name>@<model uuid>}.
+     */
+    static String of(String path, GenModel model) {
+        String name = Path.of(path).getFileName().toString();
+        String uuid = model.getUUID();
+        return uuid == null ? name : name + "@" + uuid;
+    }
+}
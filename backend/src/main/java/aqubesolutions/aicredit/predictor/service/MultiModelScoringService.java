@@ -1,12 +1,16 @@
 package aqubesolutions.aicredit.predictor.service;
 
+import aqubesolutions.aicredit.predictor.audit.AuditLog;
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import aqubesolutions.aicredit.predictor.dto.ExplanationResponse;
 import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
 import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
 import hex.genmodel.MojoModel;
-import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
-import hex.genmodel.easy.prediction.BinomialModelPrediction;
-import hex.genmodel.easy.prediction.RegressionModelPrediction;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,12 +18,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 @Service
 public class MultiModelScoringService {
 
     private static final Logger log = LoggerFactory.getLogger(MultiModelScoringService.class);
 
+    private static final RequestValidator VALIDATOR = RequestValidator.of(Product.MORTGAGE);
+
+    private static final FeatureSchema SCHEMA = FeatureSchema.of(Product.MORTGAGE);
+    private static final int ANNUAL_INCOME = SCHEMA.slot("annual_income");
+
     @Value("${model.approval-path}")
     private String approvalPath;
 
@@ -30,16 +42,42 @@ public class MultiModelScoringService {
     @Autowired
     private PolicyRuleEngine rules;
 
-    private EasyPredictModelWrapper approvalModel;
-    private EasyPredictModelWrapper borrowModel;
+    @Autowired
+    private ShadowScoringService shadow;
+
+    @Autowired
+    private AuditLog audit;
+
+    @Autowired
+    private DriftMonitor drift;
+
+    @Autowired
+    private DecisionStats stats;
+
+    @Autowired
+    private ModelStore modelStore;
+
+    @Value("${explain.cache-size:10000}")
+    private int explainCacheSize = 10000;
+
+    private ScorerPool approvalModel;
+    private String approvalVersion;
+    private ContributionExplainer explainer;
+    private ScorerPool borrowModel;
+    private String borrowVersion;
 
     @PostConstruct
     public void init() {
         try {
             log.info("Loading approval model from {}", approvalPath);
-            approvalModel = new EasyPredictModelWrapper(MojoModel.load(approvalPath));
+            MojoModel approvalMojo = modelStore.load("mo-approval", ModelStore.DEFAULT_VERSION, approvalPath).model;
+            approvalModel = new ScorerPool(Product.MORTGAGE, approvalMojo);
+            approvalVersion = ModelVersions.of(approvalPath, approvalMojo);
+            explainer = ContributionExplainer.create("approval model", approvalPath, approvalMojo, explainCacheSize);
             log.info("Loading borrow model from {}", borrowPath);
-            borrowModel = new EasyPredictModelWrapper(MojoModel.load(borrowPath));
+            MojoModel borrowMojo = modelStore.load("mo-borrow", ModelStore.DEFAULT_VERSION, borrowPath).model;
+            borrowModel = new ScorerPool(Product.MORTGAGE, borrowMojo);
+            borrowVersion = ModelVersions.of(borrowPath, borrowMojo);
         } catch (Exception e) {
             log.error("Error loading MOJO models: {}", e.getMessage(), e);
         }
@@ -53,65 +91,143 @@ public class MultiModelScoringService {
         if (!isReady()) {
             throw new IllegalStateException("Models not loaded");
         }
+        VALIDATOR.validate(req);
 
         // Run policy rules BEFORE ML
         PolicyRuleEngine.PolicyResult ruleResult = rules.applyRules(req);
 
         if (!ruleResult.approved) {
             // Hard decline — skip ML
-            ScoreResponse res = new ScoreResponse();
-            ScoreResponse.ApprovalPart ap = new ScoreResponse.ApprovalPart();
-            ap.label = "Declined";
-            ap.prob_approved = 0.0;
-            ap.prob_declined = 1.0;
-            res.approval = ap;
+            ScoreResponse res = declined();
+            drift.observe(Product.MORTGAGE, req, Double.NaN, Double.NaN);
+            stats.policyDeclined(Product.MORTGAGE, ruleResult.declineRule);
+            audit.record(Product.MORTGAGE, req, ruleResult, res, approvalVersion, borrowVersion);
+            return res;
+        }
 
-            ScoreResponse.LoanPart lp = new ScoreResponse.LoanPart();
-            lp.predicted_amount = 0.0;
-            res.loanAmount = lp;
+        ScorerPool.Scorer approval = approvalModel.get();
+        double[] x = features(approval, req, ruleResult);
 
-            return res;
+        ScoreResponse res = response(ruleResult, approval, x);
+        shadow.submit(Product.MORTGAGE, x, res.approval.label, res.approval.prob_approved);
+        drift.observe(Product.MORTGAGE, req, res.approval.prob_approved, res.loanAmount.predicted_amount);
+        stats.scored(Product.MORTGAGE, approves(res), res.loanAmount.predicted_amount);
+        audit.record(Product.MORTGAGE, req, ruleResult, res, approvalVersion, borrowVersion);
+        return res;
+    }
+
+    /**
+     * Applies the policy rules and scores a request without the audit, drift
+     * and shadow side effects of {@link #score}. The request is not
+     * validated.
+     */
+    public ScoreResponse predict(ScoreRequest req) throws Exception {
+        return predict(req, rules.applyRules(req));
+    }
+
+    /**
+     * Scores a request the rules have already been applied to, without the
+     * audit, drift and shadow side effects of {@link #score}.
+     */
+    ScoreResponse predict(ScoreRequest req, PolicyRuleEngine.PolicyResult ruleResult) throws Exception {
+        if (!isReady()) {
+            throw new IllegalStateException("Models not loaded");
         }
+        if (!ruleResult.approved) {
+            return declined();
+        }
+        ScorerPool.Scorer approval = approvalModel.get();
+        return response(ruleResult, approval, features(approval, req, ruleResult));
+    }
 
-        // Adjust income if required
+    /**
+     * Whether a response from {@link #predict} approves: the rules passed
+     * and the approval model chose its positive class.
+     */
+    boolean approves(ScoreResponse res) {
+        return approvalModel.positiveLabel().equals(res.approval.label);
+    }
+
+    /**
+     * The scorer's feature vector for a request, with the income adjusted if
+     * the rules require it. The request keeps the declared income for the
+     * audit log.
+     */
+    private static double[] features(ScorerPool.Scorer scorer, ScoreRequest req,
+                                     PolicyRuleEngine.PolicyResult ruleResult) {
+        return features(scorer.features(), req, ruleResult);
+    }
+
+    private static double[] features(double[] x, ScoreRequest req, PolicyRuleEngine.PolicyResult ruleResult) {
+        SCHEMA.fill(req, x);
         if (ruleResult.incomeAdjusted) {
-            req.annual_income = ruleResult.adjustedIncome;
+            x[ANNUAL_INCOME] = ruleResult.adjustedIncome;
+            SCHEMA.derive(x);
         }
+        return x;
+    }
 
-        RowData row = new RowData();
-        put(row, "age", req.age);
-        put(row, "annual_income", req.annual_income);
-        put(row, "monthly_debt", req.monthly_debt);
-        put(row, "property_price", req.property_price);
-        put(row, "deposit_amount", req.deposit_amount);
-        put(row, "requested_loan", req.requested_loan);
-        put(row, "mortgage_term_years", req.mortgage_term_years);
-        put(row, "mortgage_term_months", req.mortgage_term_months);
+    static String policyMessage(PolicyRuleEngine.PolicyResult ruleResult) {
+        return ruleResult.incomeAdjusted
+                ? "Income adjusted for retirement"
+                : "Eligible under policy rules";
+    }
 
-        BinomialModelPrediction approvalPred = approvalModel.predictBinomial(row);
-        RegressionModelPrediction borrowPred = borrowModel.predictRegression(row);
+    private ScoreResponse declined() {
+        ScoreResponse res = new ScoreResponse();
+        ScoreResponse.ApprovalPart ap = new ScoreResponse.ApprovalPart();
+        ap.label = "Declined";
+        ap.prob_approved = 0.0;
+        ap.prob_declined = 1.0;
+        res.approval = ap;
+
+        ScoreResponse.LoanPart lp = new ScoreResponse.LoanPart();
+        lp.predicted_amount = 0.0;
+        res.loanAmount = lp;
+        return res;
+    }
 
+    private ScoreResponse response(PolicyRuleEngine.PolicyResult ruleResult, ScorerPool.Scorer approval,
+                                   double[] x) {
         var res = new ScoreResponse();
-        res.policy_message = ruleResult.incomeAdjusted
-                ? "Income adjusted for retirement"
-                : "Eligible under policy rules";
+        res.policy_message = policyMessage(ruleResult);
 
+        double[] p = approval.score(x);
         ScoreResponse.ApprovalPart approvalPart = new ScoreResponse.ApprovalPart();
-        approvalPart.label = approvalPred.label;
-        approvalPart.prob_approved = approvalPred.classProbabilities[1];
-        approvalPart.prob_declined = approvalPred.classProbabilities[0];
+        approvalPart.label = approval.label();
+        approvalPart.prob_approved = p[2];
+        approvalPart.prob_declined = p[1];
         res.approval = approvalPart;
 
         ScoreResponse.LoanPart loanPart = new ScoreResponse.LoanPart();
-        loanPart.predicted_amount = borrowPred.value;
+        loanPart.predicted_amount = borrowModel.get().score(x)[0];
         res.loanAmount = loanPart;
-
         return res;
     }
 
-    private void put(RowData row, String key, Object val) {
-        if (val != null) {
-            row.put(key, String.valueOf(val));
+    /**
+     * Approval model contributions for each request, in order, merged with
+     * the policy decline reason where a rule declines. Nothing is computed
+     * on the scoring path; see {@link ContributionExplainer}.
+     */
+    public List<ExplanationResponse> explain(List<ScoreRequest> reqs) throws Exception {
+        if (explainer == null) {
+            throw new IllegalStateException(isReady() ? "Explanations not available" : "Models not loaded");
+        }
+        RowData[] rows = new RowData[reqs.size()];
+        String[] declineReasons = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ScoreRequest req = reqs.get(i);
+            VALIDATOR.validate(req, i);
+            PolicyRuleEngine.PolicyResult ruleResult = rules.applyRules(req);
+            declineReasons[i] = ruleResult.approved ? null : ruleResult.declineReason;
+            rows[i] = SCHEMA.rowData(features(new double[SCHEMA.size()], req, ruleResult));
+        }
+        ContributionExplainer.Explained[] explained = explainer.explain(rows);
+        List<ExplanationResponse> out = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            out.add(explainer.toResponse(rows[i], explained[i], declineReasons[i]));
         }
+        return out;
     }
 }
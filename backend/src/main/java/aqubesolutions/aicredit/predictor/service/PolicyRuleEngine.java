@@ -1,8 +1,11 @@
 package aqubesolutions.aicredit.predictor.service;
 
 import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class PolicyRuleEngine {
 
@@ -12,6 +15,13 @@ public class PolicyRuleEngine {
     private static final double MAX_DTI = 0.40;                      // 40% of income
     private static final double MAX_INCOME_MULTIPLE = 4.5;          // typical UK rule
 
+    // Which rule declined a request, in the order the rules are applied
+    public static final String RULE_TERM = "term";
+    public static final String RULE_LTV = "ltv";
+    public static final String RULE_DTI = "dti";
+    public static final String RULE_INCOME_MULTIPLE = "income_multiple";
+    public static final List<String> RULES = List.of(RULE_TERM, RULE_LTV, RULE_DTI, RULE_INCOME_MULTIPLE);
+
     public PolicyResult applyRules(ScoreRequest req) {
 
         PolicyResult result = new PolicyResult();
@@ -21,8 +31,7 @@ public class PolicyRuleEngine {
         // --------------------------
         int ageAtEnd = req.age + req.mortgage_term_years;
         if (ageAtEnd > MAX_AGE_AT_TERM_END) {
-            return decline("Loan term too long for applicant age. Maximum allowed: "
-                    + (MAX_AGE_AT_TERM_END - req.age) + " years");
+            return decline(RULE_TERM, termReason(req.age));
         }
 
         // -------------------------------------------------
@@ -41,7 +50,7 @@ public class PolicyRuleEngine {
         // ----------------------------------
         double ltv = req.requested_loan / req.property_price;
         if (ltv > MAX_LTV) {
-            return decline("Loan-to-value exceeds allowable maximum (" + (MAX_LTV * 100) + "%)");
+            return decline(RULE_LTV, ltvReason());
         }
 
         // ----------------------------------
@@ -51,7 +60,7 @@ public class PolicyRuleEngine {
         double dti = req.monthly_debt / monthlyIncome;
 
         if (dti > MAX_DTI) {
-            return decline("Debt-to-income ratio too high (" + Math.round(dti * 100) + "%)");
+            return decline(RULE_DTI, dtiReason(dti));
         }
 
         // ----------------------------------
@@ -59,8 +68,7 @@ public class PolicyRuleEngine {
         // ----------------------------------
         double multiple = req.requested_loan / effectiveIncome;
         if (multiple > MAX_INCOME_MULTIPLE) {
-            return decline("Requested loan exceeds income multiple limit ("
-                    + MAX_INCOME_MULTIPLE + "× income)");
+            return decline(RULE_INCOME_MULTIPLE, multipleReason());
         }
 
         // ------------------
@@ -70,9 +78,113 @@ public class PolicyRuleEngine {
         return result;
     }
 
-    private PolicyResult decline(String reason) {
+    // ---------------------------------------------------------------
+    // Incremental evaluation, for scoring sessions: the intermediates
+    // are kept between calls and only those whose inputs changed are
+    // recomputed. Gives the same result as applyRules for a request
+    // with every field set.
+    // ---------------------------------------------------------------
+
+    // Bits of the changed-field mask: bit i is mortgage schema slot i
+    public static final int AGE = bit("age");
+    public static final int ANNUAL_INCOME = bit("annual_income");
+    public static final int MONTHLY_DEBT = bit("monthly_debt");
+    public static final int PROPERTY_PRICE = bit("property_price");
+    public static final int REQUESTED_LOAN = bit("requested_loan");
+    public static final int TERM_YEARS = bit("mortgage_term_years");
+
+    private static int bit(String feature) {
+        int slot = FeatureSchema.of(Product.MORTGAGE).slot(feature);
+        if (slot < 0 || slot >= Integer.SIZE) {
+            throw new IllegalStateException("No mask bit for mortgage feature " + feature);
+        }
+        return 1 << slot;
+    }
+
+    public PolicyIntermediates prepare(ScoreRequest req) {
+        PolicyIntermediates s = new PolicyIntermediates();
+        update(req, s, -1);
+        return s;
+    }
+
+    /**
+     * Recomputes the intermediates that depend on the changed fields and
+     * returns how many were recomputed.
+     */
+    public int update(ScoreRequest req, PolicyIntermediates s, int changed) {
+        int n = 0;
+        if ((changed & (AGE | TERM_YEARS)) != 0) {
+            s.ageAtEnd = req.age + req.mortgage_term_years;
+            n++;
+        }
+        boolean incomeChanged = (changed & (AGE | ANNUAL_INCOME)) != 0;
+        if (incomeChanged) {
+            s.incomeAdjusted = req.age >= 60;
+            s.effectiveIncome = s.incomeAdjusted ? req.annual_income * RETIREMENT_INCOME_REDUCTION : req.annual_income;
+            n++;
+        }
+        if ((changed & (REQUESTED_LOAN | PROPERTY_PRICE)) != 0) {
+            s.ltv = req.requested_loan / req.property_price;
+            n++;
+        }
+        if (incomeChanged || (changed & MONTHLY_DEBT) != 0) {
+            double monthlyIncome = s.effectiveIncome / 12.0;
+            s.dti = req.monthly_debt / monthlyIncome;
+            n++;
+        }
+        if (incomeChanged || (changed & REQUESTED_LOAN) != 0) {
+            s.multiple = req.requested_loan / s.effectiveIncome;
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Applies the rules, in applyRules order, to already computed intermediates.
+     */
+    public PolicyResult evaluate(ScoreRequest req, PolicyIntermediates s) {
+        if (s.ageAtEnd > MAX_AGE_AT_TERM_END) {
+            return decline(RULE_TERM, termReason(req.age));
+        }
+        if (s.ltv > MAX_LTV) {
+            return decline(RULE_LTV, ltvReason());
+        }
+        if (s.dti > MAX_DTI) {
+            return decline(RULE_DTI, dtiReason(s.dti));
+        }
+        if (s.multiple > MAX_INCOME_MULTIPLE) {
+            return decline(RULE_INCOME_MULTIPLE, multipleReason());
+        }
+        PolicyResult result = new PolicyResult();
+        result.approved = true;
+        if (s.incomeAdjusted) {
+            result.incomeAdjusted = true;
+            result.adjustedIncome = s.effectiveIncome;
+        }
+        return result;
+    }
+
+    private static String termReason(int age) {
+        return "Loan term too long for applicant age. Maximum allowed: "
+                + (MAX_AGE_AT_TERM_END - age) + " years";
+    }
+
+    private static String ltvReason() {
+        return "Loan-to-value exceeds allowable maximum (" + (MAX_LTV * 100) + "%)";
+    }
+
+    private static String dtiReason(double dti) {
+        return "Debt-to-income ratio too high (" + Math.round(dti * 100) + "%)";
+    }
+
+    private static String multipleReason() {
+        return "Requested loan exceeds income multiple limit (" + MAX_INCOME_MULTIPLE + "× income)";
+    }
+
+    private PolicyResult decline(String rule, String reason) {
         PolicyResult r = new PolicyResult();
         r.approved = false;
+        r.declineRule = rule;
         r.declineReason = reason;
         return r;
     }
@@ -81,6 +193,16 @@ public class PolicyRuleEngine {
         public boolean approved;
         public boolean incomeAdjusted = false;
         public double adjustedIncome;
+        public String declineRule;
         public String declineReason;
     }
+
+    public static class PolicyIntermediates {
+        public int ageAtEnd;
+        public double effectiveIncome;
+        public boolean incomeAdjusted;
+        public double ltv;
+        public double dti;
+        public double multiple;
+    }
 }
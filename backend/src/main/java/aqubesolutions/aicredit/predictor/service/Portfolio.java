@@ -0,0 +1,123 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A book of mortgage applications held column by column: one primitive
+ * array per request field, in {@link FeatureSchema} slot order, with NaN for
+ * a missing value. Read once from a CSV in the training data layout and not
+ * modified afterwards.
+ */
+final class Portfolio {
+
+    private static final FeatureSchema SCHEMA = FeatureSchema.of(Product.MORTGAGE);
+
+    static final int AGE = SCHEMA.slot("age");
+    static final int ANNUAL_INCOME = SCHEMA.slot("annual_income");
+    static final int MONTHLY_DEBT = SCHEMA.slot("monthly_debt");
+    static final int PROPERTY_PRICE = SCHEMA.slot("property_price");
+    static final int DEPOSIT_AMOUNT = SCHEMA.slot("deposit_amount");
+    static final int REQUESTED_LOAN = SCHEMA.slot("requested_loan");
+    static final int TERM_YEARS = SCHEMA.slot("mortgage_term_years");
+    static final int TERM_MONTHS = SCHEMA.slot("mortgage_term_months");
+
+    final double[][] columns;
+    final int size;
+    final int skipped;
+
+    private Portfolio(double[][] columns, int size, int skipped) {
+        this.columns = columns;
+        this.size = size;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Reads a CSV with a header row naming every mortgage request field
+     * except the optional {@code mortgage_term_months}; other columns are
+     * ignored.
+     * Rows that {@code /api/score} would reject are skipped and counted.
+     * Throws IllegalArgumentException for a missing column, no usable rows
+     * or more than {@code maxRows}.
+     */
+    static Portfolio read(InputStream in, int maxRows) throws IOException {
+        String[] names = SCHEMA.names();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("Portfolio is empty");
+        }
+        int[] index = SCHEMA.columns(Arrays.stream(headerLine.split(",")).map(String::trim).toList());
+        for (int d = 0; d < SCHEMA.requestFields(); d++) {
+            if (index[d] < 0 && d != TERM_MONTHS) {
+                throw new IllegalArgumentException("Portfolio has no column " + names[d]);
+            }
+        }
+
+        RequestValidator validator = RequestValidator.of(Product.MORTGAGE);
+        ScoreRequest req = new ScoreRequest();
+        double[] row = new double[SCHEMA.size()];
+        double[][] columns = new double[SCHEMA.requestFields()][1024];
+        int size = 0;
+        int skipped = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (!SCHEMA.parse(line.split(","), index, row)) {
+                skipped++;
+                continue;
+            }
+            fill(req, row);
+            try {
+                validator.validate(req);
+            } catch (ValidationException ve) {
+                skipped++;
+                continue;
+            }
+            if (size == maxRows) {
+                throw new IllegalArgumentException("Portfolio has more than " + maxRows + " rows");
+            }
+            if (size == columns[0].length) {
+                for (int d = 0; d < columns.length; d++) {
+                    columns[d] = Arrays.copyOf(columns[d], size * 2);
+                }
+            }
+            for (int d = 0; d < columns.length; d++) {
+                columns[d][size] = row[d];
+            }
+            size++;
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException("Portfolio has no usable rows");
+        }
+        for (int d = 0; d < columns.length; d++) {
+            columns[d] = Arrays.copyOf(columns[d], size);
+        }
+        return new Portfolio(columns, size, skipped);
+    }
+
+    /**
+     * Copies a feature vector into a request, for the policy rules.
+     */
+    static void fill(ScoreRequest req, double[] x) {
+        req.age = (int) x[AGE];
+        req.annual_income = x[ANNUAL_INCOME];
+        req.monthly_debt = x[MONTHLY_DEBT];
+        req.property_price = x[PROPERTY_PRICE];
+        req.deposit_amount = x[DEPOSIT_AMOUNT];
+        req.requested_loan = x[REQUESTED_LOAN];
+        req.mortgage_term_years = (int) x[TERM_YEARS];
+        req.mortgage_term_months = Double.isNaN(x[TERM_MONTHS]) ? null : (int) x[TERM_MONTHS];
+    }
+}
@@ -0,0 +1,334 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.StressScenario;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-runs a mortgage book under macro shocks: income, house price and debt
+ * changes applied to every application, then the policy rules and both
+ * mortgage models, reporting approval rate, borrowing capacity and policy
+ * declines per scenario.
+ *
+ * The book is read once into a {@link Portfolio}. A run copies it into one
+ * set of working columns, and for each scenario in turn every chunk of
+ * {@code stress.chunk-size} rows is restored from the book, shocked in
+ * place and scored on the pool. Chunk totals are merged when the scenario
+ * finishes. Scoring here is not audited and does not feed drift or shadow
+ * scoring.
+ */
+@Service
+public class PortfolioStressService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioStressService.class);
+
+    static final String BASELINE = "baseline";
+
+    private static final List<String> RULES = PolicyRuleEngine.RULES;
+
+    @Autowired
+    private PolicyRuleEngine rules;
+
+    @Autowired
+    private MultiModelScoringService mortgageService;
+
+    @Value("${stress.portfolio-path:}")
+    private String portfolioPath;
+
+    @Value("${stress.threads:0}")
+    private int threads;
+
+    @Value("${stress.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${stress.max-rows:1000000}")
+    private int maxRows = 1_000_000;
+
+    @Value("${stress.max-scenarios:20}")
+    private int maxScenarios = 20;
+
+    private volatile Portfolio portfolio;
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "stress-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (portfolioPath != null && !portfolioPath.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(portfolioPath))) {
+                load(in);
+                log.info("Loaded stress portfolio from {}: {} rows", portfolioPath, portfolio.size);
+            } catch (Exception e) {
+                log.error("Error loading stress portfolio {}: {}", portfolioPath, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Replaces the book with a CSV in the mortgage training data layout.
+     */
+    public Map<String, Object> load(InputStream csv) throws IOException {
+        portfolio = Portfolio.read(csv, maxRows);
+        return snapshot();
+    }
+
+    public Map<String, Object> snapshot() {
+        Portfolio p = portfolio;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("loaded", p != null);
+        out.put("rows", p == null ? 0 : p.size);
+        out.put("skipped", p == null ? 0 : p.skipped);
+        out.put("threads", pool.getMaximumPoolSize());
+        out.put("max_scenarios", maxScenarios);
+        return out;
+    }
+
+    /**
+     * Runs the unshocked book as {@code baseline}, then each scenario in
+     * order. Throws IllegalArgumentException for a bad scenario and
+     * IllegalStateException when there is no book or the models are not
+     * loaded.
+     */
+    public Map<String, Object> run(List<StressScenario> scenarios) throws InterruptedException {
+        Portfolio p = portfolio;
+        if (p == null) {
+            throw new IllegalStateException("No portfolio loaded");
+        }
+        if (!mortgageService.isReady()) {
+            throw new IllegalStateException("Models not loaded");
+        }
+        List<Shock> shocks = shocks(scenarios);
+
+        long start = System.nanoTime();
+        double[][] work = new double[p.columns.length][p.size];
+        List<Map<String, Object>> results = new ArrayList<>(shocks.size());
+        Tally baseline = null;
+        for (Shock shock : shocks) {
+            long t0 = System.nanoTime();
+            Tally total = new Tally();
+            List<Future<Tally>> futures = new ArrayList<>();
+            for (int from = 0; from < p.size; from += chunkSize) {
+                int f = from;
+                int to = Math.min(p.size, from + chunkSize);
+                futures.add(pool.submit(() -> runChunk(p, work, shock, f, to)));
+            }
+            try {
+                for (Future<Tally> future : futures) {
+                    total.add(future.get());
+                }
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Stress run failed: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+            if (baseline == null) {
+                baseline = total;
+            }
+            results.add(result(shock, total, baseline, (System.nanoTime() - t0) / 1_000_000));
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("rows", p.size);
+        out.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        out.put("scenarios", results);
+        return out;
+    }
+
+    private List<Shock> shocks(List<StressScenario> scenarios) {
+        int n = scenarios == null ? 0 : scenarios.size();
+        if (n > maxScenarios) {
+            throw new IllegalArgumentException("At most " + maxScenarios + " scenarios per run");
+        }
+        List<Shock> shocks = new ArrayList<>(n + 1);
+        shocks.add(new Shock(BASELINE, 0, 0, 0));
+        for (int i = 0; i < n; i++) {
+            StressScenario s = scenarios.get(i);
+            if (s == null) {
+                throw new IllegalArgumentException("Scenario " + i + " is null");
+            }
+            String name = s.name == null || s.name.isBlank() ? "scenario-" + (i + 1) : s.name;
+            shocks.add(new Shock(name, change(name, "income_change", s.income_change),
+                    change(name, "property_price_change", s.property_price_change),
+                    change(name, "debt_change", s.debt_change)));
+        }
+        return shocks;
+    }
+
+    private static double change(String scenario, String field, Double value) {
+        if (value == null) {
+            return 0;
+        }
+        if (!Double.isFinite(value) || value <= -1) {
+            throw new IllegalArgumentException(scenario + ": " + field + " must be a finite change above -1");
+        }
+        return value;
+    }
+
+    private Tally runChunk(Portfolio p, double[][] work, Shock shock, int from, int to) {
+        for (int d = 0; d < work.length; d++) {
+            System.arraycopy(p.columns[d], from, work[d], from, to - from);
+        }
+        shock.apply(work, from, to);
+
+        Tally t = new Tally();
+        ScoreRequest req = new ScoreRequest();
+        double[] x = new double[work.length];
+        for (int i = from; i < to; i++) {
+            for (int d = 0; d < work.length; d++) {
+                x[d] = work[d][i];
+            }
+            Portfolio.fill(req, x);
+            t.applications++;
+
+            PolicyRuleEngine.PolicyResult ruleResult = rules.applyRules(req);
+            if (!ruleResult.approved) {
+                t.policyDeclines[rule(ruleResult.declineRule)]++;
+                continue;
+            }
+            ScoreResponse res;
+            try {
+                res = mortgageService.predict(req, ruleResult);
+            } catch (Exception e) {
+                t.errors++;
+                continue;
+            }
+            t.scored++;
+            t.sumProbApproved += res.approval.prob_approved;
+            if (mortgageService.approves(res)) {
+                t.approved++;
+                t.borrowingCapacity += res.loanAmount.predicted_amount;
+            }
+        }
+        return t;
+    }
+
+    private static int rule(String rule) {
+        int r = RULES.indexOf(rule);
+        if (r < 0) {
+            throw new IllegalStateException("Unknown policy rule: " + rule);
+        }
+        return r;
+    }
+
+    private static Map<String, Object> result(Shock shock, Tally t, Tally baseline, long elapsedMillis) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("name", shock.name);
+        out.put("income_change", shock.income);
+        out.put("property_price_change", shock.propertyPrice);
+        out.put("debt_change", shock.debt);
+        out.put("applications", t.applications);
+        out.put("approved", t.approved);
+        out.put("approval_rate", t.approvalRate());
+        out.put("approval_rate_delta", t.approvalRate() - baseline.approvalRate());
+        out.put("total_borrowing_capacity", t.borrowingCapacity);
+        out.put("borrowing_capacity_delta", t.borrowingCapacity - baseline.borrowingCapacity);
+        out.put("mean_prob_approved", t.scored == 0 ? 0.0 : t.sumProbApproved / t.scored);
+        out.put("model_declined", t.scored - t.approved);
+
+        long policyDeclined = 0;
+        Map<String, Object> byRule = new LinkedHashMap<>();
+        for (int r = 0; r < RULES.size(); r++) {
+            byRule.put(RULES.get(r), t.policyDeclines[r]);
+            policyDeclined += t.policyDeclines[r];
+        }
+        out.put("policy_declined", policyDeclined);
+        out.put("policy_declines", byRule);
+        out.put("errors", t.errors);
+        out.put("elapsed_ms", elapsedMillis);
+        return out;
+    }
+
+    private record Shock(String name, double income, double propertyPrice, double debt) {
+
+        /**
+         * Applies the shocks to rows [from, to) in place. The requested loan
+         * is unchanged, so a fall in price comes out of the deposit (floored
+         * at zero) and raises the loan-to-value.
+         */
+        void apply(double[][] work, int from, int to) {
+            if (income != 0) {
+                scale(work[Portfolio.ANNUAL_INCOME], from, to, 1 + income);
+            }
+            if (debt != 0) {
+                scale(work[Portfolio.MONTHLY_DEBT], from, to, 1 + debt);
+            }
+            if (propertyPrice != 0) {
+                double[] price = work[Portfolio.PROPERTY_PRICE];
+                double[] deposit = work[Portfolio.DEPOSIT_AMOUNT];
+                for (int i = from; i < to; i++) {
+                    double shocked = price[i] * (1 + propertyPrice);
+                    deposit[i] = Math.max(0, deposit[i] + shocked - price[i]);
+                    price[i] = shocked;
+                }
+            }
+        }
+
+        private static void scale(double[] column, int from, int to, double factor) {
+            for (int i = from; i < to; i++) {
+                column[i] *= factor;
+            }
+        }
+    }
+
+    private static final class Tally {
+        long applications;
+        long scored;
+        long approved;
+        long errors;
+        final long[] policyDeclines = new long[RULES.size()];
+        double sumProbApproved;
+        double borrowingCapacity;
+
+        void add(Tally o) {
+            applications += o.applications;
+            scored += o.scored;
+            approved += o.approved;
+            errors += o.errors;
+            for (int r = 0; r < policyDeclines.length; r++) {
+                policyDeclines[r] += o.policyDeclines[r];
+            }
+            sumProbApproved += o.sumProbApproved;
+            borrowingCapacity += o.borrowingCapacity;
+        }
+
+        double approvalRate() {
+            return applications == 0 ? 0.0 : (double) approved / applications;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package aqubesolutions.aicredit.predictor.service;
+
+/**
+ * The products we score. The code matches the suffix used by the
+ * {@code /api/score/*} endpoints and the frontend product keys.
+ */
+public enum Product {
+    MORTGAGE("mo", "synthetic_mortgage_5000.csv", "age", "annual_income", "monthly_debt", "property_price",
+            "deposit_amount", "requested_loan", "mortgage_term_years", "mortgage_term_months"),
+    CREDIT_CARD("cc", "synthetic_creditcard_5000.csv", "age", "annual_income", "monthly_debt",
+            "existing_cc_balance", "total_cc_limit", "requested_limit"),
+    LOAN("ln", "synthetic_loan_5000.csv", "age", "annual_income", "monthly_debt", "requested_loan",
+            "loan_term_months"),
+    CURRENT_ACCOUNT("ca", "synthetic_currentaccount_5000.csv", "age", "annual_income", "monthly_debt",
+            "avg_monthly_balance", "overdraft_usage");
+
+    private final String code;
+    private final String trainingFile;
+    private final String[] features;
+
+    Product(String code, String trainingFile, String... features) {
+        this.code = code;
+        this.trainingFile = trainingFile;
+        this.features = features;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Name of the synthetic training CSV under {@code model-training/data}.
+     */
+    public String trainingFile() {
+        return trainingFile;
+    }
+
+    /**
+     * Request fields in the order the product's request DTO declares them.
+     */
+    public String[] features() {
+        return features.clone();
+    }
+
+    public int featureCount() {
+        return features.length;
+    }
+
+    public static Product fromCode(String code) {
+        for (Product p : values()) {
+            if (p.code.equalsIgnoreCase(code)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("Unknown product: " + code);
+    }
+}
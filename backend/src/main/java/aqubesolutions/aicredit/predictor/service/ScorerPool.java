@@ -0,0 +1,94 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import hex.genmodel.GenModel;
+
+import java.util.Arrays;
+
+/**
+ * One MOJO shared by every thread, with a scorer per thread holding the
+ * buffers it scores with.
+ *
+ * {@link hex.genmodel.easy.EasyPredictModelWrapper} builds a RowData map of
+ * strings per call, parses it back into a fresh row array and allocates the
+ * prediction arrays and objects. A {@link Scorer} instead copies a feature
+ * vector laid out by the product's {@link FeatureSchema} straight into its
+ * own row and calls the model with its own prediction array, so a score
+ * allocates nothing in this class. The model itself is stateless and shared.
+ *
+ * Model columns are bound to {@link FeatureSchema} slots when the pool is
+ * created; a model that reads a column the schema does not have, or reads
+ * one as categorical, is rejected then rather than scored with NaN.
+ */
+final class ScorerPool {
+
+    private final GenModel model;
+    private final int[] columns;
+    private final String[] labels;
+    private final FeatureSchema schema;
+    private final ThreadLocal<Scorer> scorers;
+
+    ScorerPool(Product product, GenModel model) {
+        this.model = model;
+        this.schema = FeatureSchema.of(product);
+        // Model column -> schema slot
+        this.columns = schema.bind(model);
+        this.labels = model.getDomainValues(model.getResponseIdx());
+        int predsSize = model.getPredsSize();
+        this.scorers = ThreadLocal.withInitial(() -> new Scorer(predsSize));
+    }
+
+    /**
+     * Label of a binomial model's positive class.
+     */
+    String positiveLabel() {
+        return labels[labels.length - 1];
+    }
+
+    /**
+     * The calling thread's scorer. It must not be handed to another thread.
+     */
+    Scorer get() {
+        return scorers.get();
+    }
+
+    final class Scorer {
+        private final double[] features = new double[schema.size()];
+        private final double[] row = new double[columns.length];
+        private final double[] preds;
+
+        private Scorer(int predsSize) {
+            this.preds = new double[predsSize];
+        }
+
+        /**
+         * This scorer's feature vector, {@link FeatureSchema#size()} long,
+         * for callers to fill before {@link #score}.
+         */
+        double[] features() {
+            return features;
+        }
+
+        /**
+         * Scores a feature vector laid out by the product's schema. The
+         * result is this scorer's own array, overwritten by its next call:
+         * for a binomial model the label index then the class probabilities,
+         * for a regression model the value first.
+         */
+        double[] score(double[] x) {
+            for (int c = 0; c < row.length; c++) {
+                row[c] = x[columns[c]];
+            }
+            Arrays.fill(preds, 0);
+            model.score0(row, preds);
+            return preds;
+        }
+
+        /**
+         * Label of the last binomial score.
+         */
+        String label() {
+            return labels[(int) preds[0]];
+        }
+    }
+}
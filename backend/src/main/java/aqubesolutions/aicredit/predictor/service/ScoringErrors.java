@@ -0,0 +1,30 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Error bodies for results that carry their own status, where one response
+ * holds many scores: the status the single-request endpoint would have
+ * answered, then that endpoint's body.
+ */
+final class ScoringErrors {
+
+    private ScoringErrors() {
+    }
+
+    static Map<String, Object> body(Throwable e) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (e instanceof ValidationException ve) {
+            out.put("status", 400);
+            out.putAll(ve.body());
+        } else {
+            out.put("status", e instanceof IllegalArgumentException ? 400
+                    : e instanceof IllegalStateException ? 503 : 500);
+            out.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,642 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Scoring jobs for batches too large for one HTTP request. A client uploads
+ * a file of requests for one product, polls the job and downloads the
+ * results once it completes.
+ *
+ * Each job is a directory under {@code jobs.dir}: the input normalised to
+ * one request per line, the results written so far (one JSON line per input
+ * line, in input order) and {@code job.json} holding its state. Results are
+ * appended a chunk of {@code jobs.chunk-size} lines at a time; after each
+ * chunk the results file is forced to disk and {@code job.json} is replaced
+ * atomically with the new line count and results length. A job interrupted
+ * by a restart resumes after its last checkpoint, truncating any results
+ * written past it. A worker holds a file lock on the job's {@code job.lock}
+ * while it runs the job, so two processes sharing {@code jobs.dir} never run
+ * the same job; {@code jobs.resume=false} keeps a process from picking up
+ * unfinished jobs at all.
+ *
+ * Jobs run one per worker on {@code jobs.workers} threads through the usual
+ * scoring services, so they are audited and feed drift and shadow scoring
+ * like any other request. Auditing is at least once: lines scored after the
+ * last checkpoint before a restart are scored, and audited, again when the
+ * job resumes, so up to {@code jobs.chunk-size} - 1 lines of a job may have
+ * two audit records.
+ */
+@Service
+public class ScoringJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringJobService.class);
+
+    static final String STATE_FILE = "job.json";
+    static final String INPUT_FILE = "input.ndjson";
+    static final String RESULTS_FILE = "results.ndjson";
+    static final String LOCK_FILE = "job.lock";
+
+    static final String QUEUED = "QUEUED";
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    @Autowired
+    private MultiModelScoringService mortgageService;
+
+    @Autowired
+    private CreditCardScoringService creditCardService;
+
+    @Autowired
+    private LoanScoringService loanService;
+
+    @Autowired
+    private CurrentAccountScoringService currentAccountService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${jobs.dir:./jobs}")
+    private String dir;
+
+    @Value("${jobs.workers:2}")
+    private int workers = 2;
+
+    @Value("${jobs.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${jobs.max-pending:100}")
+    private int maxPending = 100;
+
+    @Value("${jobs.resume:true}")
+    private boolean resume = true;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // Queued and running jobs, reserved before an upload is read so that
+    // concurrent submits cannot overshoot maxPending
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Path root;
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(dir);
+        Files.createDirectories(root);
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "scoring-job-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (resume) {
+            recover();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs stop where they are and resume from their checkpoint on the next start
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads the jobs on disk and requeues those that had not finished, in
+     * the order they were submitted.
+     */
+    private void recover() throws IOException {
+        List<Job> resumed = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path jobDir : (Iterable<Path>) dirs::iterator) {
+                Path stateFile = jobDir.resolve(STATE_FILE);
+                if (!Files.isRegularFile(stateFile)) {
+                    continue;
+                }
+                try {
+                    Job job = new Job(jobDir, mapper.readValue(stateFile.toFile(), State.class));
+                    jobs.put(job.state.id, job);
+                    if (QUEUED.equals(job.state.status) || RUNNING.equals(job.state.status)) {
+                        job.counted = true;
+                        pending.incrementAndGet();
+                        resumed.add(job);
+                    }
+                } catch (IOException e) {
+                    log.error("Skipping unreadable job {}: {}", jobDir, e.getMessage());
+                }
+            }
+        }
+        resumed.sort(Comparator.comparing(j -> j.state.submitted_at));
+        for (Job job : resumed) {
+            pool.execute(() -> run(job));
+        }
+        if (!resumed.isEmpty()) {
+            log.info("Resuming {} scoring jobs from {}", resumed.size(), root);
+        }
+    }
+
+    /**
+     * Decides whether an upload may be queued once its requests are counted,
+     * e.g. by charging them to a quota.
+     */
+    @FunctionalInterface
+    public interface Admission {
+        /**
+         * Returns 0 to queue the job; anything else rejects it with that code.
+         */
+        long admit(Product product, long requests);
+    }
+
+    /**
+     * Stores the body, a JSON array or NDJSON of requests for one product,
+     * and queues it. Throws IllegalStateException when too many jobs are
+     * waiting or running.
+     */
+    public Map<String, Object> submit(String productCode, InputStream body) throws IOException {
+        return submit(productCode, body, (product, requests) -> 0);
+    }
+
+    /**
+     * {@link #submit(String, InputStream)}, asking {@code admission} before
+     * queueing. A rejected upload is deleted and JobRejectedException thrown.
+     */
+    public Map<String, Object> submit(String productCode, InputStream body, Admission admission) throws IOException {
+        Product product = Product.fromCode(productCode);
+        int n;
+        do {
+            n = pending.get();
+            if (n >= maxPending) {
+                throw new IllegalStateException("Too many pending jobs");
+            }
+        } while (!pending.compareAndSet(n, n + 1));
+
+        Job job;
+        boolean queued = false;
+        try {
+            String id = UUID.randomUUID().toString();
+            Path jobDir = root.resolve(id);
+            Files.createDirectories(jobDir);
+
+            long total;
+            try {
+                total = copyInput(body, jobDir.resolve(INPUT_FILE));
+                if (total == 0) {
+                    throw new IllegalArgumentException("No requests in body");
+                }
+                long code = admission.admit(product, total);
+                if (code != 0) {
+                    throw new JobRejectedException(code);
+                }
+            } catch (IOException | RuntimeException e) {
+                deleteTree(jobDir);
+                throw e;
+            }
+
+            State state = new State();
+            state.id = id;
+            state.product = product.code();
+            state.status = QUEUED;
+            state.total = total;
+            state.submitted_at = Instant.now().toString();
+            job = new Job(jobDir, state);
+            job.counted = true;
+            save(job);
+            jobs.put(id, job);
+            queued = true;
+        } finally {
+            if (!queued) {
+                pending.decrementAndGet();
+            }
+        }
+        pool.execute(() -> run(job));
+        return status(job.state.id);
+    }
+
+    public Map<String, Object> status(String id) {
+        Job job = get(id);
+        synchronized (job) {
+            State s = job.state;
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("job_id", s.id);
+            out.put("product", s.product);
+            out.put("status", s.status);
+            out.put("total", s.total);
+            out.put("processed", s.processed);
+            out.put("errors", s.errors);
+            out.put("progress", s.total == 0 ? 0.0 : (double) s.processed / s.total);
+            out.put("submitted_at", s.submitted_at);
+            out.put("started_at", s.started_at);
+            out.put("finished_at", s.finished_at);
+            if (s.error != null) {
+                out.put("error", s.error);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * The results file of a completed job, or null while it is still queued
+     * or running.
+     */
+    public Path results(String id) {
+        Job job = get(id);
+        synchronized (job) {
+            return COMPLETED.equals(job.state.status) ? job.dir.resolve(RESULTS_FILE) : null;
+        }
+    }
+
+    /**
+     * Cancels a job and deletes its files. A running job stops after the
+     * line it is scoring and deletes them itself; this waits for that.
+     */
+    public boolean delete(String id) {
+        Job job = jobs.remove(id);
+        if (job == null) {
+            return false;
+        }
+        synchronized (job) {
+            job.cancelled = true;
+            release(job);
+            if (!job.running) {
+                deleteTree(job.dir);
+            }
+            try {
+                while (job.running) {
+                    job.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("workers", workers);
+        out.put("chunk_size", chunkSize);
+        out.put("pending", pending.get());
+        out.put("max_pending", maxPending);
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (String id : jobs.keySet()) {
+            try {
+                list.add(status(id));
+            } catch (NoSuchJobException e) {
+                // Deleted meanwhile
+            }
+        }
+        list.sort(Comparator.comparing(m -> String.valueOf(m.get("submitted_at"))));
+        out.put("jobs", list);
+        return out;
+    }
+
+    /**
+     * Gives back the job's slot in {@code pending} once it is no longer queued
+     * or running. Called with the job's lock held; only the first call counts.
+     */
+    private void release(Job job) {
+        if (job.counted) {
+            job.counted = false;
+            pending.decrementAndGet();
+        }
+    }
+
+    private Job get(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new NoSuchJobException(id);
+        }
+        return job;
+    }
+
+    /**
+     * Runs a job under its lock; if another process holds the lock the job is
+     * left to it.
+     */
+    void run(Job job) {
+        if (job.cancelled) {
+            return;
+        }
+        try (FileChannel lockFile = FileChannel.open(job.dir.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock;
+            try {
+                lock = lockFile.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                log.warn("Scoring job {} is locked by another process; leaving it", job.state.id);
+                return;
+            }
+            runLocked(job);
+        } catch (IOException e) {
+            if (!job.cancelled) {
+                log.error("Error locking job {}: {}", job.state.id, e.getMessage());
+            }
+        }
+    }
+
+    private void runLocked(Job job) {
+        State s = job.state;
+        Product product;
+        synchronized (job) {
+            if (job.cancelled) {
+                return;
+            }
+            job.running = true;
+            s.status = RUNNING;
+            if (s.started_at == null) {
+                s.started_at = Instant.now().toString();
+            }
+            product = Product.fromCode(s.product);
+        }
+        try (BufferedReader in = Files.newBufferedReader(job.dir.resolve(INPUT_FILE), StandardCharsets.UTF_8);
+             FileChannel out = FileChannel.open(job.dir.resolve(RESULTS_FILE),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            save(job);
+
+            // Drop anything written after the last checkpoint and skip the lines it covers
+            out.truncate(s.results_bytes);
+            out.position(s.results_bytes);
+            for (long i = 0; i < s.processed; i++) {
+                in.readLine();
+            }
+
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            long index = s.processed;
+            int lines = 0;
+            int errors = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (job.cancelled || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (!scoreLine(product, index++, line, chunk)) {
+                    errors++;
+                }
+                if (++lines == chunkSize) {
+                    checkpoint(job, out, chunk, lines, errors);
+                    lines = 0;
+                    errors = 0;
+                }
+            }
+            if (lines > 0) {
+                checkpoint(job, out, chunk, lines, errors);
+            }
+            synchronized (job) {
+                s.status = COMPLETED;
+                s.finished_at = Instant.now().toString();
+                release(job);
+            }
+            save(job);
+            log.info("Scoring job {} completed: {} lines, {} errors", s.id, s.processed, s.errors);
+        } catch (ClosedByInterruptException e) {
+            // Shutting down; resumed from the last checkpoint on restart
+        } catch (Exception e) {
+            log.error("Scoring job {} failed: {}", s.id, e.getMessage(), e);
+            synchronized (job) {
+                s.status = FAILED;
+                s.error = e.getMessage();
+                s.finished_at = Instant.now().toString();
+                release(job);
+            }
+            try {
+                save(job);
+            } catch (IOException io) {
+                log.error("Error saving job {}: {}", s.id, io.getMessage());
+            }
+        } finally {
+            synchronized (job) {
+                job.running = false;
+                if (job.cancelled) {
+                    deleteTree(job.dir);
+                }
+                job.notifyAll();
+            }
+        }
+    }
+
+    private void checkpoint(Job job, FileChannel out, ByteArrayOutputStream chunk, int lines, int errors)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(chunk.toByteArray());
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        out.force(false);
+        chunk.reset();
+        synchronized (job) {
+            job.state.processed += lines;
+            job.state.errors += errors;
+            job.state.results_bytes = out.position();
+        }
+        save(job);
+    }
+
+    /**
+     * Scores one input line and appends its result line. Returns false when
+     * the line could not be scored.
+     */
+    private boolean scoreLine(Product product, long index, String line, OutputStream out) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        boolean ok;
+        try {
+            Object req;
+            try {
+                req = mapper.readValue(line, FeatureSchema.of(product).requestType());
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed request: " + e.getOriginalMessage());
+            }
+            result.put("result", score(product, req));
+            ok = true;
+        } catch (Exception e) {
+            result.putAll(ScoringErrors.body(e));
+            ok = false;
+        }
+        out.write(mapper.writeValueAsBytes(result));
+        out.write('\n');
+        return ok;
+    }
+
+    private Object score(Product product, Object req) throws Exception {
+        return switch (product) {
+            case MORTGAGE -> mortgageService.score((ScoreRequest) req);
+            case CREDIT_CARD -> creditCardService.score((CreditCardScoreRequest) req);
+            case LOAN -> loanService.score((LoanScoreRequest) req);
+            case CURRENT_ACCOUNT -> currentAccountService.score((CurrentAccountScoreRequest) req);
+        };
+    }
+
+    /**
+     * Writes each request of a JSON array or NDJSON body to {@code file} on a
+     * line of its own, and returns the count. Blank NDJSON lines are skipped;
+     * other lines are kept as they are and fail when scored if malformed.
+     */
+    long copyInput(InputStream body, Path file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body);
+        int c;
+        do {
+            in.mark(1);
+            c = in.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        if (c == -1) {
+            return 0;
+        }
+        in.reset();
+
+        long count = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (c == '[') {
+                try (JsonParser parser = mapper.getFactory().createParser(in)) {
+                    parser.nextToken();
+                    JsonToken token;
+                    while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                        out.write(mapper.writeValueAsBytes(mapper.readTree(parser)));
+                        out.write('\n');
+                        count++;
+                    }
+                    if (token != JsonToken.END_ARRAY) {
+                        throw new IllegalArgumentException("Array items must be request objects, found " + token);
+                    }
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Malformed JSON array: " + e.getOriginalMessage());
+                }
+            } else {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        out.write(line.getBytes(StandardCharsets.UTF_8));
+                        out.write('\n');
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private void save(Job job) throws IOException {
+        byte[] json;
+        synchronized (job) {
+            if (job.cancelled) {
+                return;
+            }
+            json = mapper.writeValueAsBytes(job.state);
+        }
+        Path tmp = job.dir.resolve(STATE_FILE + ".tmp");
+        Files.write(tmp, json);
+        Files.move(tmp, job.dir.resolve(STATE_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deleteTree(Path path) {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.warn("Error deleting {}: {}", path, e.getMessage());
+        }
+    }
+
+    public static class NoSuchJobException extends RuntimeException {
+        public NoSuchJobException(String id) {
+            super("No such job: " + id);
+        }
+    }
+
+    /**
+     * An upload its {@link Admission} rejected; {@code code} is what it
+     * returned.
+     */
+    public static class JobRejectedException extends RuntimeException {
+        public final long code;
+
+        public JobRejectedException(long code) {
+            super("Job rejected");
+            this.code = code;
+        }
+    }
+
+    /**
+     * What {@code job.json} holds; {@code processed} and {@code results_bytes}
+     * are the last checkpoint.
+     */
+    public static class State {
+        public String id;
+        public String product;
+        public String status;
+        public long total;
+        public long processed;
+        public long errors;
+        public long results_bytes;
+        public String submitted_at;
+        public String started_at;
+        public String finished_at;
+        public String error;
+    }
+
+    static final class Job {
+        final Path dir;
+        final State state;
+        boolean running;
+        // Holds a slot in pending
+        boolean counted;
+        volatile boolean cancelled;
+
+        Job(Path dir, State state) {
+            this.dir = dir;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.validation.RequestValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interactive scoring sessions. A session holds one application; the client
+ * sends only the fields that changed and gets the new result back, and
+ * also as an SSE event to any subscribers.
+ *
+ * Each session keeps its feature vector, the mortgage policy intermediates
+ * (age at term end, effective income, LTV, DTI, income multiple) and the
+ * last model result. A patch recomputes only the intermediates whose inputs
+ * changed, and the models run again only when some model input moved by
+ * more than {@code session.model-tolerance} (relative) since the last call.
+ *
+ * Session results are not audited and feed neither drift nor shadow
+ * scoring: they are what-if answers, and the application is scored through
+ * {@code /api/score} once it is submitted.
+ */
+@Service
+public class ScoringSessionService {
+
+    private static final int INCOME_SLOT = FeatureSchema.of(Product.MORTGAGE).slot("annual_income");
+
+    @Autowired
+    private PolicyRuleEngine rules;
+
+    @Autowired
+    private MultiModelScoringService mortgageService;
+
+    @Autowired
+    private CreditCardScoringService creditCardService;
+
+    @Autowired
+    private LoanScoringService loanService;
+
+    @Autowired
+    private CurrentAccountScoringService currentAccountService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${session.max-sessions:10000}")
+    private int maxSessions = 10000;
+
+    @Value("${session.idle-timeout-seconds:300}")
+    private long idleTimeoutSeconds = 300;
+
+    // At the limit, the least recently used session is closed if idle this long
+    @Value("${session.evict-after-seconds:30}")
+    private long evictAfterSeconds = 30;
+
+    @Value("${session.model-tolerance:0.001}")
+    private double modelTolerance = 0.001;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder modelCalls = new LongAdder();
+    private final LongAdder modelSkips = new LongAdder();
+    private final LongAdder policyRecomputed = new LongAdder();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        long period = Math.max(1, Math.min(idleTimeoutSeconds, 30));
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(() -> evictIdle(System.nanoTime()), period, period, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        for (String id : List.copyOf(sessions.keySet())) {
+            close(id);
+        }
+    }
+
+    /**
+     * Opens a session for a full request and scores it.
+     */
+    public Map<String, Object> open(String productCode, JsonNode body) throws Exception {
+        Product product = Product.fromCode(productCode);
+        if (body == null || !body.isObject()) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        checkFields(product, body, false);
+        Object req = mapper.treeToValue(body, FeatureSchema.of(product).requestType());
+        RequestValidator.of(product).validate(req);
+
+        reserve(System.nanoTime());
+        Session s = new Session(UUID.randomUUID().toString(), product, req);
+        try {
+            FeatureSchema.of(product).fillRequest(req, s.features);
+            if (product == Product.MORTGAGE) {
+                s.policy = rules.prepare((ScoreRequest) req);
+            }
+            score(s, -1);
+        } catch (Exception e) {
+            count.decrementAndGet();
+            throw e;
+        }
+        sessions.put(s.id, s);
+        created.increment();
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("session_id", s.id);
+        out.put("product", product.code());
+        out.put("result", s.result);
+        return out;
+    }
+
+    /**
+     * Applies the changed fields to a session and rescores it.
+     */
+    public Map<String, Object> patch(String id, JsonNode body) throws Exception {
+        Session s = get(id);
+        if (body == null || !body.isObject()) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        checkFields(s.product, body, true);
+
+        Map<String, Object> out;
+        synchronized (s) {
+            if (s.closed) {
+                throw new NoSuchSessionException(id);
+            }
+            Object updated = mapper.readerForUpdating(copy(s)).readValue(body);
+            RequestValidator.of(s.product).validate(updated);
+            double[] next = new double[s.features.length];
+            FeatureSchema.of(s.product).fillRequest(updated, next);
+            int changed = 0;
+            for (int i = 0; i < next.length; i++) {
+                if (Double.compare(next[i], s.features[i]) != 0) {
+                    changed |= 1 << i;
+                }
+            }
+            s.request = updated;
+            s.features = next;
+
+            out = score(s, changed);
+            s.touch();
+        }
+        patches.increment();
+        publish(s, out);
+        return out;
+    }
+
+    public Product product(String id) {
+        return get(id).product;
+    }
+
+    public SseEmitter subscribe(String id) {
+        Session s = get(id);
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(idleTimeoutSeconds));
+        s.emitters.add(emitter);
+        emitter.onCompletion(() -> s.emitters.remove(emitter));
+        emitter.onTimeout(() -> s.emitters.remove(emitter));
+        emitter.onError(e -> s.emitters.remove(emitter));
+        try {
+            emitter.send(SseEmitter.event().name("score").data(event(s, s.result, 0, 0, false)));
+        } catch (IOException e) {
+            s.emitters.remove(emitter);
+        }
+        return emitter;
+    }
+
+    public boolean close(String id) {
+        Session s = sessions.remove(id);
+        if (s == null) {
+            return false;
+        }
+        count.decrementAndGet();
+        synchronized (s) {
+            s.closed = true;
+        }
+        for (SseEmitter emitter : s.emitters) {
+            emitter.complete();
+        }
+        return true;
+    }
+
+    /**
+     * Takes a place for a new session. At the limit the least recently used
+     * session makes room if it has been idle for {@code evict-after-seconds};
+     * otherwise SessionLimitException says when one will have been.
+     */
+    private void reserve(long now) {
+        long minIdle = TimeUnit.SECONDS.toNanos(evictAfterSeconds);
+        while (count.incrementAndGet() > maxSessions) {
+            count.decrementAndGet();
+            Session lru = null;
+            for (Session s : sessions.values()) {
+                if (lru == null || s.lastAccess - lru.lastAccess < 0) {
+                    lru = s;
+                }
+            }
+            if (lru == null) {
+                // Places taken by sessions still opening
+                throw new SessionLimitException(1);
+            }
+            long idle = now - lru.lastAccess;
+            if (idle < minIdle) {
+                long wait = minIdle - idle;
+                throw new SessionLimitException(Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1)
+                        / TimeUnit.SECONDS.toNanos(1)));
+            }
+            if (close(lru.id)) {
+                evicted.increment();
+            }
+        }
+    }
+
+    void evictIdle(long now) {
+        long limit = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        for (Session s : sessions.values()) {
+            if (now - s.lastAccess > limit && close(s.id)) {
+                evicted.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("active", count.get());
+        out.put("max_sessions", maxSessions);
+        out.put("idle_timeout_seconds", idleTimeoutSeconds);
+        out.put("model_tolerance", modelTolerance);
+        out.put("created", created.sum());
+        out.put("evicted", evicted.sum());
+        out.put("patches", patches.sum());
+        out.put("model_calls", modelCalls.sum());
+        out.put("model_skips", modelSkips.sum());
+        out.put("policy_intermediates_recomputed", policyRecomputed.sum());
+        return out;
+    }
+
+    /**
+     * Brings the session result up to date with its request. {@code changed}
+     * has bit {@code i} set when feature {@code i} changed, -1 for a new session.
+     */
+    private Map<String, Object> score(Session s, int changed) throws Exception {
+        if (changed == 0) {
+            modelSkips.increment();
+            return event(s, s.result, 0, 0, true);
+        }
+
+        int recomputed = 0;
+        PolicyRuleEngine.PolicyResult ruleResult = null;
+        double[] modelInput = s.features;
+        if (s.product == Product.MORTGAGE) {
+            ScoreRequest req = (ScoreRequest) s.request;
+            recomputed = changed == -1 ? 5 : rules.update(req, s.policy, changed);
+            policyRecomputed.add(recomputed);
+            ruleResult = rules.evaluate(req, s.policy);
+            if (!ruleResult.approved) {
+                // Declined by policy: no model call, and the last model result stays valid
+                ScoreResponse res = mortgageService.predict(req, ruleResult);
+                res.policy_message = ruleResult.declineReason;
+                s.result = res;
+                return event(s, res, changed, recomputed, false);
+            }
+            // The models see the effective income, not the declared one
+            modelInput = s.features.clone();
+            modelInput[INCOME_SLOT] = s.policy.effectiveIncome;
+        }
+
+        boolean reuse = s.modelInput != null && close(modelInput, s.modelInput, modelTolerance);
+        if (reuse) {
+            modelSkips.increment();
+            s.result = s.product == Product.MORTGAGE
+                    ? withPolicy((ScoreResponse) s.modelResult, ruleResult)
+                    : s.modelResult;
+        } else {
+            modelCalls.increment();
+            s.modelResult = predict(s, ruleResult);
+            s.modelInput = modelInput;
+            s.result = s.modelResult;
+        }
+        return event(s, s.result, changed, recomputed, reuse);
+    }
+
+    private Object predict(Session s, PolicyRuleEngine.PolicyResult ruleResult) throws Exception {
+        return switch (s.product) {
+            case MORTGAGE -> mortgageService.predict((ScoreRequest) s.request, ruleResult);
+            case CREDIT_CARD -> creditCardService.predict((CreditCardScoreRequest) s.request);
+            case LOAN -> loanService.predict((LoanScoreRequest) s.request);
+            case CURRENT_ACCOUNT -> currentAccountService.predict((CurrentAccountScoreRequest) s.request);
+        };
+    }
+
+    private static ScoreResponse withPolicy(ScoreResponse modelResult, PolicyRuleEngine.PolicyResult ruleResult) {
+        ScoreResponse res = new ScoreResponse();
+        res.approval = modelResult.approval;
+        res.loanAmount = modelResult.loanAmount;
+        res.policy_message = MultiModelScoringService.policyMessage(ruleResult);
+        return res;
+    }
+
+    /**
+     * True when every value is within {@code tolerance} of the previous one,
+     * relative to the previous value.
+     */
+    static boolean close(double[] next, double[] prev, double tolerance) {
+        for (int i = 0; i < next.length; i++) {
+            double a = next[i];
+            double b = prev[i];
+            if (Double.compare(a, b) != 0
+                    && (Double.isNaN(a) || Double.isNaN(b) || Math.abs(a - b) > tolerance * Math.abs(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Object> event(Session s, Object result, int changed, int recomputed, boolean modelReused) {
+        List<String> fields = new ArrayList<>();
+        String[] names = s.product.features();
+        for (int i = 0; i < names.length; i++) {
+            if ((changed & (1 << i)) != 0) {
+                fields.add(names[i]);
+            }
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("session_id", s.id);
+        out.put("result", result);
+        out.put("changed", fields);
+        out.put("policy_recomputed", recomputed);
+        out.put("model_reused", modelReused);
+        return out;
+    }
+
+    private void publish(Session s, Map<String, Object> event) {
+        for (SseEmitter emitter : s.emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("score").data(event));
+            } catch (IOException | IllegalStateException e) {
+                s.emitters.remove(emitter);
+            }
+        }
+    }
+
+    private Session get(String id) {
+        Session s = sessions.get(id);
+        if (s == null) {
+            throw new NoSuchSessionException(id);
+        }
+        s.touch();
+        return s;
+    }
+
+    private Object copy(Session s) {
+        return mapper.convertValue(s.request, FeatureSchema.of(s.product).requestType());
+    }
+
+    private static void checkFields(Product product, JsonNode body, boolean patch) {
+        List<String> known = List.of(product.features());
+        for (Map.Entry<String, JsonNode> field : body.properties()) {
+            if (!known.contains(field.getKey())) {
+                throw new IllegalArgumentException("Unknown field for " + product.code() + ": " + field.getKey());
+            }
+            JsonNode v = field.getValue();
+            if (patch && v.isNull()) {
+                throw new IllegalArgumentException("Field cannot be cleared: " + field.getKey());
+            }
+            if (!v.isNull() && !v.isNumber()) {
+                throw new IllegalArgumentException("Field must be a number: " + field.getKey());
+            }
+        }
+    }
+
+    public static class NoSuchSessionException extends RuntimeException {
+        public NoSuchSessionException(String id) {
+            super("No such session: " + id);
+        }
+    }
+
+    /**
+     * No room for another session yet; answered with 429 and Retry-After.
+     */
+    public static class SessionLimitException extends IllegalStateException {
+        public final long retryAfterSeconds;
+
+        public SessionLimitException(long retryAfterSeconds) {
+            super("Session limit reached");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    private static final class Session {
+        final String id;
+        final Product product;
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        Object request;
+        double[] features;
+        PolicyRuleEngine.PolicyIntermediates policy;
+        double[] modelInput;
+        Object modelResult;
+        Object result;
+        boolean closed;
+        volatile long lastAccess = System.nanoTime();
+
+        Session(String id, Product product, Object request) {
+            this.id = id;
+            this.product = product;
+            this.request = request;
+            this.features = new double[product.featureCount()];
+        }
+
+        void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.model.ModelStore;
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Champion/challenger scoring. The champion approval model is scored on the
+ * request thread as usual; when a challenger MOJO is configured for the product
+ * a copy of the same features is handed to this service and scored later on a
+ * low-priority pool.
+ *
+ * The hand-off never blocks: if the queue is full the request is dropped and
+ * counted.
+ */
+@Service
+public class ShadowScoringService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShadowScoringService.class);
+
+    static final String CHALLENGER_VERSION = "challenger";
+
+    private static final int BUCKETS = 10;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Autowired
+    private ModelStore modelStore;
+
+    @Value("${shadow.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${shadow.threads:1}")
+    private int threads = 1;
+
+    @Value("${shadow.mo-approval-path:}")
+    private String mortgagePath;
+
+    @Value("${shadow.cc-approval-path:}")
+    private String creditCardPath;
+
+    @Value("${shadow.ln-approval-path:}")
+    private String loanPath;
+
+    @Value("${shadow.ca-approval-path:}")
+    private String currentAccountPath;
+
+    private final Map<Product, EasyPredictModelWrapper> challengers = new EnumMap<>(Product.class);
+    private final Map<Product, ShadowStats> stats = new EnumMap<>(Product.class);
+
+    private final ConcurrentLinkedQueue<ShadowTask> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public ShadowScoringService() {
+        for (Product p : Product.values()) {
+            stats.put(p, new ShadowStats());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        load(Product.MORTGAGE, mortgagePath);
+        load(Product.CREDIT_CARD, creditCardPath);
+        load(Product.LOAN, loanPath);
+        load(Product.CURRENT_ACCOUNT, currentAccountPath);
+
+        if (challengers.isEmpty()) {
+            return;
+        }
+
+        running = true;
+        AtomicInteger n = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "shadow-scorer-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            workers.submit(this::runWorker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void load(Product product, String path) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        try {
+            log.info("Loading {} challenger approval model from {}", product, path);
+            // Loaded through the store so trees it shares with the champion are not duplicated
+            setChallenger(product, new EasyPredictModelWrapper(
+                    modelStore.load(product.code() + "-approval", CHALLENGER_VERSION, path).model));
+        } catch (Exception e) {
+            log.error("Error loading {} challenger model: {}", product, e.getMessage(), e);
+        }
+    }
+
+    void setChallenger(Product product, EasyPredictModelWrapper model) {
+        challengers.put(product, model);
+    }
+
+    public boolean isActive(Product product) {
+        return challengers.containsKey(product);
+    }
+
+    /**
+     * Queues a feature vector laid out by the product's {@link FeatureSchema}
+     * for challenger scoring. It is copied only once the request is accepted, so
+     * the caller may reuse it. Returns false if the request was dropped.
+     */
+    public boolean submit(Product product, double[] features, String championLabel, double championProb) {
+        if (!isActive(product)) {
+            return false;
+        }
+        if (depth.incrementAndGet() > queueCapacity) {
+            depth.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(new ShadowTask(product, features.clone(), championLabel, championProb));
+        return true;
+    }
+
+    private void runWorker() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            if (!drainOne()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Scores a single queued request. Returns false when the queue was empty.
+     */
+    boolean drainOne() {
+        ShadowTask task = queue.poll();
+        if (task == null) {
+            return false;
+        }
+        depth.decrementAndGet();
+
+        ShadowStats s = stats.get(task.product);
+        try {
+            BinomialModelPrediction pred = challengers.get(task.product).predictBinomial(row(task));
+            s.record(task.championLabel, task.championProb, pred.label, pred.classProbabilities[1]);
+        } catch (Exception e) {
+            s.errors.increment();
+        }
+        return true;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("queue_capacity", queueCapacity);
+        out.put("queue_depth", depth.get());
+        out.put("dropped", dropped.sum());
+
+        Map<String, Object> products = new LinkedHashMap<>();
+        for (Product p : Product.values()) {
+            if (isActive(p)) {
+                products.put(p.code(), stats.get(p).snapshot());
+            }
+        }
+        out.put("products", products);
+        return out;
+    }
+
+    private static RowData row(ShadowTask task) {
+        return FeatureSchema.of(task.product).rowData(task.features);
+    }
+
+    private record ShadowTask(Product product, double[] features, String championLabel, double championProb) {
+    }
+
+    /**
+     * Agreement and distribution counters for one product. Only the shadow
+     * workers write here, so contention stays off the request path.
+     */
+    static class ShadowStats {
+        final LongAdder compared = new LongAdder();
+        final LongAdder disagreements = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final DoubleAdder sumAbsDelta = new DoubleAdder();
+        final AtomicLong maxAbsDeltaBits = new AtomicLong(Double.doubleToLongBits(0.0));
+        final AtomicLongArray championHist = new AtomicLongArray(BUCKETS);
+        final AtomicLongArray challengerHist = new AtomicLongArray(BUCKETS);
+
+        void record(String championLabel, double championProb, String challengerLabel, double challengerProb) {
+            compared.increment();
+            if (championLabel == null ? challengerLabel != null : !championLabel.equals(challengerLabel)) {
+                disagreements.increment();
+            }
+
+            double delta = Math.abs(championProb - challengerProb);
+            sumAbsDelta.add(delta);
+            long bits;
+            do {
+                bits = maxAbsDeltaBits.get();
+            } while (delta > Double.longBitsToDouble(bits)
+                    && !maxAbsDeltaBits.compareAndSet(bits, Double.doubleToLongBits(delta)));
+
+            championHist.incrementAndGet(bucket(championProb));
+            challengerHist.incrementAndGet(bucket(challengerProb));
+        }
+
+        Map<String, Object> snapshot() {
+            long n = compared.sum();
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("compared", n);
+            out.put("disagreements", disagreements.sum());
+            out.put("disagreement_rate", n == 0 ? 0.0 : (double) disagreements.sum() / n);
+            out.put("errors", errors.sum());
+            out.put("mean_abs_prob_delta", n == 0 ? 0.0 : sumAbsDelta.sum() / n);
+            out.put("max_abs_prob_delta", Double.longBitsToDouble(maxAbsDeltaBits.get()));
+            out.put("champion_prob_approved_hist", toArray(championHist));
+            out.put("challenger_prob_approved_hist", toArray(challengerHist));
+            return out;
+        }
+
+        private static int bucket(double p) {
+            int b = (int) (p * BUCKETS);
+            return Math.max(0, Math.min(BUCKETS - 1, b));
+        }
+
+        private static long[] toArray(AtomicLongArray a) {
+            long[] out = new long[a.length()];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = a.get(i);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package aqubesolutions.aicredit.predictor.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Class-data-sharing training run. With {@code startup.training-run=true}
+ * the application scores one request per product through its own HTTP
+ * endpoints and exits, so a JVM started with
+ * {@code -XX:ArchiveClassesAtExit} records every class a real scoring
+ * request needs (Tomcat, Jackson, h2o-genmodel), not just those loaded
+ * during context start.
+ *
+ * Not conditional on the property at bean level, because Spring AOT fixes
+ * bean conditions at build time.
+ */
+@Component
+public class TrainingRun implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingRun.class);
+
+    // One representative applicant per product
+    private static final Map<String, String> SAMPLES = Map.of(
+            "mo", """
+                    {"age":35,"annual_income":65000,"monthly_debt":400,"property_price":320000,
+                     "deposit_amount":50000,"requested_loan":250000,"mortgage_term_years":25,
+                     "mortgage_term_months":300}""",
+            "cc", """
+                    {"age":35,"annual_income":52000,"monthly_debt":350,"existing_cc_balance":1200,
+                     "total_cc_limit":8000,"requested_limit":5000}""",
+            "ln", """
+                    {"age":35,"annual_income":52000,"monthly_debt":350,"requested_loan":12000,
+                     "loan_term_months":48}""",
+            "ca", """
+                    {"age":35,"annual_income":52000,"monthly_debt":350,"avg_monthly_balance":1800,
+                     "overdraft_usage":0.25}""");
+
+    @Value("${startup.training-run:false}")
+    private boolean enabled;
+
+    private final ApplicationContext context;
+    private final Environment environment;
+
+    public TrainingRun(ApplicationContext context, Environment environment) {
+        this.context = context;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        String port = environment.getProperty("local.server.port", "8080");
+        int failures = 0;
+        for (Map.Entry<String, String> sample : SAMPLES.entrySet()) {
+            try {
+                int status = post("http://localhost:" + port + "/api/score/" + sample.getKey(), sample.getValue());
+                log.info("Training run scored {}: HTTP {}", sample.getKey(), status);
+                if (status != 200) {
+                    failures++;
+                }
+            } catch (Exception e) {
+                log.error("Training run failed for {}: {}", sample.getKey(), e.getMessage(), e);
+                failures++;
+            }
+        }
+        int exitCode = failures == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private static int post(String url, String body) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setDoOutput(true);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = conn.getResponseCode();
+        (status < 400 ? conn.getInputStream() : conn.getErrorStream()).readAllBytes();
+        conn.disconnect();
+        return status;
+    }
+}
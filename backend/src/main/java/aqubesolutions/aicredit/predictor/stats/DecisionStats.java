@@ -0,0 +1,252 @@
+package aqubesolutions.aicredit.predictor.stats;
+
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling decision counts per product over the last 1, 5 and 15 minutes:
+ * approvals, policy declines by rule and the mean predicted amount.
+ *
+ * Time is cut into {@link #BUCKET_MILLIS} buckets held in a ring. A decision
+ * adds to its bucket's counters in one of a few striped arrays, chosen by
+ * thread, so request threads only do atomic adds and never allocate or
+ * lock. A ticker clears buckets two periods ahead of use and stamps them
+ * with their period; a window is the sum of the buckets stamped with the
+ * periods it covers, so a bucket that was not cleared in time is left out
+ * rather than counted twice.
+ */
+@Component
+public class DecisionStats {
+
+    static final long BUCKET_MILLIS = 10_000;
+
+    private static final int[] WINDOW_MINUTES = {1, 5, 15};
+    private static final List<String> RULES = PolicyRuleEngine.RULES;
+
+    // 15 minutes of buckets plus the two being cleared ahead
+    static final int RING = (int) (WINDOW_MINUTES[WINDOW_MINUTES.length - 1] * 60_000L / BUCKET_MILLIS) + 2;
+
+    // Counters per (bucket, product); policy declines by rule follow
+    private static final int DECISIONS = 0;
+    private static final int APPROVED = 1;
+    private static final int POLICY_DECLINED = 2;
+    private static final int AMOUNTS = 3;
+    private static final int AMOUNT_SUM = 4; // double bits
+    private static final int RULE_DECLINES = 5;
+    private static final int FIELDS = RULE_DECLINES + RULES.size();
+
+    private static final int PRODUCTS = Product.values().length;
+
+    @Value("${decision-stats.enabled:true}")
+    private boolean enabled = true;
+
+    private final AtomicLongArray[] stripes;
+    // Period each ring slot was last cleared for
+    private final AtomicLongArray periods = new AtomicLongArray(RING);
+
+    private ScheduledExecutorService ticker;
+
+    public DecisionStats() {
+        int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        stripes = new AtomicLongArray[Math.min(n, 16)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLongArray(RING * PRODUCTS * FIELDS);
+        }
+        for (int slot = 0; slot < RING; slot++) {
+            periods.set(slot, -1);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        tick(System.currentTimeMillis());
+        if (!enabled) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "decision-stats-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()),
+                BUCKET_MILLIS, BUCKET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Counts a decision the policy rules declined; {@code rule} is one of
+     * {@link PolicyRuleEngine#RULES}.
+     */
+    public void policyDeclined(Product product, String rule) {
+        policyDeclined(product, rule, System.currentTimeMillis());
+    }
+
+    void policyDeclined(Product product, String rule, long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLongArray stripe = stripe();
+        int base = base(product, nowMillis);
+        stripe.getAndIncrement(base + DECISIONS);
+        stripe.getAndIncrement(base + POLICY_DECLINED);
+        int r = RULES.indexOf(rule);
+        if (r >= 0) {
+            stripe.getAndIncrement(base + RULE_DECLINES + r);
+        }
+    }
+
+    /**
+     * Counts a decision the approval model made. {@code predictedAmount} is
+     * NaN for products without an amount model.
+     */
+    public void scored(Product product, boolean approved, double predictedAmount) {
+        scored(product, approved, predictedAmount, System.currentTimeMillis());
+    }
+
+    void scored(Product product, boolean approved, double predictedAmount, long nowMillis) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLongArray stripe = stripe();
+        int base = base(product, nowMillis);
+        stripe.getAndIncrement(base + DECISIONS);
+        if (approved) {
+            stripe.getAndIncrement(base + APPROVED);
+        }
+        if (!Double.isNaN(predictedAmount)) {
+            stripe.getAndIncrement(base + AMOUNTS);
+            int i = base + AMOUNT_SUM;
+            long prev;
+            do {
+                prev = stripe.get(i);
+            } while (!stripe.compareAndSet(i, prev,
+                    Double.doubleToRawLongBits(Double.longBitsToDouble(prev) + predictedAmount)));
+        }
+    }
+
+    private AtomicLongArray stripe() {
+        return stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+    }
+
+    private static int base(Product product, long nowMillis) {
+        int slot = (int) ((nowMillis / BUCKET_MILLIS) % RING);
+        return (slot * PRODUCTS + product.ordinal()) * FIELDS;
+    }
+
+    /**
+     * Clears the buckets for this period and the next two, unless already
+     * done, so writers moving into them start from zero even if a tick runs
+     * late. Only a missed tick clears the current bucket, and what it held
+     * was not being reported.
+     */
+    void tick(long nowMillis) {
+        long period = nowMillis / BUCKET_MILLIS;
+        for (long p = period; p <= period + 2; p++) {
+            int slot = (int) (p % RING);
+            if (periods.get(slot) == p) {
+                continue;
+            }
+            int from = slot * PRODUCTS * FIELDS;
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = from; i < from + PRODUCTS * FIELDS; i++) {
+                    stripe.set(i, 0);
+                }
+            }
+            periods.set(slot, p);
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    Map<String, Object> snapshot(long nowMillis) {
+        long period = nowMillis / BUCKET_MILLIS;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("bucket_seconds", BUCKET_MILLIS / 1000);
+        out.put("as_of", Instant.ofEpochMilli(nowMillis).toString());
+
+        Map<String, Object> products = new LinkedHashMap<>();
+        for (Product p : Product.values()) {
+            long[][] totals = sums(p, period);
+            Map<String, Object> windows = new LinkedHashMap<>();
+            for (int w = 0; w < WINDOW_MINUTES.length; w++) {
+                windows.put(WINDOW_MINUTES[w] + "m", window(totals[w]));
+            }
+            products.put(p.code(), windows);
+        }
+        out.put("products", products);
+        return out;
+    }
+
+    /**
+     * One product's counter totals for each window ending with
+     * {@code period}, summed in one pass back through the ring.
+     */
+    private long[][] sums(Product product, long period) {
+        long[][] totals = new long[WINDOW_MINUTES.length][];
+        long[] running = new long[FIELDS];
+        double amountSum = 0;
+        int w = 0;
+        for (int k = 0; w < totals.length; k++) {
+            long p = period - k;
+            int slot = (int) (p % RING);
+            if (p >= 0 && periods.get(slot) == p) {
+                int base = (slot * PRODUCTS + product.ordinal()) * FIELDS;
+                for (AtomicLongArray stripe : stripes) {
+                    for (int f = 0; f < FIELDS; f++) {
+                        if (f == AMOUNT_SUM) {
+                            amountSum += Double.longBitsToDouble(stripe.get(base + f));
+                        } else {
+                            running[f] += stripe.get(base + f);
+                        }
+                    }
+                }
+            }
+            if (k + 1 == WINDOW_MINUTES[w] * 60_000L / BUCKET_MILLIS) {
+                totals[w] = running.clone();
+                totals[w][AMOUNT_SUM] = Double.doubleToRawLongBits(amountSum);
+                w++;
+            }
+        }
+        return totals;
+    }
+
+    private static Map<String, Object> window(long[] t) {
+        long decisions = t[DECISIONS];
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("decisions", decisions);
+        out.put("approved", t[APPROVED]);
+        out.put("approval_rate", decisions == 0 ? null : (double) t[APPROVED] / decisions);
+        out.put("model_declined", decisions - t[APPROVED] - t[POLICY_DECLINED]);
+        out.put("policy_declined", t[POLICY_DECLINED]);
+        Map<String, Object> byRule = new LinkedHashMap<>();
+        for (int r = 0; r < RULES.size(); r++) {
+            byRule.put(RULES.get(r), t[RULE_DECLINES + r]);
+        }
+        out.put("policy_declines", byRule);
+        out.put("mean_predicted_amount",
+                t[AMOUNTS] == 0 ? null : Double.longBitsToDouble(t[AMOUNT_SUM]) / t[AMOUNTS]);
+        return out;
+    }
+}
@@ -0,0 +1,188 @@
+package aqubesolutions.aicredit.predictor.validation;
+
+import aqubesolutions.aicredit.predictor.schema.FeatureSchema;
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a request DTO before any policy or model work: required fields,
+ * ranges and cross-field consistency.
+ *
+ * The checks for each product are built once into an array. A request is
+ * copied into a per-thread feature vector with {@link FeatureSchema} and
+ * the checks run over that, so a valid request allocates nothing. Every
+ * failing check is reported, not just the first.
+ */
+public final class RequestValidator {
+
+    private static final double MAX_AMOUNT = 100_000_000;
+
+    private static final Map<Product, RequestValidator> VALIDATORS = new EnumMap<>(Product.class);
+
+    static {
+        // Indexes are FeatureSchema request slots, in Product.features() order
+        VALIDATORS.put(Product.MORTGAGE, new RequestValidator(Product.MORTGAGE,
+                required(0, 18, 100),
+                positive(1, MAX_AMOUNT),
+                required(2, 0, MAX_AMOUNT),
+                positive(3, MAX_AMOUNT),
+                required(4, 0, MAX_AMOUNT),
+                positive(5, MAX_AMOUNT),
+                required(6, 1, 50),
+                optional(7, 1, 600),
+                new Cross(4, "exceeds_price", x -> x[4] < x[3],
+                        "deposit_amount must be less than property_price", 3),
+                new Cross(7, "inconsistent", x -> x[7] >= x[6] * 12 && x[7] < (x[6] + 1) * 12,
+                        "mortgage_term_months must match mortgage_term_years", 6)));
+
+        VALIDATORS.put(Product.CREDIT_CARD, new RequestValidator(Product.CREDIT_CARD,
+                required(0, 18, 100),
+                required(1, 0, MAX_AMOUNT),
+                required(2, 0, MAX_AMOUNT),
+                required(3, 0, MAX_AMOUNT),
+                required(4, 0, MAX_AMOUNT),
+                positive(5, MAX_AMOUNT)));
+
+        VALIDATORS.put(Product.LOAN, new RequestValidator(Product.LOAN,
+                required(0, 18, 100),
+                required(1, 0, MAX_AMOUNT),
+                required(2, 0, MAX_AMOUNT),
+                positive(3, MAX_AMOUNT),
+                required(4, 1, 600)));
+
+        VALIDATORS.put(Product.CURRENT_ACCOUNT, new RequestValidator(Product.CURRENT_ACCOUNT,
+                required(0, 18, 100),
+                required(1, 0, MAX_AMOUNT),
+                required(2, 0, MAX_AMOUNT),
+                required(3, -MAX_AMOUNT, MAX_AMOUNT),
+                // overdraft_usage is the share of the overdraft limit used, as in the training data
+                required(4, 0, 1)));
+    }
+
+    private final Product product;
+    private final FeatureSchema schema;
+    private final String[] names;
+    private final Check[] checks;
+    private final ThreadLocal<double[]> scratch;
+
+    private RequestValidator(Product product, Check... checks) {
+        this.product = product;
+        this.schema = FeatureSchema.of(product);
+        this.names = product.features();
+        this.checks = checks;
+        this.scratch = ThreadLocal.withInitial(() -> new double[names.length]);
+    }
+
+    public static RequestValidator of(Product product) {
+        return VALIDATORS.get(product);
+    }
+
+    public void validate(Object request) {
+        validate(request, -1);
+    }
+
+    /**
+     * Validates one item of a batch; {@code index} is reported with the errors.
+     */
+    public void validate(Object request, int index) {
+        if (request == null) {
+            throw new ValidationException(product, index,
+                    List.of(new ValidationException.Violation(null, "missing", "Request body is required")));
+        }
+        double[] x = scratch.get();
+        schema.fillRequest(request, x);
+        List<ValidationException.Violation> violations = null;
+        for (Check check : checks) {
+            if (!check.test(x)) {
+                if (violations == null) {
+                    violations = new ArrayList<>();
+                }
+                violations.add(check.violation(names, x));
+            }
+        }
+        if (violations != null) {
+            throw new ValidationException(product, index, violations);
+        }
+    }
+
+    private static Check required(int field, double min, double max) {
+        return new Range(field, true, min, false, max);
+    }
+
+    private static Check positive(int field, double max) {
+        return new Range(field, true, 0, true, max);
+    }
+
+    private static Check optional(int field, double min, double max) {
+        return new Range(field, false, min, false, max);
+    }
+
+    private interface Check {
+        boolean test(double[] x);
+
+        ValidationException.Violation violation(String[] names, double[] x);
+    }
+
+    private record Range(int field, boolean required, double min, boolean minExclusive, double max)
+            implements Check {
+
+        @Override
+        public boolean test(double[] x) {
+            double v = x[field];
+            if (Double.isNaN(v)) {
+                return !required;
+            }
+            return (minExclusive ? v > min : v >= min) && v <= max;
+        }
+
+        @Override
+        public ValidationException.Violation violation(String[] names, double[] x) {
+            String name = names[field];
+            if (Double.isNaN(x[field])) {
+                return new ValidationException.Violation(name, "required", name + " is required");
+            }
+            String bound = minExclusive ? "greater than " + format(min) : "at least " + format(min);
+            return new ValidationException.Violation(name, "out_of_range",
+                    name + " must be " + bound + " and at most " + format(max));
+        }
+
+        private static String format(double v) {
+            return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean holds(double[] x);
+    }
+
+    /**
+     * A condition over several fields, skipped when any of them is missing
+     * since the required checks report that.
+     */
+    private record Cross(int field, String code, Condition condition, String message, int... others)
+            implements Check {
+
+        @Override
+        public boolean test(double[] x) {
+            if (Double.isNaN(x[field])) {
+                return true;
+            }
+            for (int other : others) {
+                if (Double.isNaN(x[other])) {
+                    return true;
+                }
+            }
+            return condition.holds(x);
+        }
+
+        @Override
+        public ValidationException.Violation violation(String[] names, double[] x) {
+            return new ValidationException.Violation(names[field], code, message);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package aqubesolutions.aicredit.predictor.validation;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request that failed {@link RequestValidator}. Endpoints answer 400 with
+ * {@link #body()}.
+ */
+public class ValidationException extends IllegalArgumentException {
+
+    private final Product product;
+    private final int index;
+    private final List<Violation> violations;
+
+    public ValidationException(Product product, int index, List<Violation> violations) {
+        super("Invalid " + product.code() + " request: " + violations.get(0).message()
+                + (violations.size() > 1 ? " (and " + (violations.size() - 1) + " more)" : ""));
+        this.product = product;
+        this.index = index;
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<Violation> violations() {
+        return violations;
+    }
+
+    public Map<String, Object> body() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("error", getMessage());
+        out.put("product", product.code());
+        if (index >= 0) {
+            out.put("index", index);
+        }
+        out.put("violations", violations);
+        return out;
+    }
+
+    public record Violation(String field, String code, String message) {
+    }
+}
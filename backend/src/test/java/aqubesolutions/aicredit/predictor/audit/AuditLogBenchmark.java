@@ -0,0 +1,113 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures what recording a decision costs a request thread.
+ *
+ * Runs the same producer loop with the audit log off and on and prints the
+ * per-thread throughput of each. Not part of the test suite; run the main
+ * method from the IDE or with the test classpath:
+ * <pre>
+ * java -cp target/classes:target/test-classes:... \
+ *     aqubesolutions.aicredit.predictor.audit.AuditLogBenchmark [threads] [seconds]
+ * </pre>
+ */
+public class AuditLogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path dir = Files.createTempDirectory("audit-bench");
+        System.out.printf("threads=%d seconds=%d dir=%s%n", threads, seconds, dir);
+
+        run("warmup", threads, 1, null);
+        double off = run("audit off", threads, seconds, null);
+
+        try (AuditWriter writer = new AuditWriter(dir, 8192, AuditLog.SLOT_SIZE, 64 * 1024 * 1024, 512)) {
+            run("warmup", threads, 1, writer);
+            double on = run("audit on", threads, seconds, writer);
+            System.out.printf("overhead per decision: %.1f ns (written=%d batches=%d files=%d dropped=%d)%n",
+                    (1e9 / on - 1e9 / off) * threads, writer.written(), writer.batches(), writer.files(),
+                    writer.dropped());
+        }
+    }
+
+    private static double run(String name, int threads, int seconds, AuditWriter writer) throws Exception {
+        LongAdder ops = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int t = 0; t < threads; t++) {
+            Thread th = new Thread(() -> {
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    ScoreRequest req = request(n);
+                    ScoreResponse res = response(req);
+                    if (writer != null) {
+                        long seq = writer.claim();
+                        if (seq >= 0) {
+                            ByteBuffer buf = writer.buffer(seq);
+                            AuditCodec.encode(buf, System.currentTimeMillis(), Product.MORTGAGE, req,
+                                    approved(), res, "mo_approval_model.zip", "mo_borrow_model.zip");
+                            writer.publish(seq, buf.position());
+                        }
+                    }
+                    n++;
+                }
+                ops.add(n);
+                done.countDown();
+            });
+            th.start();
+        }
+        done.await();
+
+        double perSecond = ops.sum() / (double) seconds;
+        if (!name.equals("warmup")) {
+            System.out.printf("%-10s %,14.0f decisions/s%n", name, perSecond);
+        }
+        return perSecond;
+    }
+
+    private static ScoreRequest request(long n) {
+        ScoreRequest r = new ScoreRequest();
+        r.age = 30 + (int) (n % 30);
+        r.annual_income = 40000.0 + n % 1000;
+        r.monthly_debt = 500.0;
+        r.property_price = 300000.0;
+        r.deposit_amount = 50000.0;
+        r.requested_loan = 250000.0;
+        r.mortgage_term_years = 25;
+        r.mortgage_term_months = 300;
+        return r;
+    }
+
+    private static ScoreResponse response(ScoreRequest req) {
+        ScoreResponse res = new ScoreResponse();
+        res.approval = new ScoreResponse.ApprovalPart();
+        res.approval.label = "1";
+        res.approval.prob_approved = req.age / 100.0;
+        res.approval.prob_declined = 1 - res.approval.prob_approved;
+        res.loanAmount = new ScoreResponse.LoanPart();
+        res.loanAmount.predicted_amount = req.annual_income * 4;
+        res.policy_message = "Eligible under policy rules";
+        return res;
+    }
+
+    private static PolicyRuleEngine.PolicyResult approved() {
+        PolicyRuleEngine.PolicyResult p = new PolicyRuleEngine.PolicyResult();
+        p.approved = true;
+        return p;
+    }
+}
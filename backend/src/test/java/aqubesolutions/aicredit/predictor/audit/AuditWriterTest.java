@@ -0,0 +1,156 @@
+package aqubesolutions.aicredit.predictor.audit;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private void append(AuditWriter writer, Product product, Object request,
+                        PolicyRuleEngine.PolicyResult policy, Object response) {
+        long seq = writer.claim();
+        assertTrue(seq >= 0);
+        ByteBuffer buf = writer.buffer(seq);
+        AuditCodec.encode(buf, 1_700_000_000_000L, product, request, policy, response, "approval.zip@1", "borrow.zip@2");
+        writer.publish(seq, buf.position());
+    }
+
+    @Test
+    void testRecordsRoundTripAcrossRolledFiles() throws Exception {
+        LoanScoreRequest loan = new LoanScoreRequest();
+        loan.age = 35;
+        loan.annual_income = 50000.0;
+        loan.requested_loan = 15000.0;
+
+        SimpleScoreResponse loanRes = new SimpleScoreResponse();
+        loanRes.approval = new ScoreResponse.ApprovalPart();
+        loanRes.approval.label = "1";
+        loanRes.approval.prob_approved = 0.65;
+        loanRes.loanAmount = new ScoreResponse.LoanPart();
+        loanRes.loanAmount.predicted_amount = 15000.0;
+
+        ScoreRequest mortgage = new ScoreRequest();
+        mortgage.age = 70;
+        mortgage.mortgage_term_years = 30;
+
+        PolicyRuleEngine.PolicyResult declined = new PolicyRuleEngine.PolicyResult();
+        declined.declineReason = "Loan term too long for applicant age";
+
+        // Small files force a roll every few records
+        try (AuditWriter writer = new AuditWriter(dir, 16, AuditLog.SLOT_SIZE, 512, 4)) {
+            for (int i = 0; i < 5; i++) {
+                append(writer, Product.LOAN, loan, null, loanRes);
+            }
+            append(writer, Product.MORTGAGE, mortgage, declined, new ScoreResponse());
+        }
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditLogReader.forEach(dir, records::add);
+
+        assertEquals(6, records.size());
+        assertTrue(AuditLogReader.files(dir).size() > 1);
+
+        AuditRecord first = records.get(0);
+        assertEquals(Product.LOAN, first.product);
+        assertEquals(1_700_000_000_000L, first.timestamp);
+        assertEquals(35.0, first.features[0]);
+        assertEquals(50000.0, first.features[1]);
+        assertTrue(Double.isNaN(first.features[2]));
+        assertTrue(first.modelScored);
+        assertFalse(first.policyEvaluated);
+        assertEquals("1", first.label);
+        assertEquals(0.65, first.probApproved);
+        assertEquals(15000.0, first.predictedAmount);
+        assertEquals("approval.zip@1", first.approvalModel);
+
+        AuditRecord last = records.get(5);
+        assertEquals(Product.MORTGAGE, last.product);
+        assertTrue(last.policyEvaluated);
+        assertFalse(last.policyApproved);
+        assertFalse(last.modelScored);
+        assertEquals("Loan term too long for applicant age", last.policyMessage);
+        assertTrue(Double.isNaN(last.probApproved));
+    }
+
+    private static void awaitWritten(AuditWriter writer, long n) throws InterruptedException {
+        for (int i = 0; i < 500 && writer.written() < n; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(n, writer.written());
+    }
+
+    private static void appendLong(AuditWriter writer, long seq, long value) {
+        writer.buffer(seq).putLong(value);
+        writer.publish(seq, Long.BYTES);
+    }
+
+    @Test
+    void testFailedAppendIsRetriedWithoutDuplicatingTheBatch() throws Exception {
+        Path log = dir.resolve("log");
+        Path moved = dir.resolve("moved");
+        // Room for three records per file
+        try (AuditWriter writer = new AuditWriter(log, 8, Long.BYTES, 3 * (Integer.BYTES + Long.BYTES), 8)) {
+            appendLong(writer, writer.claim(), 0);
+            awaitWritten(writer, 1);
+
+            // The next roll fails: the log directory is now a file
+            Files.move(log, moved);
+            Files.createFile(log);
+            long[] seqs = new long[4];
+            for (int i = 0; i < seqs.length; i++) {
+                seqs[i] = writer.claim();
+            }
+            // Published last to first so the writer sees them as one batch
+            for (int i = seqs.length - 1; i >= 0; i--) {
+                appendLong(writer, seqs[i], i + 1);
+            }
+            awaitWritten(writer, 3);
+
+            Files.delete(log);
+            Files.move(moved, log);
+            awaitWritten(writer, 5);
+        }
+
+        List<Long> values = new ArrayList<>();
+        for (Path file : AuditLogReader.files(log)) {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (buf.remaining() >= Integer.BYTES) {
+                int length = buf.getInt();
+                if (length == 0) {
+                    break;
+                }
+                values.add(buf.getLong());
+            }
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), values);
+    }
+
+    @Test
+    void testClaimFailsWhenRingIsFull() {
+        try (AuditWriter writer = new AuditWriter(dir, 2, AuditLog.SLOT_SIZE, 4096, 4)) {
+            // Claimed but unpublished slots hold the writer back
+            assertTrue(writer.claim() >= 0);
+            assertTrue(writer.claim() >= 0);
+            assertEquals(-1, writer.claim());
+            assertEquals(1, writer.dropped());
+            writer.publish(0, 0);
+            writer.publish(1, 0);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package aqubesolutions.aicredit.predictor.controller;
+
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreRequest;
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.ApplicantScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ApplicantController.class)
+class ApplicantControllerTest {
+
+    private static final String BODY = """
+            {"age": 30, "annual_income": 60000, "monthly_debt": 1500,
+             "mo": {"property_price": 300000, "deposit_amount": 50000, "requested_loan": 250000,
+                    "mortgage_term_years": 30},
+             "cc": {"existing_cc_balance": 1000, "total_cc_limit": 5000, "requested_limit": 2000}}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ApplicantScoringService applicantService;
+
+    @MockitoBean
+    private QuotaService quotas;
+
+    @Test
+    void testOverQuotaProductGivesBackTheTokensAlreadyTaken() throws Exception {
+        Mockito.when(quotas.isEnabled()).thenReturn(true);
+        Mockito.when(quotas.acquire(eq("key-a"), eq(Product.MORTGAGE), anyLong())).thenReturn(0L);
+        Mockito.when(quotas.acquire(eq("key-a"), eq(Product.CREDIT_CARD), anyLong()))
+                .thenReturn(TimeUnit.SECONDS.toNanos(2));
+
+        mockMvc.perform(post("/api/score/applicant")
+                        .header(QuotaService.API_KEY_HEADER, "key-a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+
+        Mockito.verify(quotas).release("key-a", Product.MORTGAGE, 1);
+        Mockito.verify(applicantService, Mockito.never()).score(any());
+    }
+
+    @Test
+    void testModelsNotLoadedIsServiceUnavailable() throws Exception {
+        Mockito.when(applicantService.score(any(ApplicantScoreRequest.class)))
+                .thenThrow(new IllegalStateException("Models not loaded"));
+
+        mockMvc.perform(post("/api/score/applicant")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("Models not loaded"));
+    }
+}
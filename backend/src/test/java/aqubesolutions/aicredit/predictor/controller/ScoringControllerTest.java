@@ -6,6 +6,8 @@ import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
 import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
 import aqubesolutions.aicredit.predictor.service.LoanScoringService;
 import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -15,6 +17,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -99,4 +103,20 @@ class ScoringControllerTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.error").value("Unexpected error"));
     }
+
+    @Test
+    void testScoreEndpointInvalidRequest() throws Exception {
+        var request = new ScoreRequest();
+
+        Mockito.when(service.score(any(ScoreRequest.class))).thenThrow(new ValidationException(Product.MORTGAGE, -1,
+                List.of(new ValidationException.Violation("age", "required", "age is required"))));
+
+        mockMvc.perform(post("/api/score/mo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.product").value("mo"))
+                .andExpect(jsonPath("$.violations[0].field").value("age"))
+                .andExpect(jsonPath("$.violations[0].code").value("required"));
+    }
 }
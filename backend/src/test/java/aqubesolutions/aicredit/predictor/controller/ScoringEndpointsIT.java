@@ -154,7 +154,7 @@ class ScoringEndpointsIT {
               "annual_income": 42000,
               "monthly_debt": 400,
               "avg_monthly_balance": 2500,
-              "overdraft_usage": 200
+              "overdraft_usage": 0.2
             }
             """;
 
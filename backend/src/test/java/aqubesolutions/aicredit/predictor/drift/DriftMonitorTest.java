@@ -0,0 +1,80 @@
+package aqubesolutions.aicredit.predictor.drift;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriftMonitorTest {
+
+    @TempDir
+    Path dir;
+
+    private DriftMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StringBuilder csv = new StringBuilder("age,annual_income,monthly_debt,requested_loan,loan_term_months,max_loan,approved\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append(25 + i % 40).append(',').append(30000 + i * 100).append(",300,10000,36,40000,1\n");
+        }
+        Files.writeString(dir.resolve("synthetic_loan_5000.csv"), csv.toString());
+
+        monitor = new DriftMonitor();
+        setPrivateField(monitor, "baselineDir", dir.toString());
+        setPrivateField(monitor, "mergeIntervalSeconds", 3600);
+        monitor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testObservationsAppearAfterMerge() {
+        LoanScoreRequest req = new LoanScoreRequest();
+        req.age = 30;
+        req.annual_income = 90000.0;
+        req.requested_loan = 10000.0;
+
+        for (int i = 0; i < 50; i++) {
+            monitor.observe(Product.LOAN, req, 0.8, 20000.0);
+        }
+
+        Map<String, Object> loan = (Map<String, Object>) ((Map<String, Object>) monitor.snapshot().get("products")).get("ln");
+        assertEquals(0L, ((Map<String, Object>) loan.get("annual_income")).get("count"));
+
+        monitor.merge();
+
+        loan = (Map<String, Object>) ((Map<String, Object>) monitor.snapshot().get("products")).get("ln");
+        Map<String, Object> income = (Map<String, Object>) loan.get("annual_income");
+        assertEquals(50L, income.get("count"));
+        assertEquals(90000.0, (double) income.get("p50"), 90000.0 * QuantileSketch.RELATIVE_ACCURACY);
+        // Every live income is above the whole baseline range
+        assertEquals(1.0, (double) income.get("ks"), 1e-9);
+
+        Map<String, Object> amount = (Map<String, Object>) loan.get("predicted_amount");
+        assertEquals(50L, amount.get("count"));
+        assertNotNull(amount.get("baseline_p50"));
+
+        // No requests carried monthly_debt, so nothing was counted for it
+        assertEquals(0L, ((Map<String, Object>) loan.get("monthly_debt")).get("count"));
+    }
+}
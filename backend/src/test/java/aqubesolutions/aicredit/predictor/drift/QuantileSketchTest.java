@@ -0,0 +1,74 @@
+package aqubesolutions.aicredit.predictor.drift;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private QuantileSketch uniform(double from, double to, int n, long seed) {
+        Random random = new Random(seed);
+        QuantileSketch s = new QuantileSketch();
+        for (int i = 0; i < n; i++) {
+            s.add(from + random.nextDouble() * (to - from));
+        }
+        return s;
+    }
+
+    @Test
+    void testQuantilesWithinRelativeAccuracy() {
+        QuantileSketch s = new QuantileSketch();
+        for (int i = 1; i <= 10000; i++) {
+            s.add(i);
+        }
+        s.add(Double.NaN);
+
+        assertEquals(10000, s.count());
+        assertEquals(5000, s.quantile(0.5), 5000 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(9900, s.quantile(0.99), 9900 * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(0.5, s.cdf(5000), 0.02);
+    }
+
+    @Test
+    void testZeroAndNegativeValuesShareFirstBucket() {
+        QuantileSketch s = new QuantileSketch();
+        s.add(0.0);
+        s.add(-5.0);
+        assertEquals(0.0, s.quantile(0.5));
+    }
+
+    @Test
+    void testMergeAddsCounts() {
+        QuantileSketch a = uniform(20000, 80000, 1000, 1);
+        QuantileSketch b = uniform(20000, 80000, 1000, 2);
+        a.merge(b);
+        assertEquals(2000, a.count());
+    }
+
+    @Test
+    void testSameDistributionShowsNoDrift() {
+        QuantileSketch baseline = uniform(20000, 80000, 20000, 1);
+        QuantileSketch live = uniform(20000, 80000, 20000, 2);
+
+        assertTrue(live.psi(baseline, 10) < 0.01);
+        assertTrue(live.ks(baseline) < 0.03);
+    }
+
+    @Test
+    void testShiftedDistributionShowsDrift() {
+        QuantileSketch baseline = uniform(20000, 80000, 20000, 1);
+        QuantileSketch live = uniform(40000, 100000, 20000, 2);
+
+        assertTrue(live.psi(baseline, 10) > 0.25);
+        assertEquals(1.0 / 3, live.ks(baseline), 0.03);
+    }
+
+    @Test
+    void testEmptySketch() {
+        QuantileSketch s = new QuantileSketch();
+        assertTrue(Double.isNaN(s.quantile(0.5)));
+        assertTrue(Double.isNaN(s.ks(uniform(1, 2, 10, 1))));
+    }
+}
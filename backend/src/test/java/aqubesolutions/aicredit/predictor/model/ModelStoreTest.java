@@ -0,0 +1,110 @@
+package aqubesolutions.aicredit.predictor.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelStoreTest {
+
+    private static final String LOAN_APPROVAL = "../models/loan_approval_model.zip";
+    private static final String LOAN_BORROW = "../models/loan_borrow_model.zip";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testIdenticalVersionsShareAllContent() throws Exception {
+        ModelStore store = new ModelStore();
+        StoredModel v1 = store.load("ln-approval", ModelStore.DEFAULT_VERSION, LOAN_APPROVAL);
+        Object residentOneVersion = store.stats().get("resident_bytes");
+        StoredModel v2 = store.load("ln-approval", "v2", LOAN_APPROVAL);
+
+        assertNotNull(v1.model);
+        assertNotSame(v1.model, v2.model);
+        assertEquals(List.of(ModelStore.DEFAULT_VERSION, "v2"),
+                store.versions("ln-approval").stream().sorted().toList());
+
+        Map<String, Object> stats = store.stats();
+        assertEquals(residentOneVersion, stats.get("resident_bytes"));
+        assertEquals(2 * v1.bytes, stats.get("unshared_bytes"));
+
+        Map<String, Object> models = (Map<String, Object>) stats.get("models");
+        assertEquals(0L, ((Map<String, Object>) models.get("ln-approval@v2")).get("unique_bytes"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnloadReleasesContent() throws Exception {
+        ModelStore store = new ModelStore();
+        StoredModel approval = store.load("ln-approval", ModelStore.DEFAULT_VERSION, LOAN_APPROVAL);
+        store.load("ln-approval", "v2", LOAN_APPROVAL);
+        StoredModel borrow = store.load("ln-borrow", ModelStore.DEFAULT_VERSION, LOAN_BORROW);
+
+        assertTrue(store.unload("ln-approval", "v2"));
+        assertFalse(store.unload("ln-approval", "v2"));
+        assertNull(store.get("ln-approval", "v2"));
+
+        Map<String, Object> stats = store.stats();
+        long resident = (long) stats.get("resident_bytes");
+        assertTrue(resident <= approval.bytes + borrow.bytes);
+
+        Map<String, Object> models = (Map<String, Object>) stats.get("models");
+        Map<String, Object> remaining = (Map<String, Object>) models.get("ln-approval@default");
+        assertTrue((long) remaining.get("unique_bytes") > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRetainsOnlyTheBlobsTheModelKeeps() throws Exception {
+        ModelStore store = new ModelStore();
+        StoredModel model = store.load("ln-approval", ModelStore.DEFAULT_VERSION, LOAN_APPROVAL);
+
+        assertTrue(model.entries.keySet().stream().allMatch(e -> e.startsWith("trees/")));
+        assertFalse(model.entries.containsKey("experimental/modelDetails.json"));
+        assertFalse(model.entries.containsKey("model.ini"));
+
+        Map<String, Object> stats = store.stats();
+        assertEquals(model.bytes, stats.get("resident_bytes"));
+        Map<String, Object> models = (Map<String, Object>) stats.get("models");
+        Map<String, Object> m = (Map<String, Object>) models.get("ln-approval@default");
+        assertTrue((long) m.get("archive_bytes") > 2 * model.bytes);
+    }
+
+    @Test
+    void testFailedLoadReleasesContent(@TempDir Path dir) throws Exception {
+        // Every tree but the last one's aux blob, so genmodel fails part way through reading trees
+        Path broken = dir.resolve("broken.zip");
+        try (InputStream in = Files.newInputStream(Path.of(LOAN_APPROVAL));
+             ZipInputStream zip = new ZipInputStream(in);
+             OutputStream out = Files.newOutputStream(broken);
+             ZipOutputStream copy = new ZipOutputStream(out)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals("trees/t00_026_aux.bin")) {
+                    continue;
+                }
+                copy.putNextEntry(new ZipEntry(entry.getName()));
+                zip.transferTo(copy);
+                copy.closeEntry();
+            }
+        }
+        ModelStore store = new ModelStore();
+
+        assertThrows(IOException.class, () -> store.load("ln-approval", ModelStore.DEFAULT_VERSION, broken.toString()));
+        assertThrows(IOException.class, () -> store.load("ln-approval", "v2", dir.resolve("missing.zip").toString()));
+
+        assertEquals(0L, store.stats().get("resident_bytes"));
+        assertEquals(0, store.stats().get("blobs"));
+        assertNull(store.get("ln-approval", ModelStore.DEFAULT_VERSION));
+    }
+}
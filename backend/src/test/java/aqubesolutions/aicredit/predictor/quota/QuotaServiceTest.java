@@ -0,0 +1,202 @@
+package aqubesolutions.aicredit.predictor.quota;
+
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuotaServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private Path config;
+    private QuotaService quotas;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = dir.resolve("quotas.json");
+        write("""
+                {
+                  "default": { "*": { "rate": 1, "burst": 1 } },
+                  "clients": {
+                    "broker-a": { "key": "key-a", "limits": { "*": { "rate": 0.001, "burst": 3 },
+                                                              "cc": { "rate": 0.001, "burst": 1 } } },
+                    "broker-b": { "key": "key-b", "limits": { "mo": { "rate": 0.001, "burst": 1 } } }
+                  }
+                }""");
+        quotas = new QuotaService();
+        setPrivateField(quotas, "enabled", true);
+        setPrivateField(quotas, "configFile", config.toString());
+        setPrivateField(quotas, "reloadIntervalSeconds", 3600);
+        quotas.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        quotas.shutdown();
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private void write(String json) throws Exception {
+        Files.writeString(config, json);
+    }
+
+    @Test
+    void testBurstThenReject() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, quotas.acquire("key-a", Product.LOAN));
+        }
+        long wait = quotas.acquire("key-a", Product.LOAN);
+        assertTrue(wait > 0);
+        assertTrue(QuotaService.retryAfterSeconds(wait) >= 1);
+
+        // Product-specific limit and independent buckets per product
+        assertEquals(0, quotas.acquire("key-a", Product.CREDIT_CARD));
+        assertTrue(quotas.acquire("key-a", Product.CREDIT_CARD) > 0);
+        assertEquals(0, quotas.acquire("key-a", Product.MORTGAGE));
+    }
+
+    @Test
+    void testBatchLargerThanBurstIsAllowedThenRepaid() {
+        assertEquals(0, quotas.acquire("key-a", Product.LOAN, 10));
+        assertTrue(quotas.acquire("key-a", Product.LOAN) > 0);
+        assertTrue(quotas.acquire("key-a", Product.LOAN, 2) > 0);
+        assertEquals(QuotaService.UNKNOWN_CLIENT, quotas.acquire("key-x", Product.LOAN, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReleasedTokensCanBeTakenAgain() {
+        assertEquals(0, quotas.acquire("key-b", Product.MORTGAGE));
+        quotas.release("key-b", Product.MORTGAGE, 1);
+        assertEquals(0, quotas.acquire("key-b", Product.MORTGAGE));
+        assertTrue(quotas.acquire("key-b", Product.MORTGAGE) > 0);
+
+        Map<String, Object> clients = (Map<String, Object>) quotas.snapshot().get("clients");
+        Map<String, Object> mo = (Map<String, Object>) ((Map<String, Object>) clients.get("broker-b")).get("mo");
+        assertEquals(1L, mo.get("allowed"));
+        assertEquals(2L, mo.get("rejected"));
+    }
+
+    @Test
+    void testClientsAreIsolatedAndUnlimitedProductsPass() {
+        for (int i = 0; i < 5; i++) {
+            quotas.acquire("key-a", Product.LOAN);
+        }
+        assertEquals(0, quotas.acquire("key-b", Product.MORTGAGE));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, quotas.acquire("key-b", Product.LOAN));
+        }
+    }
+
+    @Test
+    void testUnknownKeyAndAnonymous() throws Exception {
+        assertEquals(QuotaService.UNKNOWN_CLIENT, quotas.acquire("nope", Product.LOAN));
+        assertEquals(0, quotas.acquire(null, Product.LOAN));
+        assertEquals(QuotaService.ANONYMOUS, quotas.clientName(null));
+
+        setPrivateField(quotas, "requireKey", true);
+        quotas.reload();
+        assertEquals(QuotaService.UNKNOWN_CLIENT, quotas.acquire(null, Product.LOAN));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUsageIsReported() {
+        quotas.acquire("key-a", Product.CREDIT_CARD);
+        quotas.acquire("key-a", Product.CREDIT_CARD);
+
+        Map<String, Object> clients = (Map<String, Object>) quotas.snapshot().get("clients");
+        Map<String, Object> cc = (Map<String, Object>) ((Map<String, Object>) clients.get("broker-a")).get("cc");
+        assertEquals(1L, cc.get("allowed"));
+        assertEquals(1L, cc.get("rejected"));
+        assertEquals(1, cc.get("burst"));
+    }
+
+    @Test
+    void testReloadKeepsStateOfUnchangedLimitsAndAppliesNewOnes() throws Exception {
+        assertEquals(0, quotas.acquire("key-b", Product.MORTGAGE));
+        write("""
+                {
+                  "clients": {
+                    "broker-b": { "key": "key-b", "limits": { "mo": { "rate": 0.001, "burst": 1 },
+                                                              "ln": { "rate": 0.001, "burst": 1 } } },
+                    "broker-c": { "key": "key-c", "limits": {} }
+                  }
+                }""");
+        quotas.reload();
+
+        // Same limit: the token already taken stays taken
+        assertTrue(quotas.acquire("key-b", Product.MORTGAGE) > 0);
+        assertEquals(0, quotas.acquire("key-b", Product.LOAN));
+        assertTrue(quotas.acquire("key-b", Product.LOAN) > 0);
+        assertEquals(0, quotas.acquire("key-c", Product.LOAN));
+        assertEquals(QuotaService.UNKNOWN_CLIENT, quotas.acquire("key-a", Product.LOAN));
+    }
+
+    @Test
+    void testInvalidReloadKeepsPreviousLimits() throws Exception {
+        write("{ \"clients\": { \"broker-a\": { \"limits\": {} } } }");
+        assertThrows(Exception.class, () -> quotas.reload());
+        assertEquals(0, quotas.acquire("key-a", Product.LOAN));
+    }
+
+    @Test
+    void testMissingConfigAtStartupLetsRequestsThroughUntilItLoads() throws Exception {
+        quotas.shutdown();
+        Files.delete(config);
+        quotas = new QuotaService();
+        setPrivateField(quotas, "enabled", true);
+        setPrivateField(quotas, "configFile", config.toString());
+        setPrivateField(quotas, "reloadIntervalSeconds", 3600);
+        quotas.init();
+
+        assertEquals(0, quotas.acquire(null, Product.LOAN, 1000));
+        assertEquals(0, quotas.acquire("key-a", Product.LOAN, 1000));
+        assertEquals(QuotaService.ANONYMOUS, quotas.clientName("key-a"));
+
+        write("{ \"clients\": { \"broker-a\": { \"key\": \"key-a\", \"limits\": {} } } }");
+        quotas.reloadIfChanged();
+        assertEquals(QuotaService.UNKNOWN_CLIENT, quotas.acquire("nope", Product.LOAN));
+        assertEquals("broker-a", quotas.clientName("key-a"));
+    }
+
+    @Test
+    void testMissingConfigAtStartupFailsWhenKeyIsRequired() throws Exception {
+        quotas.shutdown();
+        Files.delete(config);
+        quotas = new QuotaService();
+        setPrivateField(quotas, "enabled", true);
+        setPrivateField(quotas, "requireKey", true);
+        setPrivateField(quotas, "configFile", config.toString());
+
+        assertThrows(IllegalStateException.class, () -> quotas.init());
+    }
+
+    @Test
+    void testProductOfPath() {
+        assertEquals(Product.MORTGAGE, QuotaService.productOf("/api/score/mo"));
+        assertEquals(Product.LOAN, QuotaService.productOf("/api/score/ln/stream"));
+        assertEquals(Product.CURRENT_ACCOUNT, QuotaService.productOf("/api/score/ca/approx"));
+        assertNull(QuotaService.productOf("/api/score/xx"));
+        assertNull(QuotaService.productOf("/api/health"));
+        assertNull(QuotaService.productOf("/api/scoremo"));
+    }
+}
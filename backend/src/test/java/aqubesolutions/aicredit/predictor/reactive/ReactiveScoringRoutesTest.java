@@ -0,0 +1,164 @@
+package aqubesolutions.aicredit.predictor.reactive;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.quota.QuotaService;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ReactiveScoringRoutesTest {
+
+    private MultiModelScoringService mortgageService;
+    private LoanScoringService loanService;
+    private QuotaService quotas;
+    private Scheduler scheduler;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        mortgageService = Mockito.mock(MultiModelScoringService.class);
+        loanService = Mockito.mock(LoanScoringService.class);
+        quotas = Mockito.mock(QuotaService.class);
+        scheduler = Schedulers.newBoundedElastic(2, 10, "test-scorer", 60, true);
+        ReactiveScoringRoutes routes = new ReactiveScoringRoutes(mortgageService,
+                Mockito.mock(CreditCardScoringService.class), loanService,
+                Mockito.mock(CurrentAccountScoringService.class), quotas, scheduler, 2);
+        client = WebTestClient.bindToRouterFunction(routes.routes()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void scoresSingleRequest() throws Exception {
+        Mockito.when(mortgageService.score(any(ScoreRequest.class))).thenReturn(new ScoreResponse());
+
+        client.post().uri("/api/score/mo")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ScoreRequest())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void mapsServiceErrorsLikeTheMvcController() throws Exception {
+        Mockito.when(mortgageService.score(any(ScoreRequest.class)))
+                .thenThrow(new IllegalStateException("Models not loaded"));
+        Mockito.when(loanService.score(any(LoanScoreRequest.class)))
+                .thenThrow(new RuntimeException("Unexpected error"));
+
+        client.post().uri("/api/score/mo")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ScoreRequest())
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody().jsonPath("$.error").isEqualTo("Models not loaded");
+
+        client.post().uri("/api/score/ln")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new LoanScoreRequest())
+                .exchange()
+                .expectStatus().isEqualTo(500)
+                .expectBody().jsonPath("$.error").isEqualTo("Unexpected error");
+    }
+
+    @Test
+    void rejectsMalformedBody() {
+        client.post().uri("/api/score/ln")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{not json")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void streamsResultsInInputOrderWithPerItemErrors() throws Exception {
+        Mockito.when(loanService.score(any(LoanScoreRequest.class))).thenAnswer(inv -> {
+            LoanScoreRequest req = inv.getArgument(0);
+            if (req.requested_loan == 2000.0) {
+                throw new RuntimeException("bad row");
+            }
+            SimpleScoreResponse res = new SimpleScoreResponse();
+            res.policy_message = "loan " + req.requested_loan.intValue();
+            return res;
+        });
+
+        List<LoanScoreRequest> body = List.of(loan(1000), loan(2000), loan(3000));
+        @SuppressWarnings("rawtypes")
+        List<Map> lines = client.post().uri("/api/score/ln/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Map.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(3, lines.size());
+        assertEquals("loan 1000", lines.get(0).get("policy_message"));
+        assertEquals("bad row", lines.get(1).get("error"));
+        assertEquals("loan 3000", lines.get(2).get("policy_message"));
+    }
+
+    @Test
+    void streamEndsWhenTheClientRunsOutOfQuota() throws Exception {
+        Mockito.when(loanService.score(any(LoanScoreRequest.class))).thenReturn(new SimpleScoreResponse());
+        Mockito.when(quotas.isEnabled()).thenReturn(true);
+        Mockito.when(quotas.clientName("key-a")).thenReturn("broker-a");
+        // A burst of two, then the client must wait a second
+        AtomicInteger tokens = new AtomicInteger(2);
+        Mockito.when(quotas.acquire(eq("key-a"), eq(Product.LOAN)))
+                .thenAnswer(inv -> tokens.getAndDecrement() > 0 ? 0L : TimeUnit.SECONDS.toNanos(1));
+
+        List<LoanScoreRequest> body = List.of(loan(1000), loan(2000), loan(3000), loan(4000), loan(5000));
+        @SuppressWarnings("rawtypes")
+        List<Map> lines = client.post().uri("/api/score/ln/stream")
+                .header(QuotaService.API_KEY_HEADER, "key-a")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(3, lines.size());
+        assertEquals(429, lines.get(2).get("status"));
+        assertEquals(1, lines.get(2).get("retry_after"));
+        assertEquals("Quota exceeded for client broker-a on product ln", lines.get(2).get("error"));
+        Mockito.verify(loanService, Mockito.times(2)).score(any(LoanScoreRequest.class));
+    }
+
+    private static LoanScoreRequest loan(double amount) {
+        LoanScoreRequest req = new LoanScoreRequest();
+        req.requested_loan = amount;
+        return req;
+    }
+}
@@ -0,0 +1,139 @@
+package aqubesolutions.aicredit.predictor.reactive;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the MVC and reactive scoring APIs of a running instance
+ * (started with {@code REACTIVE_ENABLED=true}) under the same load.
+ *
+ * A set of slow clients first opens connections and trickles a large body
+ * one byte at a time, the way a slow upload would; then fast clients score
+ * loans with fixed concurrency and the latency and throughput they see is
+ * reported for each API. On the servlet stack each slow upload pins a
+ * request thread, on the reactive one it does not.
+ *
+ * <pre>
+ * java -cp target/test-classes aqubesolutions.aicredit.predictor.reactive.ScoringLoadComparison \
+ *     [mvcBase=http://localhost:8080] [reactiveBase=http://localhost:8081] \
+ *     [requests=20000] [concurrency=32] [slowClients=250]
+ * </pre>
+ */
+public class ScoringLoadComparison {
+
+    private static final String BODY =
+            "{\"age\":35,\"annual_income\":52000,\"monthly_debt\":350,\"requested_loan\":12000,\"loan_term_months\":48}";
+
+    public static void main(String[] args) throws Exception {
+        String mvcBase = args.length > 0 ? args[0] : "http://localhost:8080";
+        String reactiveBase = args.length > 1 ? args[1] : "http://localhost:8081";
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        int slowClients = args.length > 4 ? Integer.parseInt(args[4]) : 250;
+
+        for (String base : List.of(mvcBase, reactiveBase)) {
+            run(base, requests / 10, concurrency, 0); // warm-up
+            List<Socket> slow = openSlowClients(URI.create(base), slowClients);
+            try {
+                run(base, requests, concurrency, slowClients);
+            } finally {
+                for (Socket s : slow) {
+                    s.close();
+                }
+            }
+        }
+    }
+
+    private static void run(String base, int requests, int concurrency, int slowClients) throws Exception {
+        ExecutorService io = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder().executor(io).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/score/ln"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> res = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (res.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        workers.shutdown();
+        io.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-26s slow=%-4d requests=%d errors=%d throughput=%.0f/s p50=%.2fms p99=%.2fms max=%.2fms%n",
+                base, slowClients, requests, errors.get(), requests / (elapsed / 1e9),
+                latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6,
+                latencies[requests - 1] / 1e6);
+    }
+
+    private static List<Socket> openSlowClients(URI base, int n) throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Socket s = new Socket(base.getHost(), base.getPort());
+            OutputStream out = s.getOutputStream();
+            out.write(("POST /api/score/ln HTTP/1.1\r\nHost: " + base.getHost()
+                    + "\r\nContent-Type: application/json\r\nContent-Length: 1000000\r\n\r\n{")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            sockets.add(s);
+        }
+        Thread trickle = new Thread(() -> {
+            while (true) {
+                for (Socket s : sockets) {
+                    try {
+                        s.getOutputStream().write(' ');
+                        s.getOutputStream().flush();
+                    } catch (Exception ignored) {
+                        // closed at the end of the run
+                    }
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (sockets.stream().allMatch(Socket::isClosed)) {
+                    return;
+                }
+            }
+        }, "slow-clients");
+        trickle.setDaemon(true);
+        trickle.start();
+        return sockets;
+    }
+}
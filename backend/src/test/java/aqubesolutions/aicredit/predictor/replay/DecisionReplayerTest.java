@@ -0,0 +1,101 @@
+package aqubesolutions.aicredit.predictor.replay;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.service.CreditCardScoringService;
+import aqubesolutions.aicredit.predictor.service.CurrentAccountScoringService;
+import aqubesolutions.aicredit.predictor.service.LoanScoringService;
+import aqubesolutions.aicredit.predictor.service.MultiModelScoringService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DecisionReplayerTest {
+
+    @Mock
+    private MultiModelScoringService mortgageService;
+
+    @Mock
+    private CreditCardScoringService creditCardService;
+
+    @Mock
+    private LoanScoringService loanService;
+
+    @Mock
+    private CurrentAccountScoringService currentAccountService;
+
+    @TempDir
+    Path dir;
+
+    private SimpleScoreResponse response(String label, double prob, double amount) {
+        SimpleScoreResponse res = new SimpleScoreResponse();
+        res.approval = new ScoreResponse.ApprovalPart();
+        res.approval.label = label;
+        res.approval.prob_approved = prob;
+        res.approval.prob_declined = 1 - prob;
+        res.loanAmount = new ScoreResponse.LoanPart();
+        res.loanAmount.predicted_amount = amount;
+        return res;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReplayReportsOnlyDifferences() throws Exception {
+        when(loanService.predict(argThat((LoanScoreRequest r) -> r != null && r.age == 35)))
+                .thenReturn(response("1", 0.70, 15000.0));
+        when(loanService.predict(argThat((LoanScoreRequest r) -> r != null && r.age == 50)))
+                .thenReturn(response("0", 0.40, 9000.0));
+
+        Path input = dir.resolve("history.ndjson");
+        Files.writeString(input, String.join("\n",
+                "{\"product\":\"ln\",\"request\":{\"age\":35,\"annual_income\":50000,\"monthly_debt\":300,"
+                        + "\"requested_loan\":10000,\"loan_term_months\":36},"
+                        + "\"label\":\"1\",\"prob_approved\":0.705,\"predicted_amount\":15000.5}",
+                "{\"product\":\"ln\",\"age\":50,\"annual_income\":30000,\"monthly_debt\":300,"
+                        + "\"requested_loan\":10000,\"loan_term_months\":36,"
+                        + "\"label\":\"1\",\"prob_approved\":0.55,\"predicted_amount\":10000}",
+                "{\"product\":\"ln\",\"age\":12,\"label\":\"0\"}",
+                "not json",
+                ""));
+
+        StringWriter diffs = new StringWriter();
+        DecisionReplayer.Summary summary = new DecisionReplayer(mortgageService, creditCardService,
+                loanService, currentAccountService)
+                .threads(2)
+                .replayNdjson(input, diffs);
+
+        assertEquals(4, summary.records());
+        Map<String, Object> out = summary.toMap();
+        assertEquals(1L, out.get("unreadable"));
+
+        Map<String, Object> loan = (Map<String, Object>) ((Map<String, Object>) out.get("products")).get("ln");
+        assertEquals(2L, loan.get("compared"));
+        assertEquals(1L, loan.get("errors"));
+        assertEquals(1L, loan.get("flips"));
+        assertEquals(0.5, (double) loan.get("flip_rate"), 1e-9);
+        assertEquals(-500.25, (double) loan.get("mean_amount_drift"), 1e-9);
+
+        String[] lines = diffs.toString().split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains("\"label_before\":\"1\""));
+        assertTrue(lines[0].contains("\"label_after\":\"0\""));
+        // Replays score without side effects
+        verify(loanService, never()).score(any());
+    }
+}
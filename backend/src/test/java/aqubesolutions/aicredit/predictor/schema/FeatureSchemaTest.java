@@ -0,0 +1,106 @@
+package aqubesolutions.aicredit.predictor.schema;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.service.Product;
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.RowData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeatureSchemaTest {
+
+    private static final FeatureSchema MORTGAGE = FeatureSchema.of(Product.MORTGAGE);
+
+    private static ScoreRequest mortgage() {
+        ScoreRequest req = new ScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.monthly_debt = 1500.0;
+        req.property_price = 300000.0;
+        req.deposit_amount = 50000.0;
+        req.requested_loan = 240000.0;
+        req.mortgage_term_years = 30;
+        return req;
+    }
+
+    private static GenModel model(String[] names, int numCols) {
+        GenModel model = mock(GenModel.class);
+        when(model.getNames()).thenReturn(names);
+        when(model.getNumCols()).thenReturn(numCols);
+        return model;
+    }
+
+    @Test
+    void requestFieldsComeFirstThenDerivedFeatures() {
+        for (Product p : Product.values()) {
+            FeatureSchema schema = FeatureSchema.of(p);
+            assertEquals(p.featureCount(), schema.requestFields());
+            assertArrayEquals(p.features(), List.of(schema.names()).subList(0, p.featureCount()).toArray());
+        }
+        assertEquals(MORTGAGE.requestFields() + 1, MORTGAGE.size());
+        assertEquals(MORTGAGE.requestFields(), MORTGAGE.slot(FeatureSchema.LTV));
+        assertEquals(-1, MORTGAGE.slot("credit_score"));
+    }
+
+    @Test
+    void fillsRequestSlotsAndDerivesLoanToValue() {
+        double[] x = new double[MORTGAGE.size()];
+        MORTGAGE.fill(mortgage(), x);
+
+        assertArrayEquals(new double[]{30, 60000, 1500, 300000, 50000, 240000, 30, Double.NaN, 80.0}, x);
+        assertEquals(240000.0, MORTGAGE.value(mortgage(), MORTGAGE.slot("requested_loan")));
+    }
+
+    @Test
+    void bindsModelColumnsToSlots() {
+        GenModel model = model(new String[]{"ltv", "age", "annual_income", "approved"}, 3);
+
+        assertArrayEquals(new int[]{8, 0, 1}, MORTGAGE.bind(model));
+    }
+
+    @Test
+    void rejectsModelsThatDoNotMatch() {
+        GenModel unknown = model(new String[]{"age", "credit_score", "approved"}, 2);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MORTGAGE.bind(unknown));
+        assertTrue(e.getMessage().contains("credit_score"));
+
+        GenModel categorical = model(new String[]{"age", "approved"}, 1);
+        when(categorical.getDomainValues(0)).thenReturn(new String[]{"young", "old"});
+        assertThrows(IllegalArgumentException.class, () -> MORTGAGE.bind(categorical));
+    }
+
+    @Test
+    void parsesCsvRowsByHeaderIndex() {
+        int[] columns = MORTGAGE.columns(List.of("approved", "requested_loan", "age", "annual_income",
+                "monthly_debt", "property_price", "deposit_amount", "mortgage_term_years", "ltv"));
+        assertEquals(-1, columns[MORTGAGE.slot("mortgage_term_months")]);
+
+        double[] x = new double[MORTGAGE.size()];
+        assertTrue(MORTGAGE.parse("1,240000,30,60000,1500,300000,50000,30,99".split(","), columns, x));
+        // ltv is derived, not read
+        assertArrayEquals(new double[]{30, 60000, 1500, 300000, 50000, 240000, 30, Double.NaN, 80.0}, x);
+
+        assertFalse(MORTGAGE.parse("1,abc,30,60000,1500,300000,50000,30,80".split(","), columns, x));
+    }
+
+    @Test
+    void rowDataKeepsIntegerFieldsIntegral() {
+        LoanScoreRequest req = new LoanScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.loan_term_months = 36;
+
+        RowData row = FeatureSchema.of(Product.LOAN).rowData(req);
+
+        assertEquals("30", row.get("age"));
+        assertEquals("60000.0", row.get("annual_income"));
+        assertEquals("36", row.get("loan_term_months"));
+        assertFalse(row.containsKey("monthly_debt"));
+    }
+}
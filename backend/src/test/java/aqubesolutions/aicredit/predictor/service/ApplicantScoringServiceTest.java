@@ -0,0 +1,216 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ApplicantScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.ApprovalOnlyResponse;
+import aqubesolutions.aicredit.predictor.dto.CreditCardScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import aqubesolutions.aicredit.predictor.validation.ValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApplicantScoringServiceTest {
+
+    @Mock
+    private MultiModelScoringService mortgageService;
+
+    @Mock
+    private CreditCardScoringService creditCardService;
+
+    @Mock
+    private LoanScoringService loanService;
+
+    @Mock
+    private CurrentAccountScoringService currentAccountService;
+
+    private ApplicantScoringService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new ApplicantScoringService();
+        setPrivateField(service, "mortgageService", mortgageService);
+        setPrivateField(service, "creditCardService", creditCardService);
+        setPrivateField(service, "loanService", loanService);
+        setPrivateField(service, "currentAccountService", currentAccountService);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private ApplicantScoreRequest applicant() {
+        ApplicantScoreRequest req = new ApplicantScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.monthly_debt = 1500.0;
+        return req;
+    }
+
+    private ApplicantScoreRequest.MortgageSection mortgage() {
+        ApplicantScoreRequest.MortgageSection mo = new ApplicantScoreRequest.MortgageSection();
+        mo.property_price = 300000.0;
+        mo.deposit_amount = 50000.0;
+        mo.requested_loan = 250000.0;
+        mo.mortgage_term_years = 30;
+        return mo;
+    }
+
+    private ApplicantScoreRequest.CreditCardSection creditCard() {
+        ApplicantScoreRequest.CreditCardSection cc = new ApplicantScoreRequest.CreditCardSection();
+        cc.existing_cc_balance = 1000.0;
+        cc.total_cc_limit = 5000.0;
+        cc.requested_limit = 2000.0;
+        return cc;
+    }
+
+    private ApplicantScoreRequest.LoanSection loan() {
+        ApplicantScoreRequest.LoanSection ln = new ApplicantScoreRequest.LoanSection();
+        ln.requested_loan = 10000.0;
+        ln.loan_term_months = 36;
+        return ln;
+    }
+
+    @Test
+    void scoresOnlyRequestedProductsWithApplicantFields() throws Exception {
+        ScoreResponse mo = new ScoreResponse();
+        ApprovalOnlyResponse ca = new ApprovalOnlyResponse();
+        when(mortgageService.score(any(ScoreRequest.class))).thenReturn(mo);
+        when(currentAccountService.score(any(CurrentAccountScoreRequest.class))).thenReturn(ca);
+
+        ApplicantScoreRequest req = applicant();
+        req.mo = mortgage();
+        req.ca = new ApplicantScoreRequest.CurrentAccountSection();
+        req.ca.avg_monthly_balance = 800.0;
+        req.ca.overdraft_usage = 0.1;
+
+        ApplicantScoreResponse res = service.score(req);
+
+        assertSame(mo, res.mo);
+        assertSame(ca, res.ca);
+        assertNull(res.cc);
+        assertNull(res.ln);
+        assertTrue(res.errors.isEmpty());
+        verify(creditCardService, never()).score(any(CreditCardScoreRequest.class));
+
+        ArgumentCaptor<ScoreRequest> moReq = ArgumentCaptor.forClass(ScoreRequest.class);
+        ArgumentCaptor<CurrentAccountScoreRequest> caReq = ArgumentCaptor.forClass(CurrentAccountScoreRequest.class);
+        verify(mortgageService).score(moReq.capture());
+        verify(currentAccountService).score(caReq.capture());
+        assertEquals(30, moReq.getValue().age);
+        assertEquals(250000.0, moReq.getValue().requested_loan);
+        assertEquals(60000.0, caReq.getValue().annual_income);
+        assertEquals(1500.0, caReq.getValue().monthly_debt);
+        assertEquals(800.0, caReq.getValue().avg_monthly_balance);
+    }
+
+    @Test
+    void productsAreScoredInParallel() throws Exception {
+        CountDownLatch creditCardStarted = new CountDownLatch(1);
+        when(creditCardService.score(any(CreditCardScoreRequest.class))).thenAnswer(inv -> {
+            creditCardStarted.countDown();
+            return new SimpleScoreResponse();
+        });
+        // The first product runs on the calling thread and only finishes once another has started
+        when(mortgageService.score(any(ScoreRequest.class))).thenAnswer(inv -> {
+            if (!creditCardStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Credit card was not scored concurrently");
+            }
+            return new ScoreResponse();
+        });
+
+        ApplicantScoreRequest req = applicant();
+        req.mo = mortgage();
+        req.cc = creditCard();
+
+        ApplicantScoreResponse res = service.score(req);
+
+        assertTrue(res.errors.isEmpty(), res.errors.toString());
+        assertNotNull(res.mo);
+        assertNotNull(res.cc);
+    }
+
+    @Test
+    void scoresOnTheCallerOnceThePoolHasShutDown() throws Exception {
+        when(mortgageService.score(any(ScoreRequest.class))).thenReturn(new ScoreResponse());
+        when(loanService.score(any(LoanScoreRequest.class))).thenReturn(new SimpleScoreResponse());
+        service.shutdown();
+
+        ApplicantScoreRequest req = applicant();
+        req.mo = mortgage();
+        req.ln = loan();
+
+        ApplicantScoreResponse res = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.score(req));
+
+        assertTrue(res.errors.isEmpty(), res.errors.toString());
+        assertNotNull(res.mo);
+        assertNotNull(res.ln);
+    }
+
+    @Test
+    void failuresAreReportedPerProduct() throws Exception {
+        when(mortgageService.score(any(ScoreRequest.class))).thenReturn(new ScoreResponse());
+        when(loanService.score(any(LoanScoreRequest.class)))
+                .thenThrow(new IllegalStateException("Models not loaded"));
+
+        ApplicantScoreRequest req = applicant();
+        req.mo = mortgage();
+        req.ln = loan();
+        req.cc = creditCard();
+        req.cc.requested_limit = null;
+
+        ApplicantScoreResponse res = service.score(req);
+
+        assertNotNull(res.mo);
+        assertNull(res.cc);
+        assertNull(res.ln);
+        assertEquals(503, ((Map<?, ?>) res.errors.get("ln")).get("status"));
+        assertEquals("Models not loaded", ((Map<?, ?>) res.errors.get("ln")).get("error"));
+        assertEquals(400, ((Map<?, ?>) res.errors.get("cc")).get("status"));
+        assertEquals("cc", ((Map<?, ?>) res.errors.get("cc")).get("product"));
+        verify(creditCardService, never()).score(any(CreditCardScoreRequest.class));
+    }
+
+    @Test
+    void rejectsRequestsWithNothingToScore() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> service.score(applicant()));
+
+        ApplicantScoreRequest req = applicant();
+        req.age = null;
+        req.mo = mortgage();
+        req.ln = loan();
+        ValidationException ve = assertThrows(ValidationException.class, () -> service.score(req));
+        assertEquals("age", ve.violations().get(0).field());
+        verify(mortgageService, never()).score(any(ScoreRequest.class));
+        verify(loanService, never()).score(any(LoanScoreRequest.class));
+    }
+}
@@ -0,0 +1,78 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Builds the loan approval approximation table from the real MOJO and
+ * training CSV, prints its size and validation error, and compares an
+ * interpolated lookup with an exact score over the training rows.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     aqubesolutions.aicredit.predictor.service.ApproximationBenchmark \
+ *     [../models/loan_approval_model.zip] [../model-training/data] [grid-points]
+ * </pre>
+ */
+public class ApproximationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "../models/loan_approval_model.zip";
+        String dataDir = args.length > 1 ? args[1] : "../model-training/data";
+        int gridPoints = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        MojoModel mojo = MojoModel.load(path);
+        EasyPredictModelWrapper model = new EasyPredictModelWrapper(mojo);
+
+        ApproximationTables tables = new ApproximationTables();
+        setPrivateField(tables, "enabled", true);
+        setPrivateField(tables, "trainingDir", dataDir);
+        setPrivateField(tables, "gridPoints", gridPoints);
+        setPrivateField(tables, "maxError", 1.0);
+        tables.build(Product.LOAN, mojo, new ScorerPool(Product.LOAN, mojo));
+        System.out.println(((Map<?, ?>) tables.snapshot().get("products")).get(Product.LOAN.code()));
+
+        String[] features = Product.LOAN.features();
+        double[][] rows = ApproximationTables.readTrainingRows(Product.LOAN,
+                Path.of(dataDir).resolve(Product.LOAN.trainingFile()));
+        RowData[] rowData = new RowData[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowData[i] = new RowData();
+            for (int d = 0; d < features.length; d++) {
+                rowData[i].put(features[d], String.valueOf(rows[i][d]));
+            }
+        }
+
+        double sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            for (RowData row : rowData) {
+                sink += model.predictBinomial(row).classProbabilities[1];
+            }
+            long exact = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int rep = 0; rep < 100; rep++) {
+                for (double[] row : rows) {
+                    sink += tables.approval(Product.LOAN, row).prob_approved;
+                }
+            }
+            long approx = (System.nanoTime() - t0) / 100;
+
+            System.out.printf("round %d: exact %.2f us/row, approximate %.0f ns/row%n",
+                    round, exact / 1e3 / rows.length, (double) approx / rows.length);
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    private static void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
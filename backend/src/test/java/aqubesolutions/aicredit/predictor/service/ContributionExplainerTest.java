@@ -0,0 +1,135 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ExplanationResponse;
+import hex.genmodel.MojoModel;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContributionExplainerTest {
+
+    @Mock
+    private EasyPredictModelWrapper model;
+
+    private ContributionExplainer explainer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Lenient: the stacked ensemble test loads a real MOJO instead
+        lenient().when(model.getContributionNames())
+                .thenReturn(new String[]{"age", "annual_income", "monthly_debt", "BiasTerm"});
+        lenient().when(model.predictBinomial(any(RowData.class))).thenAnswer(inv -> {
+            RowData row = inv.getArgument(0);
+            double debt = Double.parseDouble((String) row.get("monthly_debt"));
+            BinomialModelPrediction p = new BinomialModelPrediction();
+            p.label = debt > 1000 ? "0" : "1";
+            p.classProbabilities = debt > 1000 ? new double[]{0.8, 0.2} : new double[]{0.1, 0.9};
+            p.contributions = new float[]{0.1f, -0.3f, (float) (-debt / 1000), 0.5f};
+            return p;
+        });
+        explainer = new ContributionExplainer(model, 100);
+    }
+
+    private static RowData row(int debt) {
+        RowData row = new RowData();
+        row.put("age", "40");
+        row.put("annual_income", "30000.0");
+        row.put("monthly_debt", String.valueOf(debt));
+        return row;
+    }
+
+    @Test
+    void testContributionsAreRankedAndReasonsAreNegativeOnes() throws Exception {
+        RowData row = row(2000);
+        ExplanationResponse res = explainer.toResponse(row, explainer.explain(new RowData[]{row})[0], null);
+
+        assertEquals("0", res.label);
+        assertEquals(0.2, res.prob_approved, 1e-9);
+        assertEquals(0.5, res.bias, 1e-6);
+        assertEquals(3, res.contributions.size());
+        assertEquals("monthly_debt", res.contributions.get(0).feature);
+        assertEquals("2000", res.contributions.get(0).value);
+        assertEquals(List.of("monthly_debt", "annual_income"), res.decline_reasons);
+        assertNull(res.policy_decline_reason);
+    }
+
+    @Test
+    void testPolicyDeclineComesFirstAndOverridesDecision() throws Exception {
+        RowData row = row(100);
+        ExplanationResponse res = explainer.toResponse(row, explainer.explain(new RowData[]{row})[0],
+                "Debt-to-income ratio too high (45%)");
+
+        assertEquals("Declined", res.label);
+        assertEquals(0.0, res.prob_approved);
+        assertEquals(0.9, res.model_prob_approved, 1e-9);
+        assertEquals("Debt-to-income ratio too high (45%)", res.decline_reasons.get(0));
+        assertEquals("annual_income", res.decline_reasons.get(1));
+    }
+
+    @Test
+    void testRepeatedRowsAreServedFromCache() throws Exception {
+        explainer.explain(new RowData[]{row(100), row(200)});
+        ContributionExplainer.Explained[] again = explainer.explain(new RowData[]{row(200), row(100), row(300)});
+
+        assertEquals(3, again.length);
+        assertEquals("1", again[0].label());
+        verify(model, times(3)).predictBinomial(any(RowData.class));
+    }
+
+    @Test
+    void testLargeBatchKeepsInputOrder() throws Exception {
+        RowData[] rows = new RowData[50];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(i * 100);
+        }
+        ContributionExplainer.Explained[] out = explainer.explain(rows);
+
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(-(i * 100) / 1000f, out[i].contributions()[2], 1e-6);
+        }
+    }
+
+    @Test
+    void testStackedEnsembleIsExplainedByItsGbmBaseModel() throws Exception {
+        // The mortgage approval MOJO is a stacked ensemble, which cannot compute contributions itself
+        String path = "../models/mo_approval_model.zip";
+        MojoModel ensemble = MojoModel.load(path);
+        ContributionExplainer mortgage = ContributionExplainer.create("mortgage approval model", path, ensemble, 0);
+        assertNotNull(mortgage);
+
+        RowData row = new RowData();
+        row.put("age", "30");
+        row.put("annual_income", "60000.0");
+        row.put("monthly_debt", "1500.0");
+        row.put("property_price", "300000.0");
+        row.put("deposit_amount", "50000.0");
+        row.put("requested_loan", "240000.0");
+        row.put("mortgage_term_years", "30");
+        row.put("ltv", "80.0");
+        ContributionExplainer.Explained e = mortgage.explain(new RowData[]{row})[0];
+
+        // Decision from the ensemble, as /api/score returns it
+        BinomialModelPrediction scored = new EasyPredictModelWrapper(ensemble).predictBinomial(row);
+        assertEquals(scored.label, e.label());
+        assertEquals(scored.classProbabilities[1], e.probApproved(), 1e-9);
+
+        ExplanationResponse res = mortgage.toResponse(row, e, null);
+        assertEquals(8, res.contributions.size());
+        assertTrue(res.contributions.stream().anyMatch(c -> c.feature.equals("ltv")));
+    }
+}
@@ -0,0 +1,76 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+
+import java.util.Random;
+
+/**
+ * Cost of an explanation next to a plain score, on the real loan approval
+ * MOJO: scoring alone, one explained row (cache miss), batches of 100
+ * distinct rows, and a cache hit.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     aqubesolutions.aicredit.predictor.service.ExplanationBenchmark [../models/loan_approval_model.zip]
+ * </pre>
+ */
+public class ExplanationBenchmark {
+
+    private static final int ROWS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "../models/loan_approval_model.zip";
+        MojoModel mojo = MojoModel.load(path);
+        EasyPredictModelWrapper plain = new EasyPredictModelWrapper(mojo);
+
+        Random random = new Random(42);
+        RowData[] rows = new RowData[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            RowData row = new RowData();
+            row.put("age", String.valueOf(21 + random.nextInt(50)));
+            row.put("annual_income", String.valueOf(15_000 + random.nextInt(120_000)));
+            row.put("monthly_debt", String.valueOf(random.nextInt(2_500)));
+            row.put("requested_loan", String.valueOf(1_000 + random.nextInt(40_000)));
+            row.put("loan_term_months", String.valueOf(12 * (1 + random.nextInt(7))));
+            rows[i] = row;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            for (RowData row : rows) {
+                plain.predictBinomial(row);
+            }
+            long score = System.nanoTime() - t0;
+
+            // Fresh explainer per round so every first lookup is a miss
+            ContributionExplainer explainer = ContributionExplainer.create("loan approval model", path, mojo, ROWS);
+            t0 = System.nanoTime();
+            for (RowData row : rows) {
+                explainer.explain(new RowData[]{row});
+            }
+            long single = System.nanoTime() - t0;
+
+            ContributionExplainer batched = ContributionExplainer.create("loan approval model", path, mojo, ROWS);
+            t0 = System.nanoTime();
+            for (int i = 0; i < ROWS; i += 100) {
+                RowData[] batch = new RowData[Math.min(100, ROWS - i)];
+                System.arraycopy(rows, i, batch, 0, batch.length);
+                batched.explain(batch);
+            }
+            long batch = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (RowData row : rows) {
+                explainer.explain(new RowData[]{row});
+            }
+            long cached = System.nanoTime() - t0;
+
+            System.out.printf("round %d: score %.1f us/row, explain %.1f us/row (+%.1f), "
+                            + "batch-100 %.1f us/row, cache hit %.2f us/row%n",
+                    round, score / 1e3 / ROWS, single / 1e3 / ROWS, (single - score) / 1e3 / ROWS,
+                    batch / 1e3 / ROWS, cached / 1e3 / ROWS);
+        }
+    }
+}
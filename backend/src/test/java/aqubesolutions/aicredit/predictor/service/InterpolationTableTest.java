@@ -0,0 +1,83 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterpolationTableTest {
+
+    private static final double[][] KNOTS = {
+            {18, 30, 45, 70},
+            {10_000, 40_000, 150_000},
+            {0, 500, 1_000, 2_500},
+            {1_000, 10_000, 40_000},
+            {12, 36, 60},
+    };
+
+    // Linear in each input separately, so multilinear interpolation is exact
+    private static double bilinear(double[] x) {
+        return 0.1 + 0.002 * x[0] + 1e-6 * x[1] - 1e-4 * x[2] + 2e-9 * x[1] * x[3] / 1_000 + 0.001 * x[4];
+    }
+
+    @Test
+    void reproducesGridPointsAndMultilinearFunctions() {
+        InterpolationTable table = InterpolationTable.build(KNOTS, InterpolationTableTest::bilinear);
+
+        assertEquals(4 * 3 * 4 * 3 * 3, table.cells());
+        assertEquals(bilinear(new double[]{30, 40_000, 500, 10_000, 36}),
+                table.interpolate(new double[]{30, 40_000, 500, 10_000, 36}), 1e-6);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000; i++) {
+            double[] x = new double[KNOTS.length];
+            for (int d = 0; d < x.length; d++) {
+                double[] k = KNOTS[d];
+                x[d] = k[0] + random.nextDouble() * (k[k.length - 1] - k[0]);
+            }
+            assertEquals(bilinear(x), table.interpolate(x), 1e-5);
+        }
+    }
+
+    @Test
+    void outOfRangeOrMissingGivesNaN() {
+        InterpolationTable table = InterpolationTable.build(KNOTS, InterpolationTableTest::bilinear);
+
+        assertTrue(Double.isNaN(table.interpolate(new double[]{17, 40_000, 500, 10_000, 36})));
+        assertTrue(Double.isNaN(table.interpolate(new double[]{30, 40_000, 500, 10_000, 61})));
+        assertTrue(Double.isNaN(table.interpolate(new double[]{30, Double.NaN, 500, 10_000, 36})));
+        assertFalse(Double.isNaN(table.interpolate(new double[]{70, 150_000, 2_500, 40_000, 60})));
+    }
+
+    @Test
+    void knotsFollowQuantilesAndCollapseDiscreteColumns() {
+        double[] terms = new double[1_000];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = 12 * (1 + i % 5);
+        }
+        assertArrayEquals(new double[]{12, 24, 36, 48, 60}, InterpolationTable.knots(terms, 10));
+
+        double[] uniform = new double[101];
+        for (int i = 0; i < uniform.length; i++) {
+            uniform[i] = 100 - i;
+        }
+        assertArrayEquals(new double[]{0, 25, 50, 75, 100}, InterpolationTable.knots(uniform, 5));
+    }
+
+    @Test
+    void refusesWhenValidationErrorIsTooHigh() {
+        InterpolationTable table = InterpolationTable.build(KNOTS, InterpolationTableTest::bilinear);
+        double[][] rows = {{31, 41_000, 510, 11_000, 40}, {50, 90_000, 2_000, 20_000, 48}};
+
+        ApproximationTables.Entry exact = new ApproximationTables.Entry(table, 0.5, "0", "1", 0);
+        exact.validate(rows, InterpolationTableTest::bilinear, 0.01);
+        assertNull(exact.refusal);
+        assertEquals(1.0, exact.labelAgreement);
+
+        ApproximationTables.Entry off = new ApproximationTables.Entry(table, 0.5, "0", "1", 0);
+        off.validate(rows, x -> bilinear(x) + 0.1, 0.01);
+        assertNotNull(off.refusal);
+        assertEquals(0.1, off.maxError, 1e-6);
+    }
+}
@@ -1,10 +1,10 @@
 package aqubesolutions.aicredit.predictor.service;
 
+import aqubesolutions.aicredit.predictor.audit.AuditLog;
+import aqubesolutions.aicredit.predictor.drift.DriftMonitor;
+import aqubesolutions.aicredit.predictor.stats.DecisionStats;
 import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
-import hex.genmodel.easy.EasyPredictModelWrapper;
-import hex.genmodel.easy.RowData;
-import hex.genmodel.easy.prediction.BinomialModelPrediction;
-import hex.genmodel.easy.prediction.RegressionModelPrediction;
+import hex.genmodel.GenModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,8 +16,8 @@ import java.lang.reflect.Field;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,22 +25,36 @@ class MultiModelScoringServiceTest {
 
     private MultiModelScoringService service;
 
+    private final GenModel approvalModel = TestModels.binomial(Product.MORTGAGE, 0.7);
+
+    private final GenModel borrowModel = TestModels.regression(Product.MORTGAGE, 250000.0);
+
     @Mock
-    private EasyPredictModelWrapper approvalModel;
+    private PolicyRuleEngine rules;
 
     @Mock
-    private EasyPredictModelWrapper borrowModel;
+    private ShadowScoringService shadow;
 
     @Mock
-    private PolicyRuleEngine rules;
+    private AuditLog audit;
+
+    @Mock
+    private DriftMonitor drift;
+
+    @Mock
+    private DecisionStats stats;
 
     @BeforeEach
     void setUp() throws Exception {
         service = new MultiModelScoringService();
 
-        setPrivateField(service, "approvalModel", approvalModel);
-        setPrivateField(service, "borrowModel", borrowModel);
+        setPrivateField(service, "approvalModel", new ScorerPool(Product.MORTGAGE, approvalModel));
+        setPrivateField(service, "borrowModel", new ScorerPool(Product.MORTGAGE, borrowModel));
         setPrivateField(service, "rules", rules);
+        setPrivateField(service, "shadow", shadow);
+        setPrivateField(service, "audit", audit);
+        setPrivateField(service, "drift", drift);
+        setPrivateField(service, "stats", stats);
     }
 
     private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
@@ -60,17 +74,6 @@ class MultiModelScoringServiceTest {
         policyResult.approved = true;
         when(rules.applyRules(any(ScoreRequest.class))).thenReturn(policyResult);
 
-        // Mock predictions
-        BinomialModelPrediction approvalPrediction = new BinomialModelPrediction();
-        approvalPrediction.label = "Approved";
-        approvalPrediction.classProbabilities = new double[]{0.3, 0.7};
-
-        RegressionModelPrediction borrowPrediction = new RegressionModelPrediction();
-        borrowPrediction.value = 250000.0;
-
-        when(approvalModel.predictBinomial(any(RowData.class))).thenReturn(approvalPrediction);
-        when(borrowModel.predictRegression(any(RowData.class))).thenReturn(borrowPrediction);
-
         // Create request
         ScoreRequest request = new ScoreRequest();
         request.age = 30;
@@ -87,15 +90,18 @@ class MultiModelScoringServiceTest {
 
         // Verify response
         assertNotNull(response);
-        assertEquals("Approved", response.approval.label);
+        assertEquals("1", response.approval.label);
         assertEquals(0.7, response.approval.prob_approved);
+        assertEquals(0.3, response.approval.prob_declined, 1e-9);
         assertEquals(250000.0, response.loanAmount.predicted_amount);
+        verify(stats).scored(Product.MORTGAGE, true, 250000.0);
     }
 
     @Test
     void testScoreDeclinedByPolicy() throws Exception {
         PolicyRuleEngine.PolicyResult policyResult = new PolicyRuleEngine.PolicyResult();
         policyResult.approved = false;
+        policyResult.declineRule = PolicyRuleEngine.RULE_DTI;
         policyResult.declineReason = "Debt-to-income ratio too high";
         when(rules.applyRules(any(ScoreRequest.class))).thenReturn(policyResult);
 
@@ -116,8 +122,9 @@ class MultiModelScoringServiceTest {
         assertEquals(0.0, response.approval.prob_approved);
         assertEquals(1.0, response.approval.prob_declined);
         assertEquals(0.0, response.loanAmount.predicted_amount);
-        verifyNoInteractions(approvalModel);
-        verifyNoInteractions(borrowModel);
+        verify(approvalModel, never()).score0(any(double[].class), any(double[].class));
+        verify(borrowModel, never()).score0(any(double[].class), any(double[].class));
+        verify(stats).policyDeclined(Product.MORTGAGE, PolicyRuleEngine.RULE_DTI);
     }
 
     @Test
@@ -128,16 +135,6 @@ class MultiModelScoringServiceTest {
         policyResult.adjustedIncome = 42000.0;
         when(rules.applyRules(any(ScoreRequest.class))).thenReturn(policyResult);
 
-        BinomialModelPrediction approvalPrediction = new BinomialModelPrediction();
-        approvalPrediction.label = "Approved";
-        approvalPrediction.classProbabilities = new double[]{0.3, 0.7};
-
-        RegressionModelPrediction borrowPrediction = new RegressionModelPrediction();
-        borrowPrediction.value = 250000.0;
-
-        when(approvalModel.predictBinomial(any(RowData.class))).thenReturn(approvalPrediction);
-        when(borrowModel.predictRegression(any(RowData.class))).thenReturn(borrowPrediction);
-
         ScoreRequest request = new ScoreRequest();
         request.age = 61;
         request.annual_income = 70000.0;
@@ -150,10 +147,12 @@ class MultiModelScoringServiceTest {
 
         service.score(request);
 
-        ArgumentCaptor<RowData> rowCaptor = ArgumentCaptor.forClass(RowData.class);
-        verify(approvalModel).predictBinomial(rowCaptor.capture());
-        RowData captured = rowCaptor.getValue();
-        assertEquals(String.valueOf(policyResult.adjustedIncome), captured.get("annual_income"));
+        ArgumentCaptor<double[]> rowCaptor = ArgumentCaptor.forClass(double[].class);
+        verify(approvalModel).score0(rowCaptor.capture(), any(double[].class));
+        double[] captured = rowCaptor.getValue();
+        assertEquals(policyResult.adjustedIncome, captured[1]);
+        assertEquals(61.0, captured[0]);
+        assertEquals(10.0, captured[6]);
     }
 
     @Test
@@ -0,0 +1,126 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.StressScenario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioStressServiceTest {
+
+    private static final String HEADER = "age,annual_income,monthly_debt,property_price,deposit_amount,"
+            + "requested_loan,mortgage_term_years,ltv,risk_band,approved\n";
+
+    private PortfolioStressService stress;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MultiModelScoringService mortgage = new MultiModelScoringService();
+        setPrivateField(mortgage, "approvalModel",
+                new ScorerPool(Product.MORTGAGE, TestModels.binomial(Product.MORTGAGE, 0.7)));
+        setPrivateField(mortgage, "borrowModel",
+                new ScorerPool(Product.MORTGAGE, TestModels.regression(Product.MORTGAGE, 250000.0)));
+
+        stress = new PortfolioStressService();
+        setPrivateField(stress, "rules", new PolicyRuleEngine());
+        setPrivateField(stress, "mortgageService", mortgage);
+        setPrivateField(stress, "threads", 2);
+        setPrivateField(stress, "chunkSize", 2);
+        stress.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stress.shutdown();
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private Map<String, Object> load(String csv) throws Exception {
+        return stress.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static StressScenario scenario(String name, Double income, Double price, Double debt) {
+        StressScenario s = new StressScenario();
+        s.name = name;
+        s.income_change = income;
+        s.property_price_change = price;
+        s.debt_change = debt;
+        return s;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsAggregatesPerScenario() throws Exception {
+        load(HEADER
+                // Passes every rule, shocked or not
+                + "30,60000,1000,250000,100000,150000,25,60,Low,1\n"
+                // Passes; LTV 0.9 fails once prices fall 20%
+                + "35,80000,1000,300000,30000,270000,25,90,Low,1\n"
+                // Age plus term over 75
+                + "60,60000,500,200000,100000,100000,25,50,High,0\n"
+                // DTI 0.36 passes, 0.414 with debt up 15%
+                + "40,50000,1500,300000,150000,150000,20,50,Low,1\n");
+
+        Map<String, Object> res = stress.run(List.of(
+                scenario("prices -20%", null, -0.2, null),
+                scenario("debt +15%", null, null, 0.15)));
+
+        List<Map<String, Object>> scenarios = (List<Map<String, Object>>) res.get("scenarios");
+        assertEquals(3, scenarios.size());
+
+        Map<String, Object> baseline = scenarios.get(0);
+        assertEquals("baseline", baseline.get("name"));
+        assertEquals(4L, baseline.get("applications"));
+        assertEquals(3L, baseline.get("approved"));
+        assertEquals(0.75, baseline.get("approval_rate"));
+        assertEquals(750000.0, baseline.get("total_borrowing_capacity"));
+        assertEquals(1L, baseline.get("policy_declined"));
+        assertEquals(1L, ((Map<String, Object>) baseline.get("policy_declines")).get("term"));
+
+        Map<String, Object> prices = scenarios.get(1);
+        assertEquals(2L, prices.get("approved"));
+        assertEquals(-0.25, (double) prices.get("approval_rate_delta"), 1e-9);
+        assertEquals(-250000.0, prices.get("borrowing_capacity_delta"));
+        assertEquals(1L, ((Map<String, Object>) prices.get("policy_declines")).get("ltv"));
+
+        Map<String, Object> debt = scenarios.get(2);
+        assertEquals(2L, debt.get("approved"));
+        assertEquals(1L, ((Map<String, Object>) debt.get("policy_declines")).get("dti"));
+        assertEquals(0L, debt.get("errors"));
+    }
+
+    @Test
+    void skipsRowsTheScoringEndpointWouldReject() throws Exception {
+        Map<String, Object> info = load(HEADER
+                + "30,60000,1000,250000,50000,200000,25,80,Low,1\n"
+                + "12,60000,1000,250000,50000,200000,25,80,Low,1\n"
+                + "30,abc,1000,250000,50000,200000,25,80,Low,1\n");
+
+        assertEquals(1, info.get("rows"));
+        assertEquals(2, info.get("skipped"));
+    }
+
+    @Test
+    void rejectsBadInputs() throws Exception {
+        assertThrows(IllegalStateException.class, () -> stress.run(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> load("age,annual_income\n30,60000\n"));
+
+        load(HEADER + "30,60000,1000,250000,50000,200000,25,80,Low,1\n");
+        assertThrows(IllegalArgumentException.class,
+                () -> stress.run(List.of(scenario("wipe-out", -1.0, null, null))));
+        assertThrows(IllegalArgumentException.class,
+                () -> stress.run(List.of(scenario("nan", null, Double.NaN, null))));
+    }
+}
@@ -0,0 +1,129 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sustained multi-threaded load on the real loan approval MOJO, scored the
+ * old way (RowData through {@link EasyPredictModelWrapper}) and through a
+ * {@link ScorerPool}. Reports throughput, bytes allocated per score and the
+ * collections and pause time the garbage collector needed over each run.
+ *
+ * <pre>
+ * java -Xmx512m -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     aqubesolutions.aicredit.predictor.service.ScorerPoolBenchmark [../models/loan_approval_model.zip] [threads] [seconds]
+ * </pre>
+ */
+public class ScorerPoolBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "../models/loan_approval_model.zip";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        MojoModel mojo = MojoModel.load(path);
+        EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo);
+        ScorerPool pool = new ScorerPool(Product.LOAN, mojo);
+
+        Random random = new Random(42);
+        double[][] rows = new double[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new double[]{
+                    21 + random.nextInt(50),
+                    15_000 + random.nextInt(120_000),
+                    random.nextInt(2_500),
+                    1_000 + random.nextInt(40_000),
+                    12 * (1 + random.nextInt(7))};
+        }
+        String[] features = Product.LOAN.features();
+
+        Scoring viaWrapper = x -> {
+            RowData row = new RowData();
+            for (int d = 0; d < features.length; d++) {
+                row.put(features[d], String.valueOf(x[d]));
+            }
+            try {
+                return wrapper.predictBinomial(row).classProbabilities[1];
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Scoring viaPool = x -> {
+            ScorerPool.Scorer scorer = pool.get();
+            double[] f = scorer.features();
+            System.arraycopy(x, 0, f, 0, f.length);
+            return scorer.score(f)[2];
+        };
+
+        System.out.printf("%d threads, %d s per run%n", threads, seconds);
+        for (int round = 0; round < 2; round++) {
+            run("wrapper", viaWrapper, rows, threads, seconds);
+            run("pool", viaPool, rows, threads, seconds);
+        }
+    }
+
+    private static void run(String name, Scoring scoring, double[][] rows, int threads, int seconds)
+            throws InterruptedException {
+        System.gc();
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+
+        AtomicLong ops = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong checksum = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 997;
+            new Thread(() -> {
+                long before = mx.getCurrentThreadAllocatedBytes();
+                long n = 0;
+                double sink = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 1000; i++) {
+                        sink += scoring.score(rows[(int) ((offset + n++) % rows.length)]);
+                    }
+                }
+                bytes.addAndGet(mx.getCurrentThreadAllocatedBytes() - before);
+                ops.addAndGet(n);
+                checksum.addAndGet((long) sink);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        System.out.printf("%-8s %,12.0f scores/s  %8.1f bytes/score  %4d GCs  %6d ms GC  (checksum %d)%n",
+                name, ops.get() / (double) seconds, bytes.get() / (double) ops.get(),
+                gcCount() - gcCount, gcMillis() - gcMillis, checksum.get());
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    private static long gcMillis() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionTime());
+        }
+        return n;
+    }
+
+    private interface Scoring {
+        double score(double[] x);
+    }
+}
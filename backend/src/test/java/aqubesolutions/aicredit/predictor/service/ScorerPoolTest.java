@@ -0,0 +1,82 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.GenModel;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScorerPoolTest {
+
+    @Test
+    void scoresIntoReusedBuffers() {
+        GenModel model = TestModels.binomial(Product.LOAN, 0.8);
+        ScorerPool.Scorer scorer = new ScorerPool(Product.LOAN, model).get();
+
+        double[] x = scorer.features();
+        double[] first = scorer.score(x);
+        double[] second = scorer.score(x);
+
+        assertSame(x, scorer.features());
+        assertSame(first, second);
+        assertEquals(0.8, second[2]);
+        assertEquals("1", scorer.label());
+    }
+
+    @Test
+    void mapsModelColumnsToSchemaSlots() {
+        GenModel model = TestModels.binomial(Product.LOAN, 0.8);
+        // The model reads loan_term_months first and only two of the features
+        when(model.getNames()).thenReturn(new String[]{"loan_term_months", "age", "approved"});
+        when(model.getNumCols()).thenReturn(2);
+        when(model.getResponseIdx()).thenReturn(2);
+        when(model.getDomainValues(2)).thenReturn(new String[]{"0", "1"});
+        ScorerPool.Scorer scorer = new ScorerPool(Product.LOAN, model).get();
+
+        scorer.score(new double[]{30, 60000, 1500, 10000, 36});
+
+        ArgumentCaptor<double[]> row = ArgumentCaptor.forClass(double[].class);
+        verify(model).score0(row.capture(), any(double[].class));
+        assertArrayEquals(new double[]{36, 30}, row.getValue());
+    }
+
+    @Test
+    void rejectsColumnsOutsideTheSchema() {
+        GenModel model = TestModels.binomial(Product.LOAN, 0.8);
+        when(model.getNames()).thenReturn(new String[]{"loan_term_months", "credit_score", "age", "approved"});
+        when(model.getNumCols()).thenReturn(3);
+        when(model.getResponseIdx()).thenReturn(3);
+        when(model.getDomainValues(3)).thenReturn(new String[]{"0", "1"});
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new ScorerPool(Product.LOAN, model));
+        assertTrue(e.getMessage().contains("credit_score"));
+    }
+
+    @Test
+    void rejectsCategoricalFeatures() {
+        GenModel model = TestModels.binomial(Product.LOAN, 0.8);
+        when(model.getDomainValues(0)).thenReturn(new String[]{"young", "old"});
+
+        assertThrows(IllegalArgumentException.class, () -> new ScorerPool(Product.LOAN, model));
+    }
+
+    @Test
+    void eachThreadHasItsOwnScorer() throws Exception {
+        ScorerPool pool = new ScorerPool(Product.LOAN, TestModels.regression(Product.LOAN, 5000.0));
+        AtomicReference<ScorerPool.Scorer> other = new AtomicReference<>();
+
+        Thread t = new Thread(() -> other.set(pool.get()));
+        t.start();
+        t.join();
+
+        assertSame(pool.get(), pool.get());
+        assertNotSame(pool.get(), other.get());
+        assertEquals(5000.0, pool.get().score(pool.get().features())[0]);
+    }
+}
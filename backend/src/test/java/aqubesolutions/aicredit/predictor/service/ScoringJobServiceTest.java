@@ -0,0 +1,289 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.SimpleScoreResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScoringJobServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private LoanScoringService loanService;
+
+    private ScoringJobService jobs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(loanService.score(any(LoanScoreRequest.class))).thenAnswer(inv -> {
+            LoanScoreRequest req = inv.getArgument(0);
+            if (req.requested_loan == null) {
+                throw new IllegalStateException("Models not loaded");
+            }
+            SimpleScoreResponse res = new SimpleScoreResponse();
+            res.policy_message = "scored " + req.requested_loan.intValue();
+            return res;
+        });
+        jobs = start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    private ScoringJobService start() throws Exception {
+        ScoringJobService service = new ScoringJobService();
+        setPrivateField(service, "loanService", loanService);
+        setPrivateField(service, "mapper", mapper);
+        setPrivateField(service, "dir", dir.toString());
+        setPrivateField(service, "chunkSize", 3);
+        service.init();
+        return service;
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private String submit(String body) throws Exception {
+        Map<String, Object> res = jobs.submit("ln", new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        return (String) res.get("job_id");
+    }
+
+    private Map<String, Object> await(String id) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> status = jobs.status(id);
+            if (!"QUEUED".equals(status.get("status")) && !"RUNNING".equals(status.get("status"))) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+
+    private List<String> resultLines(String id) throws Exception {
+        return Files.readAllLines(jobs.results(id));
+    }
+
+    @Test
+    void scoresEveryLineInOrderWithPerLineErrors() throws Exception {
+        String id = submit("[{\"requested_loan\": 100}, {\"age\": 30}, {\"requested_loan\": 300},"
+                + " {\"requested_loan\": 400}]");
+
+        Map<String, Object> status = await(id);
+
+        assertEquals("COMPLETED", status.get("status"));
+        assertEquals(4L, status.get("processed"));
+        assertEquals(1L, status.get("errors"));
+        List<String> lines = resultLines(id);
+        assertEquals(4, lines.size());
+        assertEquals("scored 100", mapper.readTree(lines.get(0)).path("result").path("policy_message").asText());
+        JsonNode failed = mapper.readTree(lines.get(1));
+        assertEquals(1, failed.path("index").asInt());
+        assertEquals(503, failed.path("status").asInt());
+        assertEquals(3, mapper.readTree(lines.get(3)).path("index").asInt());
+    }
+
+    @Test
+    void acceptsNdjsonAndReportsMalformedLines() throws Exception {
+        String id = submit("{\"requested_loan\": 100}\n\nnot json\n");
+
+        await(id);
+
+        List<String> lines = resultLines(id);
+        assertEquals(2, lines.size());
+        assertEquals(400, mapper.readTree(lines.get(1)).path("status").asInt());
+    }
+
+    @Test
+    void rejectsEmptyOrMalformedUploads() {
+        assertThrows(IllegalArgumentException.class, () -> submit("  \n"));
+        assertThrows(IllegalArgumentException.class, () -> submit("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> submit("[{\"requested_loan\": 1},"));
+        assertThrows(IllegalArgumentException.class,
+                () -> jobs.submit("xx", new ByteArrayInputStream(new byte[0])));
+        assertEquals(List.of(), jobs.snapshot().get("jobs"));
+    }
+
+    @Test
+    void resumesFromLastCheckpointAfterRestart() throws Exception {
+        String id = submit("[{\"requested_loan\": 0}, {\"requested_loan\": 1}, {\"requested_loan\": 2},"
+                + " {\"requested_loan\": 3}, {\"requested_loan\": 4}]");
+        await(id);
+        List<String> expected = resultLines(id);
+        jobs.shutdown();
+
+        // As if the process died after the first chunk, part way through writing the second
+        Path jobDir = dir.resolve(id);
+        String firstChunk = String.join("\n", expected.subList(0, 3)) + "\n";
+        Files.writeString(jobDir.resolve(ScoringJobService.RESULTS_FILE), firstChunk + "{\"index\":3,\"res");
+        ScoringJobService.State state = mapper.readValue(
+                jobDir.resolve(ScoringJobService.STATE_FILE).toFile(), ScoringJobService.State.class);
+        state.status = "RUNNING";
+        state.processed = 3;
+        state.results_bytes = firstChunk.getBytes(StandardCharsets.UTF_8).length;
+        state.finished_at = null;
+        mapper.writeValue(jobDir.resolve(ScoringJobService.STATE_FILE).toFile(), state);
+
+        jobs = start();
+        Map<String, Object> status = await(id);
+
+        assertEquals("COMPLETED", status.get("status"));
+        assertEquals(expected, resultLines(id));
+        // Five lines scored the first time, two after the restart
+        verify(loanService, times(7)).score(any(LoanScoreRequest.class));
+    }
+
+    @Test
+    void leavesUnfinishedJobsAloneWhenNotResumingOrLockedElsewhere() throws Exception {
+        String id = submit("[{\"requested_loan\": 100}]");
+        await(id);
+        jobs.shutdown();
+        Path jobDir = dir.resolve(id);
+        ScoringJobService.State state = mapper.readValue(
+                jobDir.resolve(ScoringJobService.STATE_FILE).toFile(), ScoringJobService.State.class);
+        state.status = "QUEUED";
+        state.processed = 0;
+        state.results_bytes = 0;
+        mapper.writeValue(jobDir.resolve(ScoringJobService.STATE_FILE).toFile(), state);
+
+        ScoringJobService idle = new ScoringJobService();
+        setPrivateField(idle, "loanService", loanService);
+        setPrivateField(idle, "mapper", mapper);
+        setPrivateField(idle, "dir", dir.toString());
+        setPrivateField(idle, "resume", false);
+        idle.init();
+        idle.shutdown();
+        assertThrows(ScoringJobService.NoSuchJobException.class, () -> idle.status(id));
+
+        // As if another process were running it
+        try (FileChannel lock = FileChannel.open(jobDir.resolve(ScoringJobService.LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock held = lock.lock()) {
+            jobs = start();
+            Thread.sleep(200);
+            assertEquals("QUEUED", jobs.status(id).get("status"));
+        }
+        verify(loanService, times(1)).score(any(LoanScoreRequest.class));
+    }
+
+    @Test
+    void rejectedUploadIsNotQueued() throws Exception {
+        List<Long> counted = new java.util.ArrayList<>();
+        ScoringJobService.JobRejectedException e = assertThrows(ScoringJobService.JobRejectedException.class,
+                () -> jobs.submit("ln", new ByteArrayInputStream(
+                        "{\"requested_loan\": 1}\n{\"requested_loan\": 2}\n".getBytes(StandardCharsets.UTF_8)),
+                        (product, requests) -> {
+                            counted.add(requests);
+                            return 42;
+                        }));
+
+        assertEquals(42, e.code);
+        assertEquals(List.of(2L), counted);
+        assertEquals(List.of(), jobs.snapshot().get("jobs"));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void deleteRemovesJobFiles() throws Exception {
+        String id = submit("[{\"requested_loan\": 100}]");
+        await(id);
+
+        assertTrue(jobs.delete(id));
+
+        assertFalse(Files.exists(dir.resolve(id)));
+        assertFalse(jobs.delete(id));
+        assertThrows(ScoringJobService.NoSuchJobException.class, () -> jobs.status(id));
+    }
+
+    @Test
+    void concurrentSubmitsNeverExceedMaxPending() throws Exception {
+        setPrivateField(jobs, "maxPending", 3);
+        CountDownLatch scoring = new CountDownLatch(1);
+        SimpleScoreResponse scored = new SimpleScoreResponse();
+        when(loanService.score(any(LoanScoreRequest.class))).thenAnswer(inv -> {
+            scoring.await(5, TimeUnit.SECONDS);
+            return scored;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<String>> submits = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                submits.add(clients.submit(() -> {
+                    go.await();
+                    return submit("[{\"requested_loan\": 100}]");
+                }));
+            }
+            go.countDown();
+            List<String> accepted = new java.util.ArrayList<>();
+            int rejected = 0;
+            for (Future<String> f : submits) {
+                try {
+                    accepted.add(f.get(5, TimeUnit.SECONDS));
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(3, accepted.size());
+            assertEquals(5, rejected);
+            assertEquals(3, jobs.snapshot().get("pending"));
+
+            // Finished and deleted jobs give their slots back
+            scoring.countDown();
+            for (String id : accepted) {
+                await(id);
+            }
+            assertEquals(0, jobs.snapshot().get("pending"));
+            assertTrue(jobs.delete(accepted.get(0)));
+            assertEquals(0, jobs.snapshot().get("pending"));
+            await(submit("[{\"requested_loan\": 100}]"));
+        } finally {
+            scoring.countDown();
+            clients.shutdownNow();
+        }
+    }
+}
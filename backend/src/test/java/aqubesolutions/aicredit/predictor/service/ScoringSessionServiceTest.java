@@ -0,0 +1,205 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hex.genmodel.GenModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ScoringSessionServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PolicyRuleEngine rules = new PolicyRuleEngine();
+
+    private ScoringSessionService sessions;
+
+    private final GenModel approvalModel = TestModels.binomial(Product.MORTGAGE, 0.7);
+
+    private final GenModel borrowModel = TestModels.regression(Product.MORTGAGE, 250000.0);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MultiModelScoringService mortgage = new MultiModelScoringService();
+        setPrivateField(mortgage, "approvalModel", new ScorerPool(Product.MORTGAGE, approvalModel));
+        setPrivateField(mortgage, "borrowModel", new ScorerPool(Product.MORTGAGE, borrowModel));
+
+        sessions = new ScoringSessionService();
+        setPrivateField(sessions, "rules", rules);
+        setPrivateField(sessions, "mortgageService", mortgage);
+        setPrivateField(sessions, "mapper", mapper);
+        setPrivateField(sessions, "maxSessions", 2);
+        sessions.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessions.shutdown();
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private JsonNode json(String s) throws Exception {
+        return mapper.readTree(s);
+    }
+
+    private String open() throws Exception {
+        Map<String, Object> res = sessions.open("mo", json("""
+                {"age": 30, "annual_income": 60000, "monthly_debt": 1500, "property_price": 300000,
+                 "deposit_amount": 50000, "requested_loan": 250000, "mortgage_term_years": 30,
+                 "mortgage_term_months": 360}"""));
+        return (String) res.get("session_id");
+    }
+
+    @Test
+    void incrementalPolicyMatchesFullEvaluation() {
+        Random random = new Random(42);
+        ScoreRequest req = new ScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.monthly_debt = 1500.0;
+        req.property_price = 300000.0;
+        req.requested_loan = 250000.0;
+        req.mortgage_term_years = 30;
+        PolicyRuleEngine.PolicyIntermediates state = rules.prepare(req);
+
+        for (int i = 0; i < 10000; i++) {
+            int changed = 0;
+            switch (random.nextInt(6)) {
+                case 0 -> { req.age = 20 + random.nextInt(50); changed = PolicyRuleEngine.AGE; }
+                case 1 -> { req.annual_income = 10000 + random.nextDouble() * 150000; changed = PolicyRuleEngine.ANNUAL_INCOME; }
+                case 2 -> { req.monthly_debt = random.nextDouble() * 4000; changed = PolicyRuleEngine.MONTHLY_DEBT; }
+                case 3 -> { req.property_price = 100000 + random.nextDouble() * 500000; changed = PolicyRuleEngine.PROPERTY_PRICE; }
+                case 4 -> { req.requested_loan = 50000 + random.nextDouble() * 500000; changed = PolicyRuleEngine.REQUESTED_LOAN; }
+                default -> { req.mortgage_term_years = 5 + random.nextInt(31); changed = PolicyRuleEngine.TERM_YEARS; }
+            }
+            rules.update(req, state, changed);
+
+            PolicyRuleEngine.PolicyResult expected = rules.applyRules(req);
+            PolicyRuleEngine.PolicyResult actual = rules.evaluate(req, state);
+            assertEquals(expected.approved, actual.approved);
+            assertEquals(expected.declineReason, actual.declineReason);
+            assertEquals(expected.incomeAdjusted, actual.incomeAdjusted);
+            assertEquals(expected.adjustedIncome, actual.adjustedIncome);
+        }
+    }
+
+    @Test
+    void onlyAffectedIntermediatesAreRecomputed() {
+        ScoreRequest req = new ScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.monthly_debt = 1500.0;
+        req.property_price = 300000.0;
+        req.requested_loan = 250000.0;
+        req.mortgage_term_years = 30;
+        PolicyRuleEngine.PolicyIntermediates state = rules.prepare(req);
+
+        assertEquals(1, rules.update(req, state, PolicyRuleEngine.MONTHLY_DEBT));
+        assertEquals(1, rules.update(req, state, PolicyRuleEngine.PROPERTY_PRICE));
+        assertEquals(2, rules.update(req, state, PolicyRuleEngine.REQUESTED_LOAN));
+        assertEquals(3, rules.update(req, state, PolicyRuleEngine.ANNUAL_INCOME));
+        assertEquals(0, rules.update(req, state, 1 << 4));
+    }
+
+    @Test
+    void skipsModelsWhenInputsBarelyMove() throws Exception {
+        String id = open();
+
+        // 50000 -> 50010 is within the default 0.1% tolerance
+        Map<String, Object> res = sessions.patch(id, json("{\"deposit_amount\": 50010}"));
+        assertEquals(true, res.get("model_reused"));
+        assertEquals(0, res.get("policy_recomputed"));
+        assertEquals(List.of("deposit_amount"), res.get("changed"));
+        verify(approvalModel, times(1)).score0(any(double[].class), any(double[].class));
+
+        res = sessions.patch(id, json("{\"monthly_debt\": 1800}"));
+        assertEquals(false, res.get("model_reused"));
+        assertEquals(1, res.get("policy_recomputed"));
+        verify(approvalModel, times(2)).score0(any(double[].class), any(double[].class));
+        assertEquals(0.7, ((ScoreResponse) res.get("result")).approval.prob_approved);
+    }
+
+    @Test
+    void policyDeclineSkipsModels() throws Exception {
+        String id = open();
+
+        Map<String, Object> res = sessions.patch(id, json("{\"monthly_debt\": 5000}"));
+        ScoreResponse result = (ScoreResponse) res.get("result");
+        assertEquals("Declined", result.approval.label);
+        assertTrue(result.policy_message.startsWith("Debt-to-income ratio too high"));
+        verify(approvalModel, times(1)).score0(any(double[].class), any(double[].class));
+    }
+
+    @Test
+    void rejectsUnknownAndClearedFields() throws Exception {
+        String id = open();
+
+        assertThrows(IllegalArgumentException.class, () -> sessions.patch(id, json("{\"salary\": 1}")));
+        assertThrows(IllegalArgumentException.class, () -> sessions.patch(id, json("{\"age\": null}")));
+        assertThrows(IllegalArgumentException.class, () -> sessions.open("mo", json("{\"age\": 30}")));
+        verify(borrowModel, times(1)).score0(any(double[].class), any(double[].class));
+    }
+
+    @Test
+    void sessionsAreBoundedAndEvictedWhenIdle() throws Exception {
+        String first = open();
+        open();
+        assertThrows(IllegalStateException.class, this::open);
+
+        sessions.evictIdle(System.nanoTime() + 301_000_000_000L);
+
+        assertEquals(0, sessions.snapshot().get("active"));
+        assertEquals(2L, sessions.snapshot().get("evicted"));
+        assertThrows(ScoringSessionService.NoSuchSessionException.class,
+                () -> sessions.patch(first, json("{\"age\": 31}")));
+        open();
+    }
+
+    @Test
+    void fullStoreEvictsTheLeastRecentlyUsedIdleSession() throws Exception {
+        String first = open();
+        String second = open();
+        ScoringSessionService.SessionLimitException e =
+                assertThrows(ScoringSessionService.SessionLimitException.class, this::open);
+        assertTrue(e.retryAfterSeconds > 0 && e.retryAfterSeconds <= 30, String.valueOf(e.retryAfterSeconds));
+
+        setPrivateField(sessions, "evictAfterSeconds", 0L);
+        Thread.sleep(5);
+        sessions.patch(first, json("{\"age\": 31}"));
+        open();
+
+        assertEquals(2, sessions.snapshot().get("active"));
+        assertEquals(1L, sessions.snapshot().get("evicted"));
+        assertThrows(ScoringSessionService.NoSuchSessionException.class,
+                () -> sessions.patch(second, json("{\"age\": 31}")));
+        sessions.patch(first, json("{\"age\": 32}"));
+    }
+
+    @Test
+    void patchWithNoChangeReusesResult() throws Exception {
+        String id = open();
+
+        Map<String, Object> res = sessions.patch(id, json("{\"age\": 30}"));
+
+        assertEquals(true, res.get("model_reused"));
+        assertEquals(List.of(), res.get("changed"));
+        verify(approvalModel, times(1)).score0(any(double[].class), any(double[].class));
+    }
+}
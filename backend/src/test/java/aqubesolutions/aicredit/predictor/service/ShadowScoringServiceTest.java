@@ -0,0 +1,86 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShadowScoringServiceTest {
+
+    private ShadowScoringService service;
+
+    @Mock
+    private EasyPredictModelWrapper challenger;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // init() is not called, so no worker threads run and the queue is drained by hand
+        service = new ShadowScoringService();
+        setPrivateField(service, "queueCapacity", 2);
+        service.setChallenger(Product.LOAN, challenger);
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private BinomialModelPrediction prediction(String label, double probApproved) {
+        BinomialModelPrediction p = new BinomialModelPrediction();
+        p.label = label;
+        p.classProbabilities = new double[]{1 - probApproved, probApproved};
+        return p;
+    }
+
+    @Test
+    void testSubmitIgnoredWithoutChallenger() {
+        assertFalse(service.submit(Product.MORTGAGE, new double[5], "1", 0.9));
+    }
+
+    @Test
+    void testSubmitDropsWhenQueueFull() {
+        assertTrue(service.submit(Product.LOAN, new double[5], "1", 0.9));
+        assertTrue(service.submit(Product.LOAN, new double[5], "1", 0.9));
+        assertFalse(service.submit(Product.LOAN, new double[5], "1", 0.9));
+
+        Map<String, Object> snapshot = service.snapshot();
+        assertEquals(2, snapshot.get("queue_depth"));
+        assertEquals(1L, snapshot.get("dropped"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDisagreementStatistics() throws Exception {
+        when(challenger.predictBinomial(any(RowData.class)))
+                .thenReturn(prediction("1", 0.8))
+                .thenReturn(prediction("0", 0.4));
+
+        service.submit(Product.LOAN, new double[5], "1", 0.7);
+        service.submit(Product.LOAN, new double[5], "1", 0.6);
+
+        assertTrue(service.drainOne());
+        assertTrue(service.drainOne());
+        assertFalse(service.drainOne());
+
+        Map<String, Object> products = (Map<String, Object>) service.snapshot().get("products");
+        Map<String, Object> loan = (Map<String, Object>) products.get("ln");
+        assertEquals(2L, loan.get("compared"));
+        assertEquals(1L, loan.get("disagreements"));
+        assertEquals(0.5, (double) loan.get("disagreement_rate"), 1e-9);
+        assertEquals(0.15, (double) loan.get("mean_abs_prob_delta"), 1e-9);
+        assertEquals(0.2, (double) loan.get("max_abs_prob_delta"), 1e-9);
+    }
+}
@@ -0,0 +1,61 @@
+package aqubesolutions.aicredit.predictor.service;
+
+import hex.genmodel.GenModel;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Mock MOJOs with a product's features as their numeric inputs, for tests
+ * that score through a {@link ScorerPool}.
+ */
+final class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * A binomial model with labels "0" and "1" that always predicts
+     * {@code probApproved}.
+     */
+    static GenModel binomial(Product product, double probApproved) {
+        GenModel model = model(product, 3);
+        lenient().when(model.getDomainValues(product.featureCount())).thenReturn(new String[]{"0", "1"});
+        doAnswer(inv -> {
+            double[] preds = inv.getArgument(1);
+            preds[0] = probApproved >= 0.5 ? 1 : 0;
+            preds[1] = 1 - probApproved;
+            preds[2] = probApproved;
+            return preds;
+        }).when(model).score0(any(double[].class), any(double[].class));
+        return model;
+    }
+
+    /**
+     * A regression model that always predicts {@code value}.
+     */
+    static GenModel regression(Product product, double value) {
+        GenModel model = model(product, 1);
+        doAnswer(inv -> {
+            double[] preds = inv.getArgument(1);
+            preds[0] = value;
+            return preds;
+        }).when(model).score0(any(double[].class), any(double[].class));
+        return model;
+    }
+
+    private static GenModel model(Product product, int predsSize) {
+        String[] names = Arrays.copyOf(product.features(), product.featureCount() + 1);
+        names[product.featureCount()] = "approved";
+        GenModel model = mock(GenModel.class);
+        lenient().when(model.getNames()).thenReturn(names);
+        lenient().when(model.getNumCols()).thenReturn(product.featureCount());
+        lenient().when(model.getResponseIdx()).thenReturn(product.featureCount());
+        lenient().when(model.getPredsSize()).thenReturn(predsSize);
+        return model;
+    }
+}
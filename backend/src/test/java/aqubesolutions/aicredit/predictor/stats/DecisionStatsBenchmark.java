@@ -0,0 +1,77 @@
+package aqubesolutions.aicredit.predictor.stats;
+
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost a decision adds to the request path when it is counted, on one thread
+ * and with every core recording at once, and the bytes allocated per
+ * decision (expected 0). Also times a snapshot, which only /api/stats pays.
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     aqubesolutions.aicredit.predictor.stats.DecisionStatsBenchmark
+ * </pre>
+ */
+public class DecisionStatsBenchmark {
+
+    private static final int DECISIONS = 5_000_000;
+
+    public static void main(String[] args) throws Exception {
+        DecisionStats stats = new DecisionStats();
+        stats.init();
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int round = 0; round < 5; round++) {
+                run(stats, 1, round);
+                run(stats, cores, round);
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                stats.snapshot();
+            }
+            System.out.printf("snapshot %.1f us%n", (System.nanoTime() - t0) / 100 / 1000.0);
+        } finally {
+            stats.shutdown();
+        }
+    }
+
+    private static void run(DecisionStats stats, int threads, int round) throws InterruptedException {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        AtomicLong nanos = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            Thread t = new Thread(() -> {
+                Product[] products = Product.values();
+                long id = Thread.currentThread().getId();
+                long allocated = mx.getThreadAllocatedBytes(id);
+                long start = System.nanoTime();
+                for (int i = 0; i < DECISIONS; i++) {
+                    Product p = products[i & 3];
+                    if (i % 10 == 0) {
+                        stats.policyDeclined(p, PolicyRuleEngine.RULE_DTI);
+                    } else {
+                        stats.scored(p, (i & 1) == 0, 150_000.0 + i);
+                    }
+                }
+                nanos.addAndGet(System.nanoTime() - start);
+                bytes.addAndGet(mx.getThreadAllocatedBytes(id) - allocated);
+            });
+            workers.add(t);
+            t.start();
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        long n = (long) DECISIONS * threads;
+        System.out.printf("round %d, %2d threads: %.1f ns/decision per thread (%.3f bytes/decision)%n",
+                round, threads, (double) nanos.get() / n, (double) bytes.get() / n);
+    }
+}
@@ -0,0 +1,110 @@
+package aqubesolutions.aicredit.predictor.stats;
+
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionStatsTest {
+
+    private static final long MINUTE = 60_000;
+
+    // A bucket boundary, well after the epoch
+    private static final long T0 = 1_000_000 * DecisionStats.BUCKET_MILLIS;
+
+    private DecisionStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new DecisionStats();
+        stats.tick(T0);
+    }
+
+    /**
+     * Ticks every bucket from the last tick up to {@code now}, as the ticker
+     * thread would.
+     */
+    private long advance(long from, long now) {
+        for (long t = from; t <= now; t += DecisionStats.BUCKET_MILLIS) {
+            stats.tick(t);
+        }
+        return now;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> window(long now, Product product, String window) {
+        Map<String, Object> products = (Map<String, Object>) stats.snapshot(now).get("products");
+        return (Map<String, Object>) ((Map<String, Object>) products.get(product.code())).get(window);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregatesDecisionsPerProduct() {
+        stats.scored(Product.MORTGAGE, true, 200000.0, T0);
+        stats.scored(Product.MORTGAGE, true, 300000.0, T0 + 1000);
+        stats.scored(Product.MORTGAGE, false, 100000.0, T0 + 2000);
+        stats.policyDeclined(Product.MORTGAGE, PolicyRuleEngine.RULE_LTV, T0 + 3000);
+        stats.scored(Product.CURRENT_ACCOUNT, true, Double.NaN, T0);
+
+        Map<String, Object> mo = window(T0 + 5000, Product.MORTGAGE, "1m");
+        assertEquals(4L, mo.get("decisions"));
+        assertEquals(2L, mo.get("approved"));
+        assertEquals(0.5, mo.get("approval_rate"));
+        assertEquals(1L, mo.get("model_declined"));
+        assertEquals(1L, mo.get("policy_declined"));
+        assertEquals(1L, ((Map<String, Object>) mo.get("policy_declines")).get(PolicyRuleEngine.RULE_LTV));
+        assertEquals(200000.0, mo.get("mean_predicted_amount"));
+
+        Map<String, Object> ca = window(T0 + 5000, Product.CURRENT_ACCOUNT, "1m");
+        assertEquals(1L, ca.get("decisions"));
+        assertNull(ca.get("mean_predicted_amount"));
+
+        Map<String, Object> ln = window(T0 + 5000, Product.LOAN, "15m");
+        assertEquals(0L, ln.get("decisions"));
+        assertNull(ln.get("approval_rate"));
+    }
+
+    @Test
+    void olderDecisionsLeaveTheShorterWindowsFirst() {
+        stats.scored(Product.LOAN, true, 10000.0, T0);
+        long now = advance(T0, T0 + 3 * MINUTE);
+        stats.scored(Product.LOAN, false, 20000.0, now);
+
+        assertEquals(1L, window(now, Product.LOAN, "1m").get("decisions"));
+        assertEquals(2L, window(now, Product.LOAN, "5m").get("decisions"));
+        assertEquals(2L, window(now, Product.LOAN, "15m").get("decisions"));
+
+        now = advance(now, T0 + 10 * MINUTE);
+        assertEquals(0L, window(now, Product.LOAN, "5m").get("decisions"));
+        assertEquals(2L, window(now, Product.LOAN, "15m").get("decisions"));
+        assertEquals(15000.0, window(now, Product.LOAN, "15m").get("mean_predicted_amount"));
+
+        now = advance(now, T0 + 19 * MINUTE);
+        assertEquals(0L, window(now, Product.LOAN, "15m").get("decisions"));
+    }
+
+    @Test
+    void reusedBucketsStartFromZero() {
+        stats.scored(Product.LOAN, true, 10000.0, T0);
+        // One lap of the ring later the same slot holds a new period
+        long now = advance(T0, T0 + DecisionStats.RING * DecisionStats.BUCKET_MILLIS);
+        stats.scored(Product.LOAN, false, 10000.0, now);
+
+        Map<String, Object> w = window(now, Product.LOAN, "15m");
+        assertEquals(1L, w.get("decisions"));
+        assertEquals(0L, w.get("approved"));
+    }
+
+    @Test
+    void bucketsThatWereNotClearedAreNotReported() {
+        // No tick for the period this decision falls in
+        long late = T0 + 20 * MINUTE;
+        stats.scored(Product.LOAN, true, 10000.0, late);
+
+        assertEquals(0L, window(late, Product.LOAN, "1m").get("decisions"));
+    }
+}
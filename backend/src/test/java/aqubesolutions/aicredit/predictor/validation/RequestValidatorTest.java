@@ -0,0 +1,116 @@
+package aqubesolutions.aicredit.predictor.validation;
+
+import aqubesolutions.aicredit.predictor.dto.CurrentAccountScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.LoanScoreRequest;
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.service.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestValidatorTest {
+
+    private static ScoreRequest mortgage() {
+        ScoreRequest req = new ScoreRequest();
+        req.age = 30;
+        req.annual_income = 60000.0;
+        req.monthly_debt = 1500.0;
+        req.property_price = 300000.0;
+        req.deposit_amount = 50000.0;
+        req.requested_loan = 250000.0;
+        req.mortgage_term_years = 30;
+        req.mortgage_term_months = 360;
+        return req;
+    }
+
+    private static List<String> codes(ValidationException e) {
+        return e.violations().stream().map(v -> v.field() + ":" + v.code()).toList();
+    }
+
+    @Test
+    void acceptsValidRequests() {
+        RequestValidator.of(Product.MORTGAGE).validate(mortgage());
+
+        ScoreRequest noMonths = mortgage();
+        noMonths.mortgage_term_months = null;
+        RequestValidator.of(Product.MORTGAGE).validate(noMonths);
+
+        CurrentAccountScoreRequest ca = new CurrentAccountScoreRequest();
+        ca.age = 45;
+        ca.annual_income = 25000.0;
+        ca.monthly_debt = 200.0;
+        ca.avg_monthly_balance = -800.0;
+        ca.overdraft_usage = 0.5;
+        RequestValidator.of(Product.CURRENT_ACCOUNT).validate(ca);
+    }
+
+    @Test
+    void reportsEveryMissingRequiredField() {
+        ScoreRequest req = mortgage();
+        req.age = null;
+        req.mortgage_term_years = null;
+
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> RequestValidator.of(Product.MORTGAGE).validate(req));
+
+        // The months/years check is skipped while years is missing
+        assertEquals(List.of("age:required", "mortgage_term_years:required"), codes(e));
+    }
+
+    @Test
+    void rejectsOutOfRangeValues() {
+        LoanScoreRequest req = new LoanScoreRequest();
+        req.age = 16;
+        req.annual_income = 30000.0;
+        req.monthly_debt = -5.0;
+        req.requested_loan = 0.0;
+        req.loan_term_months = 24;
+
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> RequestValidator.of(Product.LOAN).validate(req));
+
+        assertEquals(List.of("age:out_of_range", "monthly_debt:out_of_range", "requested_loan:out_of_range"),
+                codes(e));
+        assertEquals("age must be at least 18 and at most 100", e.violations().get(0).message());
+        assertEquals("requested_loan must be greater than 0 and at most 100000000",
+                e.violations().get(2).message());
+    }
+
+    @Test
+    void checksFieldsAgainstEachOther() {
+        ScoreRequest req = mortgage();
+        req.deposit_amount = 300000.0;
+        req.mortgage_term_months = 300;
+
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> RequestValidator.of(Product.MORTGAGE).validate(req));
+
+        assertEquals(List.of("deposit_amount:exceeds_price", "mortgage_term_months:inconsistent"), codes(e));
+    }
+
+    @Test
+    void bodyCarriesProductIndexAndViolations() {
+        ScoreRequest req = mortgage();
+        req.annual_income = null;
+
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> RequestValidator.of(Product.MORTGAGE).validate(req, 3));
+        Map<String, Object> body = e.body();
+
+        assertEquals("Invalid mo request: annual_income is required", body.get("error"));
+        assertEquals("mo", body.get("product"));
+        assertEquals(3, body.get("index"));
+        assertEquals(1, ((List<?>) body.get("violations")).size());
+        assertInstanceOf(IllegalArgumentException.class, e);
+    }
+
+    @Test
+    void rejectsMissingBody() {
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> RequestValidator.of(Product.CREDIT_CARD).validate(null));
+        assertEquals(List.of("null:missing"), codes(e));
+    }
+}
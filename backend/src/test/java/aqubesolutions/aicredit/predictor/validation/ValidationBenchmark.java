@@ -0,0 +1,73 @@
+package aqubesolutions.aicredit.predictor.validation;
+
+import aqubesolutions.aicredit.predictor.dto.ScoreRequest;
+import aqubesolutions.aicredit.predictor.service.PolicyRuleEngine;
+import aqubesolutions.aicredit.predictor.service.Product;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Cost of validating a mortgage request next to the policy rules it now
+ * precedes, and the bytes allocated per valid request (expected 0 once the
+ * per-thread buffer exists).
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     aqubesolutions.aicredit.predictor.validation.ValidationBenchmark
+ * </pre>
+ */
+public class ValidationBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int REPS = 200;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        ScoreRequest[] reqs = new ScoreRequest[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            ScoreRequest req = new ScoreRequest();
+            req.age = 21 + random.nextInt(40);
+            req.annual_income = 20_000.0 + random.nextInt(130_000);
+            req.monthly_debt = (double) random.nextInt(2_500);
+            req.property_price = 120_000.0 + random.nextInt(500_000);
+            req.deposit_amount = req.property_price * (0.05 + random.nextDouble() * 0.4);
+            req.requested_loan = req.property_price - req.deposit_amount;
+            req.mortgage_term_years = 15 + random.nextInt(21);
+            req.mortgage_term_months = req.mortgage_term_years * 12;
+            reqs[i] = req;
+        }
+
+        RequestValidator validator = RequestValidator.of(Product.MORTGAGE);
+        PolicyRuleEngine rules = new PolicyRuleEngine();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        int approved = 0;
+        for (int round = 0; round < 5; round++) {
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long t0 = System.nanoTime();
+            for (int rep = 0; rep < REPS; rep++) {
+                for (ScoreRequest req : reqs) {
+                    validator.validate(req);
+                }
+            }
+            long validate = System.nanoTime() - t0;
+            long allocated = threads.getThreadAllocatedBytes(thread) - bytes;
+
+            t0 = System.nanoTime();
+            for (int rep = 0; rep < REPS; rep++) {
+                for (ScoreRequest req : reqs) {
+                    approved += rules.applyRules(req).approved ? 1 : 0;
+                }
+            }
+            long policy = System.nanoTime() - t0;
+
+            long n = (long) ROWS * REPS;
+            System.out.printf("round %d: validate %.1f ns/req (%.2f bytes/req), policy rules %.1f ns/req%n",
+                    round, (double) validate / n, (double) allocated / n, (double) policy / n);
+        }
+        System.out.println("approved " + approved);
+    }
+}
@@ -30,7 +30,7 @@ const initialForms = {
     annual_income: 52000,
     monthly_debt: 350,
     avg_monthly_balance: 1800,
-    overdraft_usage: 250,
+    overdraft_usage: 0.25,
   },
 };
 
@@ -221,7 +221,7 @@ const productFieldConfig = {
     { key: "annual_income", label: "Annual income (£)" },
     { key: "monthly_debt", label: "Monthly debt (£)" },
     { key: "avg_monthly_balance", label: "Avg monthly balance (£)" },
-    { key: "overdraft_usage", label: "Overdraft usage (£)" },
+    { key: "overdraft_usage", label: "Overdraft usage (share of limit, 0–1)" },
   ],
 };
 
@@ -234,6 +234,7 @@ const Label = ({ children }) => (
 const NumberInput = ({ value, onChange }) => (
   <input
     type="number"
+    step="any"
     value={value}
     onChange={(e) => onChange(Number(e.target.value))}
     className="w-full rounded-xl border border-slate-300/80 px-3 py-2 text-sm bg-white/60
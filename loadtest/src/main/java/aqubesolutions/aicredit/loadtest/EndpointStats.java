@@ -0,0 +1,99 @@
+package aqubesolutions.aicredit.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counts for one endpoint.
+ *
+ * Two histograms are kept, in microseconds. {@code latency} is measured from
+ * when the request was <em>scheduled</em> to go out, so time a request spent
+ * waiting behind a stalled server (or a saturated generator) counts against
+ * the server, correcting for coordinated omission. {@code service_time} is
+ * measured from when it was actually sent.
+ */
+final class EndpointStats {
+
+    // One hour in microseconds, 3 significant digits
+    private static final long HIGHEST = 3_600_000_000L;
+    private static final int DIGITS = 3;
+
+    final Histogram latency = new ConcurrentHistogram(HIGHEST, DIGITS);
+    final Histogram serviceTime = new ConcurrentHistogram(HIGHEST, DIGITS);
+    final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    final LongAdder errors = new LongAdder();
+
+    /**
+     * @param status HTTP status, or 0 when the request failed without one
+     */
+    void record(long intendedNanos, long sentNanos, long doneNanos, int status) {
+        latency.recordValue(clamp((doneNanos - intendedNanos) / 1000));
+        serviceTime.recordValue(clamp((doneNanos - sentNanos) / 1000));
+        if (status == 0) {
+            errors.increment();
+        } else {
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    private static long clamp(long micros) {
+        return Math.max(0, Math.min(HIGHEST, micros));
+    }
+
+    long count() {
+        return latency.getTotalCount();
+    }
+
+    long ok() {
+        LongAdder ok = statuses.get(200);
+        return ok == null ? 0 : ok.sum();
+    }
+
+    Map<String, Object> toMap(double seconds) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", count());
+        out.put("ok", ok());
+        out.put("errors", errors.sum());
+        Map<String, Long> byStatus = new TreeMap<>();
+        statuses.forEach((s, n) -> byStatus.put(String.valueOf(s), n.sum()));
+        out.put("status", byStatus);
+        out.put("throughput_per_second", seconds > 0 ? count() / seconds : 0.0);
+        out.put("latency_us", summary(latency));
+        out.put("service_time_us", summary(serviceTime));
+        out.put("latency_histogram", encode(latency));
+        return out;
+    }
+
+    static Map<String, Object> summary(Histogram h) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (h.getTotalCount() == 0) {
+            return out;
+        }
+        out.put("min", h.getMinValue());
+        out.put("mean", Math.round(h.getMean()));
+        for (double p : new double[]{50, 90, 99, 99.9, 99.99}) {
+            out.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)), h.getValueAtPercentile(p));
+        }
+        out.put("max", h.getMaxValue());
+        return out;
+    }
+
+    /**
+     * Compressed HdrHistogram encoding, base64, so reports can be merged or
+     * re-analysed later.
+     */
+    static String encode(Histogram h) {
+        ByteBuffer buf = ByteBuffer.allocate(h.getNeededByteBufferCapacity());
+        int len = h.encodeIntoCompressedByteBuffer(buf);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buf.array(), len));
+    }
+}
@@ -0,0 +1,260 @@
+package aqubesolutions.aicredit.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays scoring requests against a running instance and writes a JSON
+ * report.
+ *
+ * <pre>
+ * java -jar aicreditlens-loadtest-1.0.0.jar \
+ *     --input ../model-training/data/synthetic_loan_5000.csv [--input more.ndjson ...] \
+ *     [--target http://localhost:8080] [--mode open|closed] [--rate 500] \
+ *     [--concurrency 64] [--duration 60] [--warmup 10] [--report report.json] \
+ *     [--product ln] [--limit 0] [--seed 42] [--api-key KEY]
+ * </pre>
+ *
+ * Open mode sends at a fixed {@code --rate} whatever the server does, with
+ * at most {@code --concurrency} requests in flight; closed mode runs
+ * {@code --concurrency} clients that each wait for a response before
+ * sending again, paced to {@code --rate} in total if given. Latency is
+ * measured from each request's scheduled send time (see
+ * {@link EndpointStats}). Requests scheduled during the warm-up are sent
+ * but not recorded.
+ */
+public final class LoadGenerator {
+
+    private final Options opts;
+    private final RequestSource source;
+    private final HttpClient client;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private long recordFrom;
+
+    LoadGenerator(Options opts, RequestSource source) {
+        this.opts = opts;
+        this.source = source;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors())))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts = Options.parse(args);
+        if (opts == null) {
+            System.err.println("usage: LoadGenerator --input <file> [--input <file> ...] [--target url] "
+                    + "[--mode open|closed] [--rate r] [--concurrency n] [--duration s] [--warmup s] "
+                    + "[--report file] [--product code] [--limit n] [--seed n] [--api-key key]");
+            System.exit(1);
+        }
+        RequestSource source = RequestSource.load(opts.inputs, opts.product, opts.limit, opts.seed);
+        System.err.printf("Loaded %d requests; %s mode, %s for %ds after %ds warm-up against %s%n",
+                source.size(), opts.mode, opts.rate > 0 ? opts.rate + " req/s" : "unpaced",
+                opts.durationSeconds, opts.warmupSeconds, opts.target);
+
+        Map<String, Object> report = new LoadGenerator(opts, source).run();
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(opts.report.toFile(), report);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> total = (Map<String, Object>) report.get("total");
+        System.err.println(mapper.writeValueAsString(Map.of(
+                "throughput_per_second", total.get("throughput_per_second"),
+                "latency_us", total.get("latency_us"))));
+        System.err.println("Report written to " + opts.report);
+        System.exit(0);
+    }
+
+    Map<String, Object> run() throws Exception {
+        String started = Instant.now().toString();
+        long start = System.nanoTime();
+        recordFrom = start + TimeUnit.SECONDS.toNanos(opts.warmupSeconds);
+        long end = recordFrom + TimeUnit.SECONDS.toNanos(opts.durationSeconds);
+
+        if ("open".equals(opts.mode)) {
+            runOpen(start, end);
+        } else {
+            runClosed(start, end);
+        }
+        double seconds = opts.durationSeconds;
+
+        Map<String, Object> endpoints = new TreeMap<>();
+        EndpointStats total = new EndpointStats();
+        for (Map.Entry<String, EndpointStats> e : stats.entrySet()) {
+            endpoints.put(e.getKey(), e.getValue().toMap(seconds));
+        }
+        for (EndpointStats s : stats.values()) {
+            merge(s, total);
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("target", opts.target);
+        config.put("mode", opts.mode);
+        config.put("rate", opts.rate);
+        config.put("concurrency", opts.concurrency);
+        config.put("duration_seconds", opts.durationSeconds);
+        config.put("warmup_seconds", opts.warmupSeconds);
+        config.put("inputs", opts.inputs.stream().map(Path::toString).toList());
+        config.put("requests_loaded", source.size());
+        config.put("seed", opts.seed);
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("report_version", 1);
+        out.put("started", started);
+        out.put("config", config);
+        out.put("total", total.toMap(seconds));
+        out.put("endpoints", endpoints);
+        return out;
+    }
+
+    private void runOpen(long start, long end) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / opts.rate);
+        Semaphore inFlight = new Semaphore(opts.concurrency);
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            sleepUntil(intended);
+            // If the server falls behind this blocks, and the wait is charged
+            // to the requests scheduled meanwhile
+            inFlight.acquire();
+            send(source.next(), intended).whenComplete((status, err) -> inFlight.release());
+        }
+        inFlight.acquire(opts.concurrency);
+    }
+
+    private void runClosed(long start, long end) throws InterruptedException {
+        // With a rate, each client has a fixed schedule; without one it sends back to back
+        long interval = opts.rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * opts.concurrency / opts.rate) : 0;
+        ExecutorService clients = Executors.newFixedThreadPool(opts.concurrency);
+        for (int c = 0; c < opts.concurrency; c++) {
+            long offset = interval * c / opts.concurrency;
+            clients.submit(() -> {
+                long intended = start + offset;
+                while (intended - end < 0) {
+                    sleepUntil(intended);
+                    long scheduled = interval > 0 ? intended : System.nanoTime();
+                    send(source.next(), scheduled).join();
+                    intended = interval > 0 ? intended + interval : System.nanoTime();
+                }
+                return null;
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private CompletableFuture<Integer> send(RequestSource.Request r, long intended) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(opts.target + r.endpoint()))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(r.body()));
+        if (opts.apiKey != null) {
+            builder.header("X-API-Key", opts.apiKey);
+        }
+        long sent = System.nanoTime();
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.discarding())
+                .handle((res, err) -> {
+                    long done = System.nanoTime();
+                    int status = err == null ? res.statusCode() : 0;
+                    if (intended - recordFrom >= 0) {
+                        stats.computeIfAbsent(r.endpoint(), e -> new EndpointStats())
+                                .record(intended, sent, done, status);
+                    }
+                    return status;
+                });
+    }
+
+    private static void sleepUntil(long deadline) {
+        long now;
+        while ((now = System.nanoTime()) - deadline < 0) {
+            LockSupport.parkNanos(deadline - now);
+        }
+    }
+
+    private static void merge(EndpointStats from, EndpointStats into) {
+        into.latency.add(from.latency);
+        into.serviceTime.add(from.serviceTime);
+        into.errors.add(from.errors.sum());
+        from.statuses.forEach((s, n) -> into.statuses
+                .computeIfAbsent(s, k -> new LongAdder()).add(n.sum()));
+    }
+
+    static final class Options {
+        final List<Path> inputs = new ArrayList<>();
+        String target = "http://localhost:8080";
+        String mode = "open";
+        double rate = 200;
+        int concurrency = 64;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        Path report = Path.of("loadtest-report.json");
+        String product;
+        int limit;
+        long seed = 42;
+        String apiKey;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            Map<String, String> seen = new HashMap<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String key = args[i];
+                String value = args[i + 1];
+                seen.put(key, value);
+                switch (key) {
+                    case "--input" -> o.inputs.add(Path.of(value));
+                    case "--target" -> o.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    case "--mode" -> o.mode = value;
+                    case "--rate" -> o.rate = Double.parseDouble(value);
+                    case "--concurrency" -> o.concurrency = Integer.parseInt(value);
+                    case "--duration" -> o.durationSeconds = Integer.parseInt(value);
+                    case "--warmup" -> o.warmupSeconds = Integer.parseInt(value);
+                    case "--report" -> o.report = Path.of(value);
+                    case "--product" -> o.product = value;
+                    case "--limit" -> o.limit = Integer.parseInt(value);
+                    case "--seed" -> o.seed = Long.parseLong(value);
+                    case "--api-key" -> o.apiKey = value;
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (o.inputs.isEmpty() || o.concurrency <= 0 || !("open".equals(o.mode) || "closed".equals(o.mode))) {
+                return null;
+            }
+            if ("open".equals(o.mode) && o.rate <= 0) {
+                return null;
+            }
+            if ("closed".equals(o.mode) && !seen.containsKey("--rate")) {
+                o.rate = 0;
+            }
+            return o;
+        }
+    }
+}
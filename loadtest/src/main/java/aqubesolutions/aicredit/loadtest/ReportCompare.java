@@ -0,0 +1,77 @@
+package aqubesolutions.aicredit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two load test reports, e.g. the same run against two builds.
+ * Prints, per endpoint and in total, throughput and latency percentiles of
+ * both with the relative change ({@code (candidate - baseline) / baseline}).
+ *
+ * <pre>
+ * java -cp aicreditlens-loadtest-1.0.0.jar aqubesolutions.aicredit.loadtest.ReportCompare \
+ *     baseline.json candidate.json
+ * </pre>
+ */
+public final class ReportCompare {
+
+    private static final String[] METRICS = {"p50", "p90", "p99", "p99.9", "max"};
+
+    private ReportCompare() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: ReportCompare <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JsonNode baseline = mapper.readTree(new File(args[0]));
+        JsonNode candidate = mapper.readTree(new File(args[1]));
+        System.out.println(mapper.writeValueAsString(compare(baseline, candidate)));
+    }
+
+    static Map<String, Object> compare(JsonNode baseline, JsonNode candidate) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("total", compareSection(baseline.path("total"), candidate.path("total")));
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Iterator<String> it = baseline.path("endpoints").fieldNames(); it.hasNext(); ) {
+            String endpoint = it.next();
+            if (candidate.path("endpoints").has(endpoint)) {
+                endpoints.put(endpoint, compareSection(baseline.path("endpoints").path(endpoint),
+                        candidate.path("endpoints").path(endpoint)));
+            }
+        }
+        out.put("endpoints", endpoints);
+        return out;
+    }
+
+    private static Map<String, Object> compareSection(JsonNode a, JsonNode b) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("throughput_per_second", delta(a.path("throughput_per_second"), b.path("throughput_per_second")));
+        out.put("errors", delta(a.path("errors"), b.path("errors")));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (String m : METRICS) {
+            latency.put(m, delta(a.path("latency_us").path(m), b.path("latency_us").path(m)));
+        }
+        out.put("latency_us", latency);
+        return out;
+    }
+
+    private static ObjectNode delta(JsonNode a, JsonNode b) {
+        ObjectNode d = new ObjectMapper().createObjectNode();
+        d.set("baseline", a.isMissingNode() ? null : a);
+        d.set("candidate", b.isMissingNode() ? null : b);
+        if (a.isNumber() && b.isNumber() && a.asDouble() != 0) {
+            d.put("change", (b.asDouble() - a.asDouble()) / a.asDouble());
+        }
+        return d;
+    }
+}
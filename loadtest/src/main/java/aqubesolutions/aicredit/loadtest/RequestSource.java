@@ -0,0 +1,174 @@
+package aqubesolutions.aicredit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Requests to replay, loaded up front so reading files never shows up in
+ * the measured latency.
+ *
+ * Inputs are either NDJSON, one {@code {"product": "ln", "request": {...}}}
+ * per line (the decision replay format; request fields may also sit at top
+ * level), or the synthetic training CSVs, whose product is taken from the
+ * file name. Requests are shuffled with a fixed seed and then cycled.
+ */
+final class RequestSource {
+
+    record Request(String endpoint, byte[] body) {
+    }
+
+    // Request fields per product, as in the backend's Product enum
+    static final Map<String, String[]> FIELDS = Map.of(
+            "mo", new String[]{"age", "annual_income", "monthly_debt", "property_price", "deposit_amount",
+                    "requested_loan", "mortgage_term_years", "mortgage_term_months"},
+            "cc", new String[]{"age", "annual_income", "monthly_debt", "existing_cc_balance", "total_cc_limit",
+                    "requested_limit"},
+            "ln", new String[]{"age", "annual_income", "monthly_debt", "requested_loan", "loan_term_months"},
+            "ca", new String[]{"age", "annual_income", "monthly_debt", "avg_monthly_balance", "overdraft_usage"});
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Request> requests;
+    private final AtomicLong next = new AtomicLong();
+
+    RequestSource(List<Request> requests) {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("No requests loaded");
+        }
+        this.requests = requests;
+    }
+
+    static RequestSource load(List<Path> inputs, String product, int limit, long seed) throws IOException {
+        List<Request> all = new ArrayList<>();
+        for (Path input : inputs) {
+            String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                all.addAll(readCsv(input, product != null ? product : productOfFile(name)));
+            } else {
+                all.addAll(readNdjson(input, product));
+            }
+        }
+        Collections.shuffle(all, new Random(seed));
+        if (limit > 0 && all.size() > limit) {
+            all = new ArrayList<>(all.subList(0, limit));
+        }
+        return new RequestSource(all);
+    }
+
+    Request next() {
+        return requests.get((int) (next.getAndIncrement() % requests.size()));
+    }
+
+    int size() {
+        return requests.size();
+    }
+
+    static String productOfFile(String name) {
+        if (name.contains("mortgage")) {
+            return "mo";
+        }
+        if (name.contains("creditcard")) {
+            return "cc";
+        }
+        if (name.contains("currentaccount")) {
+            return "ca";
+        }
+        if (name.contains("loan")) {
+            return "ln";
+        }
+        throw new IllegalArgumentException("Cannot tell the product of " + name + ", use --product");
+    }
+
+    static List<Request> readNdjson(Path file, String defaultProduct) throws IOException {
+        List<Request> out = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int n = 0;
+            while ((line = reader.readLine()) != null) {
+                n++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = MAPPER.readTree(line);
+                String product = node.path("product").asText(defaultProduct);
+                if (product == null || !FIELDS.containsKey(product)) {
+                    throw new IOException(file + ":" + n + ": unknown or missing product");
+                }
+                JsonNode request = node.has("request") ? node.get("request") : node;
+                out.add(new Request(endpoint(product), MAPPER.writeValueAsBytes(select(product, request))));
+            }
+        }
+        return out;
+    }
+
+    static List<Request> readCsv(Path file, String product) throws IOException {
+        String[] fields = FIELDS.get(product);
+        if (fields == null) {
+            throw new IllegalArgumentException("Unknown product " + product);
+        }
+        List<Request> out = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> header = List.of(reader.readLine().trim().split(","));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] values = line.split(",");
+                ObjectNode row = MAPPER.createObjectNode();
+                for (int i = 0; i < header.size() && i < values.length; i++) {
+                    try {
+                        row.put(header.get(i), Double.parseDouble(values[i]));
+                    } catch (NumberFormatException ignored) {
+                        // categorical column such as risk_band, not a request field
+                    }
+                }
+                out.add(new Request(endpoint(product), MAPPER.writeValueAsBytes(select(product, row))));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Keeps the product's request fields; integer-valued numbers are written
+     * as integers since some request fields are {@code Integer}.
+     */
+    private static ObjectNode select(String product, JsonNode source) {
+        ObjectNode out = MAPPER.createObjectNode();
+        for (String field : FIELDS.get(product)) {
+            JsonNode v = source.get(field);
+            if (v == null && "mortgage_term_months".equals(field) && source.has("mortgage_term_years")) {
+                // The mortgage training CSV only has the term in years
+                out.put(field, source.get("mortgage_term_years").asInt() * 12);
+                continue;
+            }
+            if (v == null || v.isNull()) {
+                continue;
+            }
+            if (v.isNumber() && v.asDouble() == Math.rint(v.asDouble())) {
+                out.put(field, v.asLong());
+            } else {
+                out.set(field, v);
+            }
+        }
+        return out;
+    }
+
+    static String endpoint(String product) {
+        return "/api/score/" + product;
+    }
+}
@@ -0,0 +1,91 @@
+package aqubesolutions.aicredit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestSourceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testNdjsonWithNestedAndTopLevelRequests() throws Exception {
+        Path file = dir.resolve("history.ndjson");
+        Files.writeString(file, """
+                {"product":"ln","request":{"age":35,"annual_income":52000.0,"requested_loan":12000,"label":"1"}}
+
+                {"product":"ca","age":40,"overdraft_usage":12.5,"prob_approved":0.9}
+                """);
+
+        List<RequestSource.Request> requests = RequestSource.readNdjson(file, null);
+
+        assertEquals(2, requests.size());
+        assertEquals("/api/score/ln", requests.get(0).endpoint());
+        JsonNode loan = mapper.readTree(requests.get(0).body());
+        assertEquals(52000, loan.get("annual_income").asInt());
+        assertTrue(loan.get("annual_income").isIntegralNumber());
+        assertFalse(loan.has("label"));
+
+        JsonNode ca = mapper.readTree(requests.get(1).body());
+        assertEquals("/api/score/ca", requests.get(1).endpoint());
+        assertEquals(12.5, ca.get("overdraft_usage").asDouble());
+        assertFalse(ca.has("prob_approved"));
+    }
+
+    @Test
+    void testCsvKeepsRequestFieldsAndDerivesMortgageTermMonths() throws Exception {
+        Path file = dir.resolve("synthetic_mortgage_5000.csv");
+        Files.writeString(file, """
+                age,annual_income,monthly_debt,property_price,deposit_amount,requested_loan,mortgage_term_years,ltv,max_borrow_amount,risk_band,approved
+                41,60000,300,250000,50000,200000,25,80.0,240000,Low,1
+                """);
+
+        List<RequestSource.Request> requests = RequestSource.readCsv(file, RequestSource.productOfFile(file.getFileName().toString()));
+
+        assertEquals(1, requests.size());
+        assertEquals("/api/score/mo", requests.get(0).endpoint());
+        JsonNode mo = mapper.readTree(requests.get(0).body());
+        assertEquals(300, mo.get("mortgage_term_months").asInt());
+        assertFalse(mo.has("ltv"));
+        assertFalse(mo.has("approved"));
+        assertEquals(8, mo.size());
+    }
+
+    @Test
+    void testRequestsAreShuffledDeterministicallyAndCycled() throws Exception {
+        Path file = dir.resolve("synthetic_loan_5000.csv");
+        StringBuilder csv = new StringBuilder("age,annual_income,monthly_debt,requested_loan,loan_term_months,max_loan,approved\n");
+        for (int i = 0; i < 20; i++) {
+            csv.append(20 + i).append(",30000,200,5000,36,10000,1\n");
+        }
+        Files.writeString(file, csv.toString());
+
+        RequestSource a = RequestSource.load(List.of(file), null, 0, 7);
+        RequestSource b = RequestSource.load(List.of(file), null, 0, 7);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            String body = new String(a.next().body());
+            assertEquals(body, new String(b.next().body()));
+            seen.add(body);
+        }
+        assertEquals(20, seen.size());
+        assertEquals(20, a.size());
+    }
+
+    @Test
+    void testUnknownProductIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RequestSource.productOfFile("applicants.csv"));
+    }
+}
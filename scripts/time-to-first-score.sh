@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+#
+# Time to first score: milliseconds from `docker run` until the first
+# successful POST /api/score/ln, i.e. JVM start + Spring context + model
+# loading + the first (cold) scoring request.
+#
+#   scripts/time-to-first-score.sh <image> [runs]
+#
+# Compare a build without the startup optimisations against the current one:
+#
+#   git worktree add /tmp/baseline <commit-before-startup-changes>
+#   docker build -t aicreditlens:baseline /tmp/baseline
+#   docker build -t aicreditlens:startup .
+#   scripts/time-to-first-score.sh aicreditlens:baseline 5
+#   scripts/time-to-first-score.sh aicreditlens:startup 5
+#
+# Use the same machine and CPU/memory limits for both (CPUS / MEMORY below).
+# Prints one line per run and a final line with the median.
+set -euo pipefail
+
+IMAGE=${1:?usage: $0 <image> [runs]}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+CPUS=${CPUS:-2}
+MEMORY=${MEMORY:-1g}
+BODY='{"age":35,"annual_income":52000,"monthly_debt":350,"requested_loan":12000,"loan_term_months":48}'
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+results=()
+for run in $(seq 1 "$RUNS"); do
+  start=$(now_ms)
+  cid=$(docker run -d --rm --cpus "$CPUS" --memory "$MEMORY" -p "$PORT:8080" "$IMAGE")
+  trap 'docker stop "$cid" >/dev/null 2>&1 || true' EXIT
+
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' -X POST \
+              -H 'Content-Type: application/json' -d "$BODY" \
+              "http://localhost:$PORT/api/score/ln" || true)" = "200" ]; do
+    if ! docker inspect "$cid" >/dev/null 2>&1; then
+      echo "container exited before scoring" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+
+  elapsed=$(( $(now_ms) - start ))
+  results+=("$elapsed")
+  echo "run=$run image=$IMAGE time_to_first_score_ms=$elapsed"
+
+  docker stop "$cid" >/dev/null
+  trap - EXIT
+done
+
+median=$(printf '%s\n' "${results[@]}" | sort -n | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR+1)/2] : int((a[NR/2] + a[NR/2+1]) / 2)}')
+echo "image=$IMAGE runs=$RUNS median_time_to_first_score_ms=$median"